@@ -0,0 +1,64 @@
+package com.github.sbugat.puzzle.chess.nqueens.benchmark;
+
+import java.io.Closeable;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.tools.InvalidSolutionsException;
+import com.github.sbugat.puzzle.chess.nqueens.tools.SequenceTools;
+
+/**
+ * Common view of all N chess queens engines for the benchmarks: solvers API and constructor-solving programs.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public abstract class NQueensCounter implements Closeable {
+
+	/**
+	 * Count again all solutions.
+	 *
+	 * @return number of solutions
+	 */
+	public abstract long count();
+
+	/**
+	 * Release the threads of the engine.
+	 */
+	@Override
+	public void close() {
+		// No resource by default
+	}
+
+	/**
+	 * Count once and check the number of solutions before benchmarking the engine.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @throws InvalidSolutionsException if the number of solutions is invalid
+	 */
+	public final void check(final int chessboardSize) throws InvalidSolutionsException {
+
+		final long solutionCount = count();
+		if (SequenceTools.isKnownChessboardSize(chessboardSize) && !SequenceTools.checkSolutionsFound(chessboardSize, solutionCount)) {
+			throw new InvalidSolutionsException(solutionCount, SequenceTools.getExpectedSolutions(chessboardSize), chessboardSize);
+		}
+	}
+
+	/**
+	 * Counter of a solver: the solver is reset before each count.
+	 *
+	 * @param genericNQueensSolver solver
+	 * @return counter of the solver
+	 */
+	public static NQueensCounter of(final GenericNQueensSolver genericNQueensSolver) {
+
+		return new NQueensCounter() {
+
+			@Override
+			public long count() {
+
+				genericNQueensSolver.reset();
+				return genericNQueensSolver.solve();
+			}
+		};
+	}
+}
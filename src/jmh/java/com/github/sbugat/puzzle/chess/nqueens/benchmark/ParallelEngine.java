@@ -0,0 +1,70 @@
+package com.github.sbugat.puzzle.chess.nqueens.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.sbugat.problems.chess.NQueensProblemCountMultiThreaded;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.ForkJoinBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.WorkUnitsBitFlagsNQueensSolver;
+
+/**
+ * Multi-threaded N chess queens engines.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public enum ParallelEngine {
+
+	PROBLEM_COUNT_MULTI_THREADED {
+		@Override
+		public NQueensCounter create(final int chessboardSize, final int threadNumber) {
+
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+					return NQueensProblemCountMultiThreaded.countMultiThread(chessboardSize, false, threadNumber, null);
+				}
+			};
+		}
+	},
+	FORK_JOIN_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize, final int threadNumber) {
+
+			final ForkJoinPool forkJoinPool = new ForkJoinPool(threadNumber);
+			final ForkJoinBitFlagsNQueensSolver solver = new ForkJoinBitFlagsNQueensSolver(chessboardSize, forkJoinPool, ForkJoinBitFlagsNQueensSolver.AUTOMATIC_SPLIT_LINE);
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+
+					solver.reset();
+					return solver.solve();
+				}
+
+				@Override
+				public void close() {
+					forkJoinPool.shutdown();
+				}
+			};
+		}
+	},
+	WORK_UNITS_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize, final int threadNumber) {
+			return NQueensCounter.of(new WorkUnitsBitFlagsNQueensSolver(chessboardSize, threadNumber, WORK_UNITS_LINE));
+		}
+	};
+
+	/** Line of the work units solver prefixes. */
+	static final int WORK_UNITS_LINE = 3;
+
+	/**
+	 * Create the engine counter.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param threadNumber number of threads of the engine
+	 * @return counter of the engine
+	 */
+	public abstract NQueensCounter create(int chessboardSize, int threadNumber);
+}
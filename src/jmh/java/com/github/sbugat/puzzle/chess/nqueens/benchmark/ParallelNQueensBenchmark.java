@@ -0,0 +1,61 @@
+package com.github.sbugat.puzzle.chess.nqueens.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sbugat.puzzle.chess.nqueens.tools.InvalidSolutionsException;
+
+/**
+ * JMH benchmark of the multi-threaded engines for each chessboard size and number of threads.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public class ParallelNQueensBenchmark {
+
+	@Param
+	public ParallelEngine engine;
+
+	@Param({ "12", "14" })
+	public int chessboardSize;
+
+	@Param({ "1", "2", "4" })
+	public int threadNumber;
+
+	private NQueensCounter counter;
+
+	@Setup
+	public void setup() throws InvalidSolutionsException {
+
+		counter = engine.create(chessboardSize, threadNumber);
+		counter.check(chessboardSize);
+	}
+
+	@TearDown
+	public void tearDown() {
+		counter.close();
+	}
+
+	@Benchmark
+	public long count() {
+		return counter.count();
+	}
+}
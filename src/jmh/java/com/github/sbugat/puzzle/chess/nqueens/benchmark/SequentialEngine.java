@@ -0,0 +1,179 @@
+package com.github.sbugat.puzzle.chess.nqueens.benchmark;
+
+import java.io.IOException;
+
+import com.github.sbugat.problems.chess.NQueensProblemCountBitFlagsIterative;
+import com.github.sbugat.problems.chess.NQueensProblemCountBitFlagsRecursive;
+import com.github.sbugat.problems.chess.NQueensProblemCountIterative;
+import com.github.sbugat.problems.chess.NQueensProblemCountRecursive;
+import com.github.sbugat.problems.chess.NQueensProblemCountStackedBitFlags;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsKernel;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsKernelGenerator;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.MeetInTheMiddleNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.MultiWordStackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.SymmetricBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.TwoLinesStackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.intro.BasicNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.intro.HalfGreedyNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.intro.NQueensSolver;
+
+/**
+ * Single thread N chess queens engines.
+ *
+ * The problems programs solve a first time in their constructor, the benchmark counts again with the same instance.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public enum SequentialEngine {
+
+	PROBLEM_COUNT_RECURSIVE {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+
+			final NQueensProblemCountRecursive problem = new NQueensProblemCountRecursive(chessboardSize);
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+					return problem.count();
+				}
+			};
+		}
+	},
+	PROBLEM_COUNT_ITERATIVE {
+		@Override
+		public NQueensCounter create(final int chessboardSize) throws IOException {
+
+			final NQueensProblemCountIterative problem = new NQueensProblemCountIterative(chessboardSize);
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+					return problem.count();
+				}
+			};
+		}
+	},
+	PROBLEM_COUNT_BIT_FLAGS_RECURSIVE {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+
+			final NQueensProblemCountBitFlagsRecursive problem = new NQueensProblemCountBitFlagsRecursive(chessboardSize);
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+					return problem.count();
+				}
+			};
+		}
+	},
+	PROBLEM_COUNT_BIT_FLAGS_ITERATIVE {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+
+			final NQueensProblemCountBitFlagsIterative problem = new NQueensProblemCountBitFlagsIterative(chessboardSize);
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+					return problem.count();
+				}
+			};
+		}
+	},
+	PROBLEM_COUNT_STACKED_BIT_FLAGS {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+
+			final NQueensProblemCountStackedBitFlags problem = new NQueensProblemCountStackedBitFlags(chessboardSize, false);
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+					return problem.count();
+				}
+			};
+		}
+	},
+	BASIC_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new BasicNQueensSolver(chessboardSize, false));
+		}
+	},
+	SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new NQueensSolver(chessboardSize, false));
+		}
+	},
+	HALF_GREEDY_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new HalfGreedyNQueensSolver(chessboardSize, false));
+		}
+	},
+	STACKED_BIT_FLAGS_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new StackedBitFlagsNQueensSolver(chessboardSize, false));
+		}
+	},
+	LONG_STACKED_BIT_FLAGS_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new LongStackedBitFlagsNQueensSolver(chessboardSize, false));
+		}
+	},
+	MULTI_WORD_STACKED_BIT_FLAGS_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new MultiWordStackedBitFlagsNQueensSolver(chessboardSize, false));
+		}
+	},
+	SYMMETRIC_BIT_FLAGS_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new SymmetricBitFlagsNQueensSolver(chessboardSize, false));
+		}
+	},
+	MEET_IN_THE_MIDDLE_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new MeetInTheMiddleNQueensSolver(chessboardSize));
+		}
+	},
+	TWO_LINES_STACKED_BIT_FLAGS_SOLVER {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+			return NQueensCounter.of(new TwoLinesStackedBitFlagsNQueensSolver(chessboardSize));
+		}
+	},
+	GENERATED_KERNEL {
+		@Override
+		public NQueensCounter create(final int chessboardSize) {
+
+			final BitFlagsKernel kernel = BitFlagsKernelGenerator.getKernel(chessboardSize);
+			return new NQueensCounter() {
+
+				@Override
+				public long count() {
+					return kernel.count();
+				}
+			};
+		}
+	};
+
+	/**
+	 * Create the engine counter.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @return counter of the engine
+	 * @throws IOException if the engine cannot be created
+	 */
+	public abstract NQueensCounter create(int chessboardSize) throws IOException;
+}
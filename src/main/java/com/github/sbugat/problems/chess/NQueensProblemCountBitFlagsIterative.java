@@ -2,6 +2,9 @@ package com.github.sbugat.problems.chess;
 
 import gnu.getopt.Getopt;
 
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolvers;
+
 /**
  * Classic N chess queens on a size N chess board with bits flags
  * 
@@ -46,6 +49,18 @@ public class NQueensProblemCountBitFlagsIterative {
 		System.out.println("Total number of solution(s):" + solutionCount);
 	}
 
+	/**
+	 * Count again all solutions without printing the total, used by benchmarks
+	 * 
+	 * @return number of solutions
+	 */
+	public long count() {
+
+		solutionCount = 0;
+		firstSolve();
+		return solutionCount;
+	}
+
 	/**
 	 * First line to divide by 2 explored tree
 	 */
@@ -161,7 +176,7 @@ public class NQueensProblemCountBitFlagsIterative {
 				try {
 					chessBoardSize = Integer.parseInt(getOpt.getOptarg());
 
-					if (chessBoardSize < 2 || chessBoardSize > 31) {
+					if (chessBoardSize < 2) {
 						System.err.println(usage);
 						System.exit(1);
 					}
@@ -181,6 +196,12 @@ public class NQueensProblemCountBitFlagsIterative {
 			c = getOpt.getopt();
 		}
 
-		new NQueensProblemCountBitFlagsIterative(chessBoardSize);
+		// int bit-flags are limited to 31 columns, larger chessboards are solved with long or multi-words bit-flags
+		if (chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			System.out.println("Total number of solution(s):" + StackedBitFlagsNQueensSolvers.newSolver(chessBoardSize, false).solve());
+		}
+		else {
+			new NQueensProblemCountBitFlagsIterative(chessBoardSize);
+		}
 	}
 }
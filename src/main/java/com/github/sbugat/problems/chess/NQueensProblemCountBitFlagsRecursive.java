@@ -2,6 +2,9 @@ package com.github.sbugat.problems.chess;
 
 import gnu.getopt.Getopt;
 
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolvers;
+
 /**
  * Classic N chess queens on a size N chess board with bits flags
  * 
@@ -39,6 +42,18 @@ public class NQueensProblemCountBitFlagsRecursive {
 		System.out.println("Total number of solution(s):" + solutionCount);
 	}
 
+	/**
+	 * Count again all solutions without printing the total, used by benchmarks
+	 * 
+	 * @return number of solutions
+	 */
+	public long count() {
+
+		solutionCount = 0;
+		solve();
+		return solutionCount;
+	}
+
 	/**
 	 * First line to divide by 2 explored tree
 	 */
@@ -139,7 +154,7 @@ public class NQueensProblemCountBitFlagsRecursive {
 				try {
 					chessBoardSize = Integer.parseInt(getOpt.getOptarg());
 
-					if (chessBoardSize < 2 || chessBoardSize > 31) {
+					if (chessBoardSize < 2) {
 						System.err.println(usage);
 						System.exit(1);
 					}
@@ -159,6 +174,12 @@ public class NQueensProblemCountBitFlagsRecursive {
 			c = getOpt.getopt();
 		}
 
-		new NQueensProblemCountBitFlagsRecursive(chessBoardSize);
+		// int bit-flags are limited to 31 columns, larger chessboards are solved with long or multi-words bit-flags
+		if (chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			System.out.println("Total number of solution(s):" + StackedBitFlagsNQueensSolvers.newSolver(chessBoardSize, false).solve());
+		}
+		else {
+			new NQueensProblemCountBitFlagsRecursive(chessBoardSize);
+		}
 	}
 }
@@ -5,6 +5,8 @@ import gnu.getopt.Getopt;
 import java.io.IOException;
 import java.util.Arrays;
 
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+
 /**
  * Classic N chess queens on a size N chess board with iterative and stack method
  * 
@@ -65,6 +67,18 @@ public class NQueensProblemCountIterative {
 		System.out.println("Total number of solution(s):" + solutionCount);
 	}
 
+	/**
+	 * Count again all solutions without printing the total, used by benchmarks
+	 * 
+	 * @return number of solutions
+	 */
+	public long count() {
+
+		solutionCount = 0;
+		firstSolve();
+		return solutionCount;
+	}
+
 	/**
 	 * First line to divide by 2 explored tree
 	 */
@@ -184,14 +198,16 @@ public class NQueensProblemCountIterative {
 	 */
 	public static void main(final String args[]) throws IOException {
 
-		final String usage = "Usage: " + NQueensProblemCountIterative.class.getSimpleName() + " [-n <size of the chessboard>]";
+		final String usage = "Usage: " + NQueensProblemCountIterative.class.getSimpleName() + " [-n <size of the chessboard>] [-u(unique solutions with all chessboard symmetries)]";
 
-		final Getopt getOpt = new Getopt("NQueensProblem", args, ":n:");
+		final Getopt getOpt = new Getopt("NQueensProblem", args, ":n:u");
 		getOpt.setOpterr(false);
 
 		// Default chessboard size
 		int chessBoardSize = 8;
 
+		boolean symmetric = false;
+
 		int c = getOpt.getopt();
 		while (-1 != c) {
 			switch (c) {
@@ -210,6 +226,10 @@ public class NQueensProblemCountIterative {
 				}
 				break;
 
+			case 'u':
+				symmetric = true;
+				break;
+
 			case '?':
 			default:
 				System.err.println(usage);
@@ -219,6 +239,17 @@ public class NQueensProblemCountIterative {
 			c = getOpt.getopt();
 		}
 
-		new NQueensProblemCountIterative(chessBoardSize);
+		// The symmetric search is done with int bit-flags limited to 31 columns
+		if (symmetric && chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		if (symmetric) {
+			NQueensProblemCountStackedBitFlags.solveSymmetric(chessBoardSize);
+		}
+		else {
+			new NQueensProblemCountIterative(chessBoardSize);
+		}
 	}
 }
@@ -1,14 +1,47 @@
 package com.github.sbugat.problems.chess;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.github.sbugat.puzzle.chess.nqueens.SolutionVisitor;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.EndgameTablebase;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.MemoizedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.SubtreeCountCache;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.BitFlagsPrefix;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.ForkJoinBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.OrderedParallelEnumerator;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.SolutionCountEstimator;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.SubtreeSizeEstimator;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.WorkUnitsBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.WorkUnitsCheckpoint;
+import com.github.sbugat.puzzle.chess.nqueens.progress.ProgressCounter;
+import com.github.sbugat.puzzle.chess.nqueens.progress.ProgressMonitor;
+import com.github.sbugat.puzzle.chess.nqueens.tools.SequenceTools;
+
 import gnu.getopt.Getopt;
+import gnu.getopt.LongOpt;
 
 /**
  * Classic N chess queens on a size N chess board with multithreaded bits flags
@@ -22,9 +55,35 @@ import gnu.getopt.Getopt;
  */
 public class NQueensProblemCountMultiThreaded implements Runnable{
 
+	/**Number of work units per thread of a checkpointed run with an automatic work units line*/
+	private static final int CHECKPOINT_WORK_UNITS_PER_THREAD = 64;
+
+	/**Number of work units per thread of a balanced run with an automatic work units line*/
+	private static final int BALANCED_WORK_UNITS_PER_THREAD = 16;
+
+	/**Default target relative error of an estimated count in percent*/
+	private static final double DEFAULT_ESTIMATE_RELATIVE_ERROR_PERCENT = 1;
+
+	/**Maximum number of probes of an estimated count*/
+	private static final long ESTIMATE_MAXIMUM_PROBES = 1L << 32;
+
+	/**Number of work units per thread of each board of a sweep with an automatic work units line*/
+	private static final int SWEEP_WORK_UNITS_PER_THREAD = 16;
+
+	/**Stack level of the sub-trees searched without checking the interruption*/
+	private static final int INTERRUPT_CHECK_STACKLEVEL = 3;
+
 	/**Number of solution counter*/
 	private long solutionCount;
 
+	/**Number of queens placed*/
+	private long nodeCount;
+
+	/**Progress of all threads, may be null*/
+	private final ProgressMonitor progressMonitor;
+	/**Progress counters of this thread, may be null*/
+	private final ProgressCounter progressCounter;
+
 	/**Size of the chess board*/
 	private final int chessboardSize;
 	private final int chessboardSizeMinusTwo;
@@ -39,8 +98,29 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 	private final int [] unusedDescendingDiagonalsStack;
 	private int stacklevel=0;
 
+	/**Solutions of the last lines shared by all threads, may be null*/
+	private final EndgameTablebase endgameTablebase;
+	/**Stack level of the queen on the line before the tablebase lines*/
+	private final int tablebaseStacklevel;
+
 	public NQueensProblemCountMultiThreaded( final int chessboardSizeArg, final int xArg, final boolean printSolutionsArg ) {
 
+		this( chessboardSizeArg, xArg, printSolutionsArg, null );
+	}
+
+	public NQueensProblemCountMultiThreaded( final int chessboardSizeArg, final int xArg, final boolean printSolutionsArg, final ProgressMonitor progressMonitorArg ) {
+
+		this( chessboardSizeArg, xArg, printSolutionsArg, progressMonitorArg, null );
+	}
+
+	public NQueensProblemCountMultiThreaded( final int chessboardSizeArg, final int xArg, final boolean printSolutionsArg, final ProgressMonitor progressMonitorArg, final EndgameTablebase endgameTablebaseArg ) {
+
+		endgameTablebase = endgameTablebaseArg;
+		tablebaseStacklevel = ( null == endgameTablebaseArg ) ? 0 : chessboardSizeArg - endgameTablebaseArg.getLines() - 2;
+
+		progressMonitor = progressMonitorArg;
+		progressCounter = ( null == progressMonitorArg ) ? null : progressMonitorArg.newCounter();
+
 		chessboardSize = chessboardSizeArg;
 		chessboardSizeMinusTwo = chessboardSizeArg - 2;
 		x = xArg;
@@ -74,7 +154,12 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 
 			//Go on to the second line
 			stacklevel = 0;
-			solve( bitFlags );
+			if( null == endgameTablebase ) {
+				solve( bitFlags );
+			}
+			else {
+				solveWithTablebase( bitFlags );
+			}
 		}
 		//If the cheesboard size is odd, test with a queen on the middle of the first line
 		else if( x == chessboardSize / 2 ) {
@@ -94,22 +179,89 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 
 			//Go on to the second line
 			stacklevel = 0;
-			solve( bitFlags );
+			if( null == endgameTablebase ) {
+				solve( bitFlags );
+			}
+			else {
+				solveWithTablebase( bitFlags );
+			}
 		}
 
 		//Multiply by 2 the solution count for the other half not calculated
 		solutionCount *= 2;
+
+		if( null != progressMonitor ) {
+			progressCounter.publish( nodeCount, solutionCount );
+			progressMonitor.workUnitCompleted();
+		}
 	}
 
 	/**
 	 * Solving with iterative/stacking method by using bit flags, do a depth-first/back-tracking algorithm
 	 * a queen must me placed on the first line
 	 *
+	 * The queens of the first lines are placed one by one and the interruption is checked before searching each sub-tree, the sub-trees loops do not check the interruption and count nodes only for the progress
+	 *
 	 * @param initial bitFlag with a single queen on the first line
 	 */
 	private void solve( int bitFlags ) {
 
-		int prevStacklevel = stacklevel - 1;
+		//All queens are sets on the chessboard then each free position of the last line is a solution
+		if( stacklevel >= chessboardSizeMinusTwo ) {
+			solutionCount += Integer.bitCount( bitFlags );
+			return;
+		}
+
+		//Sub-tree search from the interruption check stack level
+		if( stacklevel >= INTERRUPT_CHECK_STACKLEVEL ) {
+			solveSubtree( bitFlags );
+			return;
+		}
+
+		final int prevStacklevel = stacklevel;
+		while( bitFlags != 0 ) {
+
+			//Cooperative stop of an interrupted solve, the count is partial
+			if( Thread.currentThread().isInterrupted() ) {
+				return;
+			}
+
+			final int targetQueen = -( bitFlags ) & ( bitFlags );
+			bitFlags ^= targetQueen;
+
+			//Go on to the next line
+			nodeCount++;
+			stacklevel = prevStacklevel + 1;
+			bitFlagsStack[ stacklevel ] = bitFlags;
+			final int nextBitFlags = bitFlagsMask & ~( ( unusedColumnsStack[ stacklevel ] = unusedColumnsStack[ prevStacklevel ] | targetQueen )
+					| ( unusedAscendingDiagonalsStack[ stacklevel ] = ( unusedAscendingDiagonalsStack[ prevStacklevel ] | targetQueen ) << 1 )
+					| ( unusedDescendingDiagonalsStack[ stacklevel ] = ( unusedDescendingDiagonalsStack[ prevStacklevel ] | targetQueen ) >> 1 )
+					);
+
+			if( 0 != nextBitFlags ) {
+				solve( nextBitFlags );
+			}
+			stacklevel = prevStacklevel;
+		}
+	}
+
+	/**
+	 * Depth-first/back-tracking search of a sub-tree of the interruption check stack level, exit when all positions of the sub-tree are tested
+	 *
+	 * @param initial bitFlag of the next line
+	 */
+	private void solveSubtree( int bitFlags ) {
+
+		//Nodes are only counted for the progress
+		if( null != progressCounter ) {
+			solveSubtreeWithProgress( bitFlags );
+			return;
+		}
+
+		//Stack level and solutions count in local variables of the loop
+		int level = stacklevel;
+		long solutions = 0;
+		int prevStacklevel = level - 1;
 		int targetQueen;
 		//Infinite loop, exit condition is tested when unstacking a queen
 		while( true ) {
@@ -121,8 +273,8 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 
 			//All queens are sets on the chessboard then a solution is found!
 			//Test with the board size minus 2 because the targeted queen is not placed yet
-			if( stacklevel >= chessboardSizeMinusTwo ) {
-				solutionCount++;
+			if( level >= chessboardSizeMinusTwo ) {
+				solutions++;
 
 				//Uncomment to print all solutions
 				/*if( printSolutions ) {
@@ -134,16 +286,159 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 			else {
 
 				//Go on to the next line
-				prevStacklevel = stacklevel++;
+				prevStacklevel = level++;
 				//Mark the current target queen as tested for this stack level
-				bitFlagsStack[ stacklevel ] = bitFlags ^ targetQueen;
+				bitFlagsStack[ level ] = bitFlags ^ targetQueen;
 
-				//unusedColumnsStack[ stacklevel ] = unusedColumnsStack[ prevStacklevel ] | targetQueen;
-				//unusedAscendingDiagonalsStack[ stacklevel ] = ( unusedAscendingDiagonalsStack[ prevStacklevel ] | targetQueen ) << 1;
-				//unusedDescendingDiagonalsStack[ stacklevel ] = ( unusedDescendingDiagonalsStack[ prevStacklevel ] | targetQueen ) >> 1;
-				//bitFlags = bitFlagsMask & ( unusedColumnsStack[ stacklevel ] | unusedAscendingDiagonalsStack[ stacklevel ] | unusedDescendingDiagonalsStack[ stacklevel ] );
+				//unusedColumnsStack[ level ] = unusedColumnsStack[ prevStacklevel ] | targetQueen;
+				//unusedAscendingDiagonalsStack[ level ] = ( unusedAscendingDiagonalsStack[ prevStacklevel ] | targetQueen ) << 1;
+				//unusedDescendingDiagonalsStack[ level ] = ( unusedDescendingDiagonalsStack[ prevStacklevel ] | targetQueen ) >> 1;
+				//bitFlags = bitFlagsMask & ( unusedColumnsStack[ level ] | unusedAscendingDiagonalsStack[ level ] | unusedDescendingDiagonalsStack[ level ] );
 
 				//Update bit flags and do 3 stacks updates (4 previous commented lines in 1)
+				bitFlags = bitFlagsMask & ~( ( unusedColumnsStack[ level ] = unusedColumnsStack[ prevStacklevel ] | targetQueen )
+						| ( unusedAscendingDiagonalsStack[ level ] = ( unusedAscendingDiagonalsStack[ prevStacklevel ] | targetQueen ) << 1 )
+						| ( unusedDescendingDiagonalsStack[ level ] = ( unusedDescendingDiagonalsStack[ prevStacklevel ] | targetQueen ) >> 1 )
+						);
+			}
+
+			//If all positions have been tested or are already blocked by a column or a diagonal
+			while( bitFlags == 0 ) {
+
+				//If there is still something to unstack
+				if( level > INTERRUPT_CHECK_STACKLEVEL ) {
+					//Backtrace process
+					bitFlags = bitFlagsStack[ level ];
+					level --;
+				}
+				//Exit if all possibilities of the sub-tree are tested
+				else {
+					solutionCount += solutions;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Same sub-tree search counting the nodes, published from time to time in the progress counters of this thread
+	 *
+	 * @param initial bitFlag of the next line
+	 */
+	private void solveSubtreeWithProgress( int bitFlags ) {
+
+		//Stack level and solutions count in local variables of the loop
+		int level = stacklevel;
+		long solutions = 0;
+		//Nodes counter of the thread, published from time to time to the progress counters of this thread
+		long nodes = nodeCount;
+		int prevStacklevel = level - 1;
+		int targetQueen;
+		//Infinite loop, exit condition is tested when unstacking a queen
+		while( true ) {
+
+			//Test first possible queen of the line using direct inlining(manual code copy) of this method call: Integer.lowestOneBit( bitFlags );
+			//if the row is not already blocked by another queen and if both diagonals are not already blocked by anothers queens
+			//Don't need to test if targetQueen is not 0 because bitFlags has not been unstacked at the end of the loop (=contain at least one 0)
+			targetQueen = -( bitFlags ) & ( bitFlags );
+
+			//All queens are sets on the chessboard then a solution is found!
+			//Test with the board size minus 2 because the targeted queen is not placed yet
+			if( level >= chessboardSizeMinusTwo ) {
+				solutions++;
+
+				//Uncomment to print all solutions
+				/*if( printSolutions ) {
+					print( targetQueen );
+				}*/
+
+				bitFlags ^= targetQueen;
+			}
+			else {
+
+				//Publish progress every PUBLISH_MASK+1 nodes, a single well predicted branch per node
+				if( 0 == ( ++nodes & ProgressCounter.PUBLISH_MASK ) ) {
+					//Mirrored solutions are counted at the end of the thread
+					progressCounter.publish( nodes, ( solutionCount + solutions ) * 2 );
+				}
+
+				//Go on to the next line
+				prevStacklevel = level++;
+				//Mark the current target queen as tested for this stack level
+				bitFlagsStack[ level ] = bitFlags ^ targetQueen;
+
+				//unusedColumnsStack[ level ] = unusedColumnsStack[ prevStacklevel ] | targetQueen;
+				//unusedAscendingDiagonalsStack[ level ] = ( unusedAscendingDiagonalsStack[ prevStacklevel ] | targetQueen ) << 1;
+				//unusedDescendingDiagonalsStack[ level ] = ( unusedDescendingDiagonalsStack[ prevStacklevel ] | targetQueen ) >> 1;
+				//bitFlags = bitFlagsMask & ( unusedColumnsStack[ level ] | unusedAscendingDiagonalsStack[ level ] | unusedDescendingDiagonalsStack[ level ] );
+
+				//Update bit flags and do 3 stacks updates (4 previous commented lines in 1)
+				bitFlags = bitFlagsMask & ~( ( unusedColumnsStack[ level ] = unusedColumnsStack[ prevStacklevel ] | targetQueen )
+						| ( unusedAscendingDiagonalsStack[ level ] = ( unusedAscendingDiagonalsStack[ prevStacklevel ] | targetQueen ) << 1 )
+						| ( unusedDescendingDiagonalsStack[ level ] = ( unusedDescendingDiagonalsStack[ prevStacklevel ] | targetQueen ) >> 1 )
+						);
+			}
+
+			//If all positions have been tested or are already blocked by a column or a diagonal
+			while( bitFlags == 0 ) {
+
+				//If there is still something to unstack
+				if( level > INTERRUPT_CHECK_STACKLEVEL ) {
+					//Backtrace process
+					bitFlags = bitFlagsStack[ level ];
+					level --;
+				}
+				//Exit if all possibilities of the sub-tree are tested
+				else {
+					solutionCount += solutions;
+					nodeCount = nodes;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Same depth-first/back-tracking algorithm stopped on the line before the tablebase lines, the solutions of the last lines are read in the tablebase
+	 *
+	 * @param initial bitFlag with a single queen on the first line
+	 */
+	private void solveWithTablebase( int bitFlags ) {
+
+		int prevStacklevel = stacklevel - 1;
+		int targetQueen;
+		long nodes = 0;
+		//Infinite loop, exit condition is tested when unstacking a queen
+		while( true ) {
+
+			targetQueen = -( bitFlags ) & ( bitFlags );
+
+			//The targeted queen is on the line before the tablebase lines, add the solutions of the last lines
+			if( stacklevel >= tablebaseStacklevel ) {
+				solutionCount += endgameTablebase.count( unusedColumnsStack[ stacklevel ] | targetQueen, ( unusedAscendingDiagonalsStack[ stacklevel ] | targetQueen ) << 1, ( unusedDescendingDiagonalsStack[ stacklevel ] | targetQueen ) >> 1 );
+
+				bitFlags ^= targetQueen;
+			}
+			else {
+
+				if( 0 == ( ++nodes & ProgressCounter.PUBLISH_MASK ) ) {
+
+					if( null != progressCounter ) {
+						progressCounter.publish( nodes, solutionCount * 2 );
+					}
+
+					if( Thread.currentThread().isInterrupted() ) {
+						nodeCount += nodes;
+						return;
+					}
+				}
+
+				//Go on to the next line
+				prevStacklevel = stacklevel++;
+				//Mark the current target queen as tested for this stack level
+				bitFlagsStack[ stacklevel ] = bitFlags ^ targetQueen;
+
+				//Update bit flags and do 3 stacks updates
 				bitFlags = bitFlagsMask & ~( ( unusedColumnsStack[ stacklevel ] = unusedColumnsStack[ prevStacklevel ] | targetQueen )
 						| ( unusedAscendingDiagonalsStack[ stacklevel ] = ( unusedAscendingDiagonalsStack[ prevStacklevel ] | targetQueen ) << 1 )
 						| ( unusedDescendingDiagonalsStack[ stacklevel ] = ( unusedDescendingDiagonalsStack[ prevStacklevel ] | targetQueen ) >> 1 )
@@ -161,6 +456,7 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 				}
 				//Exit if all possibilities are tested
 				else {
+					nodeCount += nodes;
 					return;
 				}
 			}
@@ -198,63 +494,525 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 	 */
 	public static void launchMultiThread( final int chessBoardSize, final boolean printSolutions, final int threadNumber ) {
 
+		launchMultiThread( chessBoardSize, printSolutions, threadNumber, 0 );
+	}
+
+	/**
+	 * Prepare and run all thread with a fixed thread pool, progress is registered in JMX and printed periodically on the error output
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param printSolutions
+	 * @param threadNumbers number of simultaneous thread to launch
+	 * @param progressPeriodSeconds period of the progress line, 0 to disable progress
+	 */
+	public static void launchMultiThread( final int chessBoardSize, final boolean printSolutions, final int threadNumber, final int progressPeriodSeconds ) {
+
+		launchMultiThread( chessBoardSize, printSolutions, threadNumber, progressPeriodSeconds, null );
+	}
+
+	/**
+	 * Prepare and run all thread with a fixed thread pool sharing an endgame tablebase, progress is registered in JMX and printed periodically on the error output
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param printSolutions
+	 * @param threadNumbers number of simultaneous thread to launch
+	 * @param progressPeriodSeconds period of the progress line, 0 to disable progress
+	 * @param endgameTablebase solutions of the last lines, may be null
+	 */
+	public static void launchMultiThread( final int chessBoardSize, final boolean printSolutions, final int threadNumber, final int progressPeriodSeconds, final EndgameTablebase endgameTablebase ) {
+
+		//One work unit for each position on the first half of the first line and the middle position if the size of the board is odd
+		final ProgressMonitor progressMonitor = ( 0 == progressPeriodSeconds ) ? null : new ProgressMonitor( ( chessBoardSize + 1 ) / 2 );
+		if( null != progressMonitor ) {
+			try {
+				progressMonitor.register();
+			}
+			catch( final JMException e ) {
+				System.err.println( "Progress not registered in JMX: " + e.getMessage() );
+			}
+			progressMonitor.startReport( System.err, progressPeriodSeconds );
+		}
+
+		try {
+			System.out.println( "Total number of solution(s):" + countMultiThreadInterruptibly( chessBoardSize, printSolutions, threadNumber, progressMonitor, endgameTablebase ) );
+		}
+		catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			System.err.println( "Interrupted solve" );
+		}
+		finally {
+			if( null != progressMonitor ) {
+				progressMonitor.close();
+			}
+		}
+	}
+
+	/**
+	 * Run all thread with a fixed thread pool and return the total number of solutions
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param printSolutions
+	 * @param threadNumbers number of simultaneous thread to launch
+	 * @param progressMonitor progress of the threads, may be null
+	 * @return number of solutions
+	 */
+	public static long countMultiThread( final int chessBoardSize, final boolean printSolutions, final int threadNumber, final ProgressMonitor progressMonitor ) {
+
+		return countMultiThread( chessBoardSize, printSolutions, threadNumber, progressMonitor, null );
+	}
+
+	/**
+	 * Run all thread with a fixed thread pool sharing an endgame tablebase and return the total number of solutions
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param printSolutions
+	 * @param threadNumbers number of simultaneous thread to launch
+	 * @param progressMonitor progress of the threads, may be null
+	 * @param endgameTablebase solutions of the last lines, may be null
+	 * @return number of solutions
+	 */
+	public static long countMultiThread( final int chessBoardSize, final boolean printSolutions, final int threadNumber, final ProgressMonitor progressMonitor, final EndgameTablebase endgameTablebase ) {
+
+		try {
+			return countMultiThreadInterruptibly( chessBoardSize, printSolutions, threadNumber, progressMonitor, endgameTablebase );
+		}
+		catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException( "Interrupted solve", e );
+		}
+	}
+
+	/**
+	 * Run all thread with a fixed thread pool sharing an endgame tablebase and return the total number of solutions, the threads are stopped if the calling thread is interrupted
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param printSolutions
+	 * @param threadNumbers number of simultaneous thread to launch
+	 * @param progressMonitor progress of the threads, may be null
+	 * @param endgameTablebase solutions of the last lines, may be null
+	 * @return number of solutions
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	private static long countMultiThreadInterruptibly( final int chessBoardSize, final boolean printSolutions, final int threadNumber, final ProgressMonitor progressMonitor, final EndgameTablebase endgameTablebase ) throws InterruptedException {
+
 		final ExecutorService executorService = Executors.newFixedThreadPool( threadNumber );
 
 		final List<NQueensProblemCountMultiThreaded> listeThread = new ArrayList<>();
+		final List<Future<?>> futures = new ArrayList<>();
 
 		//Prepare a thread for each possible possition on the first half of the first line
 		for( int x=0 ; x < chessBoardSize/2 ; x ++ ){
 
-			final NQueensProblemCountMultiThreaded thread = new NQueensProblemCountMultiThreaded( chessBoardSize, x, printSolutions );
+			final NQueensProblemCountMultiThreaded thread = new NQueensProblemCountMultiThreaded( chessBoardSize, x, printSolutions, progressMonitor, endgameTablebase );
 			listeThread.add( thread );
-			executorService.execute( thread );
+			futures.add( executorService.submit( thread ) );
 		}
 
 		//If the size of the board is odd, prepare a thread with a queen in the middle of the first line
 		if( 0 != chessBoardSize % 2 ) {
 
-			final NQueensProblemCountMultiThreaded thread = new NQueensProblemCountMultiThreaded( chessBoardSize, chessBoardSize / 2, printSolutions );
+			final NQueensProblemCountMultiThreaded thread = new NQueensProblemCountMultiThreaded( chessBoardSize, chessBoardSize / 2, printSolutions, progressMonitor, endgameTablebase );
 			listeThread.add( thread );
-			executorService.execute( thread );
+			futures.add( executorService.submit( thread ) );
 		}
 
 		try {
-			executorService.shutdown();
-			executorService.awaitTermination( 1,  TimeUnit.DAYS );
+			for( final Future<?> future : futures ) {
+				future.get();
+			}
 		}
-		catch ( final InterruptedException e) {
-			e.printStackTrace();
-			System.exit( 1 );
+		catch ( final ExecutionException e ) {
+			throw new IllegalStateException( "Thread failed", e.getCause() );
+		}
+		finally {
+			//Interrupted threads stop cooperatively
+			executorService.shutdownNow();
 		}
 
-		int solutionCount = 0;
+		//Sum as a long, the number of solutions is greater than an int from a 18x18 chessboard
+		long solutionCount = 0;
 		for( final NQueensProblemCountMultiThreaded thread : listeThread ) {
 
 			solutionCount += thread.solutionCount;
 		}
 
-		System.out.println( "Total number of solution(s):" + solutionCount );
+		return solutionCount;
+	}
+
+	/**
+	 * Run the work-stealing fork/join solver, sub-trees are split down to the split line
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param threadNumber number of workers of the pool
+	 * @param splitLine first line counted sequentially by a task, 0 for an automatic split line
+	 */
+	public static void launchForkJoin( final int chessBoardSize, final int threadNumber, final int splitLine ) {
+
+		final ForkJoinPool forkJoinPool = new ForkJoinPool( threadNumber );
+
+		try {
+			final ForkJoinBitFlagsNQueensSolver solver = new ForkJoinBitFlagsNQueensSolver( chessBoardSize, forkJoinPool, splitLine );
+			System.out.println( "Total number of solution(s):" + solver.solve() );
+		}
+		finally {
+			forkJoinPool.shutdown();
+		}
+	}
+
+	/**
+	 * Run a thread for each position of the first line sharing a transposition table of sub-trees counts
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param threadNumber number of simultaneous thread to launch
+	 * @param cacheMegaBytes memory budget of the table in megabytes
+	 */
+	public static void launchMemoized( final int chessBoardSize, final int threadNumber, final int cacheMegaBytes ) {
+
+		final SubtreeCountCache subtreeCountCache = new SubtreeCountCache( (long) cacheMegaBytes << 20, threadNumber * 16 );
+		final MemoizedBitFlagsNQueensSolver solver = new MemoizedBitFlagsNQueensSolver( chessBoardSize, subtreeCountCache );
+
+		final ExecutorService executorService = Executors.newFixedThreadPool( threadNumber );
+		try {
+			//A task for each position on the first half of the first line and the middle position if the size of the board is odd
+			final List<Future<Long>> futures = new ArrayList<>();
+			for( int x=0 ; x < ( chessBoardSize + 1 ) / 2 ; x ++ ){
+
+				final int firstLineQueen = x;
+				futures.add( executorService.submit( new Callable<Long>() {
+
+					@Override
+					public Long call() {
+						return Long.valueOf( solver.countFirstLineQueen( firstLineQueen ) );
+					}
+				} ) );
+			}
+
+			long halfSolutionCount = 0;
+			for( final Future<Long> future : futures ) {
+				halfSolutionCount += future.get().longValue();
+			}
+
+			//Multiply by 2 the solution count for the other half not calculated
+			System.out.println( "Total number of solution(s):" + halfSolutionCount * 2 );
+			System.out.println( subtreeCountCache );
+		}
+		catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			System.err.println( "Interrupted solve" );
+		}
+		catch ( final ExecutionException e ) {
+			throw new IllegalStateException( "Thread failed", e.getCause() );
+		}
+		finally {
+			//Interrupted threads stop cooperatively
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Run work units largest first on a fixed thread pool, the work units line and sizes are estimated with Monte-Carlo probes
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param threadNumber number of simultaneous thread to launch
+	 * @param splitLine line of the work units, 0 for an automatic line
+	 * @param progressPeriodSeconds period of the progress line, 0 to disable progress
+	 */
+	public static void launchBalanced( final int chessBoardSize, final int threadNumber, final int splitLine, final int progressPeriodSeconds ) {
+
+		final long seed = System.nanoTime();
+		int workUnitsLine = splitLine;
+		if( ForkJoinBitFlagsNQueensSolver.AUTOMATIC_SPLIT_LINE == splitLine ) {
+			workUnitsLine = SubtreeSizeEstimator.findSplitLine( chessBoardSize, threadNumber, BALANCED_WORK_UNITS_PER_THREAD, SubtreeSizeEstimator.DEFAULT_PROBES, seed );
+		}
+
+		final WorkUnitsBitFlagsNQueensSolver solver = new WorkUnitsBitFlagsNQueensSolver( chessBoardSize, threadNumber, workUnitsLine );
+		solver.orderLargestFirst( new SubtreeSizeEstimator( chessBoardSize, seed ), SubtreeSizeEstimator.DEFAULT_PROBES );
+
+		final ProgressMonitor progressMonitor = ( 0 == progressPeriodSeconds ) ? null : new ProgressMonitor( solver.getWorkUnitsCount() );
+		if( null != progressMonitor ) {
+			try {
+				progressMonitor.register();
+			}
+			catch( final JMException e ) {
+				System.err.println( "Progress not registered in JMX: " + e.getMessage() );
+			}
+			solver.setProgressMonitor( progressMonitor );
+			progressMonitor.startReport( System.err, progressPeriodSeconds );
+		}
+
+		try {
+			System.out.println( "Work units line:" + workUnitsLine + " work unit(s):" + solver.getWorkUnitsCount() );
+			System.out.println( "Total number of solution(s):" + solver.solve() );
+		}
+		finally {
+			if( null != progressMonitor ) {
+				progressMonitor.close();
+			}
+		}
+	}
+
+	/**
+	 * Count a range of chessboard sizes on a single shared work-stealing pool, each size is printed and checked as soon as its last work unit is counted, an interrupted sweep stops the work units searches and prints the incomplete boards
+	 *
+	 * @param firstChessBoardSize first size of the boards
+	 * @param lastChessBoardSize last size of the boards
+	 * @param threadNumber number of workers of the pool
+	 * @param splitLine line of the work units of all boards, 0 for an automatic line of each board
+	 */
+	public static void launchSweep( final int firstChessBoardSize, final int lastChessBoardSize, final int threadNumber, final int splitLine ) {
+
+		final long startTime = System.nanoTime();
+		final int boardNumber = lastChessBoardSize - firstChessBoardSize + 1;
+		final AtomicInteger remainingBoards = new AtomicInteger( boardNumber );
+		final AtomicInteger invalidBoards = new AtomicInteger();
+
+		//Cooperative stop of the work units searches of an interrupted sweep
+		final AtomicBoolean stopped = new AtomicBoolean();
+		final LongBitFlagsSubtreeCounter.SearchControl searchControl = new LongBitFlagsSubtreeCounter.SearchControl() {
+
+			@Override
+			public boolean check( final long nodeCount, final long solutionCount ) {
+				return stopped.get();
+			}
+		};
+
+		//Work units of each board, the largest boards first
+		final List<List<Runnable>> boardsWorkUnits = new ArrayList<>();
+		for( int chessBoardSize = lastChessBoardSize ; chessBoardSize >= firstChessBoardSize ; chessBoardSize-- ) {
+
+			final long bitFlagsMask = new LongBitFlagsSubtreeCounter( chessBoardSize ).getBitFlagsMask();
+			final int workUnitsLine = ( ForkJoinBitFlagsNQueensSolver.AUTOMATIC_SPLIT_LINE == splitLine ) ? BitFlagsPrefix.findSplitLine( chessBoardSize, bitFlagsMask, threadNumber * SWEEP_WORK_UNITS_PER_THREAD ) : Math.min( splitLine, chessBoardSize - 2 );
+			final List<BitFlagsPrefix> workUnits = BitFlagsPrefix.mirrorWorkUnits( chessBoardSize, bitFlagsMask, Math.max( 1, workUnitsLine ) );
+
+			final int size = chessBoardSize;
+			final LongAdder halfSolutionCount = new LongAdder();
+			final AtomicInteger remainingWorkUnits = new AtomicInteger( workUnits.size() );
+			final List<Runnable> boardWorkUnits = new ArrayList<>();
+			for( final BitFlagsPrefix prefix : workUnits ) {
+
+				boardWorkUnits.add( new Runnable() {
+
+					@Override
+					public void run() {
+
+						final LongBitFlagsSubtreeCounter counter = new LongBitFlagsSubtreeCounter( size );
+						final long count = counter.count( prefix.getLine(), prefix.getUnusedColumns(), prefix.getUnusedAscendingDiagonals(), prefix.getUnusedDescendingDiagonals(), searchControl );
+
+						//A stopped work unit count is partial, its board is incomplete
+						if( !counter.isCompleted() ) {
+							return;
+						}
+						halfSolutionCount.add( count );
+
+						//Last work unit of the board: report it
+						if( 0 == remainingWorkUnits.decrementAndGet() ) {
+							reportSweepBoard( size, halfSolutionCount.sum() * 2, startTime, invalidBoards );
+							remainingBoards.decrementAndGet();
+						}
+					}
+				} );
+			}
+
+			//A board without work unit has no solution
+			if( workUnits.isEmpty() ) {
+				reportSweepBoard( size, 0, startTime, invalidBoards );
+				remainingBoards.decrementAndGet();
+			}
+			boardsWorkUnits.add( boardWorkUnits );
+		}
+
+		//Interleave the boards work units: small boards units are submitted between the large boards units and end early
+		final ForkJoinPool forkJoinPool = new ForkJoinPool( threadNumber );
+		try {
+			final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+			for( int i = 0 ; ; i++ ) {
+
+				boolean submitted = false;
+				for( final List<Runnable> boardWorkUnits : boardsWorkUnits ) {
+					if( i < boardWorkUnits.size() ) {
+						tasks.add( forkJoinPool.submit( boardWorkUnits.get( i ) ) );
+						submitted = true;
+					}
+				}
+				if( !submitted ) {
+					break;
+				}
+			}
+
+			for( final ForkJoinTask<?> task : tasks ) {
+				task.get();
+			}
+		}
+		catch ( final InterruptedException e ) {
+			stopped.set( true );
+			Thread.currentThread().interrupt();
+			System.err.println( "Interrupted sweep" );
+		}
+		catch ( final ExecutionException e ) {
+			stopped.set( true );
+			throw new IllegalStateException( "Work unit failed", e.getCause() );
+		}
+		finally {
+			forkJoinPool.shutdownNow();
+		}
+
+		System.out.println( "Sweep of " + boardNumber + " chessboard size(s) in " + TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startTime ) + "ms, invalid count(s):" + invalidBoards.get() + ( 0 == remainingBoards.get() ? "" : ", incomplete board(s):" + remainingBoards.get() ) );
+	}
+
+	/**
+	 * Print the number of solutions of a board of a sweep and check it with the known sequence
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param solutionCount number of solutions
+	 * @param startTime start time of the sweep
+	 * @param invalidBoards number of boards with an invalid number of solutions
+	 */
+	private static void reportSweepBoard( final int chessBoardSize, final long solutionCount, final long startTime, final AtomicInteger invalidBoards ) {
+
+		final String check;
+		if( !SequenceTools.isKnownChessboardSize( chessBoardSize ) ) {
+			check = "unknown";
+		}
+		else if( SequenceTools.checkSolutionsFound( chessBoardSize, solutionCount ) ) {
+			check = "checked";
+		}
+		else {
+			check = "INVALID expected: " + SequenceTools.getExpectedSolutions( chessBoardSize );
+			invalidBoards.incrementAndGet();
+		}
+
+		synchronized( System.out ) {
+			System.out.println( "Size " + chessBoardSize + " total number of solution(s):" + solutionCount + " (" + check + ") at " + TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startTime ) + "ms" );
+		}
+	}
+
+	/**
+	 * Print all solutions in lexicographic order with a parallel enumeration, a line of the queens columns for each solution
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param threadNumber number of simultaneous thread to launch
+	 * @param splitLine line of the work units, 0 for an automatic line
+	 */
+	public static void launchOrderedEnumeration( final int chessBoardSize, final int threadNumber, final int splitLine ) {
+
+		final PrintStream printStream = new PrintStream( new BufferedOutputStream( System.out, 1 << 16 ), false );
+		final StringBuilder solutionLine = new StringBuilder();
+
+		final long solutionCount = new OrderedParallelEnumerator( chessBoardSize, threadNumber, splitLine ).enumerate( new SolutionVisitor() {
+
+			@Override
+			public boolean visit( final int[] queenColumns ) {
+
+				solutionLine.setLength( 0 );
+				for( final int column : queenColumns ) {
+					if( 0 != solutionLine.length() ) {
+						solutionLine.append( ' ' );
+					}
+					solutionLine.append( column );
+				}
+				printStream.println( solutionLine );
+				return true;
+			}
+		} );
+
+		printStream.println( "Total number of solution(s):" + solutionCount );
+		printStream.flush();
+	}
+
+	/**
+	 * Estimate the number of solutions with parallel Monte-Carlo probes, refined estimates are printed on the error output
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param threadNumber number of simultaneous thread to launch
+	 * @param relativeErrorPercent target relative error of the 95% confidence interval in percent
+	 */
+	public static void launchEstimate( final int chessBoardSize, final int threadNumber, final double relativeErrorPercent ) {
+
+		final SolutionCountEstimator estimator = new SolutionCountEstimator( chessBoardSize, threadNumber, System.nanoTime() );
+		System.out.println( estimator.estimate( relativeErrorPercent / 100, ESTIMATE_MAXIMUM_PROBES, System.err ) );
+	}
+
+	/**
+	 * Run work units with a checkpoint file, each completed work unit is appended to the file
+	 *
+	 * @param chessBoardSize size of the board
+	 * @param threadNumber number of simultaneous thread to launch
+	 * @param splitLine line of the work units, 0 for an automatic line
+	 * @param checkpointFile checkpoint file
+	 * @param resume skip the work units already completed in the checkpoint file
+	 * @throws IOException if the checkpoint file cannot be used
+	 */
+	public static void launchCheckpointed( final int chessBoardSize, final int threadNumber, final int splitLine, final Path checkpointFile, final boolean resume ) throws IOException {
+
+		int workUnitsLine = splitLine;
+		if( ForkJoinBitFlagsNQueensSolver.AUTOMATIC_SPLIT_LINE == splitLine ) {
+			workUnitsLine = BitFlagsPrefix.findSplitLine( chessBoardSize, new LongBitFlagsSubtreeCounter( chessBoardSize ).getBitFlagsMask(), threadNumber * CHECKPOINT_WORK_UNITS_PER_THREAD );
+		}
+
+		WorkUnitsBitFlagsNQueensSolver solver = new WorkUnitsBitFlagsNQueensSolver( chessBoardSize, threadNumber, workUnitsLine );
+
+		try( final WorkUnitsCheckpoint checkpoint = resume ? WorkUnitsCheckpoint.resume( checkpointFile, chessBoardSize, workUnitsLine, solver.getWorkUnitsCount() )
+				: WorkUnitsCheckpoint.create( checkpointFile, chessBoardSize, workUnitsLine, solver.getWorkUnitsCount() ) ) {
+
+			//The work units line of a resumed checkpoint is the line of the interrupted run
+			if( checkpoint.getWorkUnitsLine() != workUnitsLine ) {
+				solver = new WorkUnitsBitFlagsNQueensSolver( chessBoardSize, threadNumber, checkpoint.getWorkUnitsLine() );
+			}
+			if( checkpoint.getWorkUnitsCount() != solver.getWorkUnitsCount() ) {
+				throw new IOException( "Checkpoint file of " + checkpoint.getWorkUnitsCount() + " work units instead of " + solver.getWorkUnitsCount() );
+			}
+
+			System.out.println( "Resumed work unit(s):" + checkpoint.getCompletedWorkUnits().cardinality() + "/" + solver.getWorkUnitsCount() );
+
+			solver.setCompletedWorkUnits( checkpoint.getCompletedWorkUnits(), checkpoint.getCompletedHalfSolutionCount() );
+			solver.setWorkUnitListener( checkpoint );
+
+			System.out.println( "Total number of solution(s):" + solver.solve() );
+		}
 	}
 
 	/**
 	 * Main program
 	 *
 	 * @param args
+	 * @throws IOException if the checkpoint file cannot be used
 	 */
-	public static void main( final String args[] ) {
+	public static void main( final String args[] ) throws IOException {
 
-		final String usage = "Usage: " + NQueensProblemCountMultiThreaded.class.getSimpleName() + " [-n <size of the chessboard>] [-p(print desactivated)] [-t <number of threads>]";
+		final String usage = "Usage: " + NQueensProblemCountMultiThreaded.class.getSimpleName() + " [-n <size of the chessboard or first..last sizes sweep>] [-p(print all solutions in order)] [-t <number of threads>] [-f(fork/join work-stealing)] [-d <fork/join or work units split line, 0 for automatic>] [-c|--checkpoint <checkpoint file>] [-r|--resume] [-i <progress period in seconds, 0 to disable>] [-m <shared transposition table size in MB>] [-e <shared endgame tablebase size in MB>] [-E <endgame tablebase file>] [--estimate[=<target relative error in percent>]]";
 
-		final Getopt getOpt = new Getopt( NQueensProblemCountMultiThreaded.class.getSimpleName(), args, ":n:pt:" );
+		final LongOpt[] longOpts = { new LongOpt( "checkpoint", LongOpt.REQUIRED_ARGUMENT, null, 'c' ), new LongOpt( "resume", LongOpt.NO_ARGUMENT, null, 'r' ), new LongOpt( "estimate", LongOpt.OPTIONAL_ARGUMENT, null, 'a' ) };
+		final Getopt getOpt = new Getopt( NQueensProblemCountMultiThreaded.class.getSimpleName(), args, ":n:pt:fd:c:ri:m:e:E:", longOpts );
 		getOpt.setOpterr( false );
 
 		//Default chessboard size
 		int chessBoardSize = 8;
 
+		//Last chessboard size of a sweep, 0 for a single chessboard
+		int lastChessBoardSize = 0;
+
 		boolean printSolutions = false;
 
 		int threadNumber = 2;
 
+		boolean forkJoin = false;
+
+		int splitLine = ForkJoinBitFlagsNQueensSolver.AUTOMATIC_SPLIT_LINE;
+
+		Path checkpointFile = null;
+
+		boolean resume = false;
+
+		int progressPeriodSeconds = 10;
+
+		int cacheMegaBytes = 0;
+
+		int tablebaseMegaBytes = 0;
+
+		Path tablebaseFile = null;
+
+		double estimateRelativeErrorPercent = 0;
+
 		int c = getOpt.getopt();
 		while( -1 != c )
 		{
@@ -262,9 +1020,14 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 			{
 			case 'n':
 				try {
-					chessBoardSize = Integer.parseInt( getOpt.getOptarg() );
+					//A sweep of chessboard sizes: first..last
+					final String[] chessBoardSizes = getOpt.getOptarg().split( "\\.\\.", 2 );
+					chessBoardSize = Integer.parseInt( chessBoardSizes[ 0 ] );
+					if( 2 == chessBoardSizes.length ) {
+						lastChessBoardSize = Integer.parseInt( chessBoardSizes[ 1 ] );
+					}
 
-					if( chessBoardSize < 2 || chessBoardSize > 31 ) {
+					if( chessBoardSize < 2 || chessBoardSize > 63 || ( 0 != lastChessBoardSize && ( lastChessBoardSize < chessBoardSize || lastChessBoardSize > 63 ) ) ) {
 						System.err.println( usage );
 						System.exit( 1 );
 					}
@@ -294,6 +1057,100 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 				}
 				break;
 
+			case 'f':
+				forkJoin = true;
+				break;
+
+			case 'd':
+				try {
+					splitLine = Integer.parseInt( getOpt.getOptarg() );
+
+					if( splitLine < 0 ) {
+						System.err.println( usage );
+						System.exit( 1 );
+					}
+				}
+				catch( final NumberFormatException e ) {
+					System.err.println( usage );
+					System.exit( 1 );
+				}
+				break;
+
+			case 'c':
+				checkpointFile = Paths.get( getOpt.getOptarg() );
+				break;
+
+			case 'r':
+				resume = true;
+				break;
+
+			case 'i':
+				try {
+					progressPeriodSeconds = Integer.parseInt( getOpt.getOptarg() );
+
+					if( progressPeriodSeconds < 0 ) {
+						System.err.println( usage );
+						System.exit( 1 );
+					}
+				}
+				catch( final NumberFormatException e ) {
+					System.err.println( usage );
+					System.exit( 1 );
+				}
+				break;
+
+			case 'm':
+				try {
+					cacheMegaBytes = Integer.parseInt( getOpt.getOptarg() );
+
+					if( cacheMegaBytes < 1 ) {
+						System.err.println( usage );
+						System.exit( 1 );
+					}
+				}
+				catch( final NumberFormatException e ) {
+					System.err.println( usage );
+					System.exit( 1 );
+				}
+				break;
+
+			case 'e':
+				try {
+					tablebaseMegaBytes = Integer.parseInt( getOpt.getOptarg() );
+
+					if( tablebaseMegaBytes < 1 ) {
+						System.err.println( usage );
+						System.exit( 1 );
+					}
+				}
+				catch( final NumberFormatException e ) {
+					System.err.println( usage );
+					System.exit( 1 );
+				}
+				break;
+
+			case 'E':
+				tablebaseFile = Paths.get( getOpt.getOptarg() );
+				break;
+
+			case 'a':
+				estimateRelativeErrorPercent = DEFAULT_ESTIMATE_RELATIVE_ERROR_PERCENT;
+				if( null != getOpt.getOptarg() ) {
+					try {
+						estimateRelativeErrorPercent = Double.parseDouble( getOpt.getOptarg() );
+
+						if( estimateRelativeErrorPercent <= 0 ) {
+							System.err.println( usage );
+							System.exit( 1 );
+						}
+					}
+					catch( final NumberFormatException e ) {
+						System.err.println( usage );
+						System.exit( 1 );
+					}
+				}
+				break;
+
 			case '?':
 			default:
 				System.err.println( usage );
@@ -303,6 +1160,65 @@ public class NQueensProblemCountMultiThreaded implements Runnable{
 			c = getOpt.getopt();
 		}
 
-		launchMultiThread( chessBoardSize, printSolutions, threadNumber );
+		//A sweep counts each chessboard size on the shared work-stealing pool only
+		if( ( resume && null == checkpointFile ) || ( 0 != lastChessBoardSize && ( null != checkpointFile || estimateRelativeErrorPercent > 0 ) ) ) {
+			System.err.println( usage );
+			System.exit( 1 );
+		}
+
+		//The shared transposition table is only used by the int bit-flags threads of a single chessboard
+		if( cacheMegaBytes > 0 && ( chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || 0 != lastChessBoardSize || forkJoin || null != checkpointFile || estimateRelativeErrorPercent > 0 ) ) {
+			System.err.println( usage );
+			System.exit( 1 );
+		}
+
+		//The endgame tablebase is only used by the int bit-flags threads of a single chessboard
+		if( ( tablebaseMegaBytes > 0 || null != tablebaseFile ) && ( chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || 0 != lastChessBoardSize || forkJoin || null != checkpointFile || estimateRelativeErrorPercent > 0 || cacheMegaBytes > 0 ) ) {
+			System.err.println( usage );
+			System.exit( 1 );
+		}
+
+		//Solutions are printed by the ordered parallel enumeration of a single chessboard
+		if( printSolutions && ( 0 != lastChessBoardSize || forkJoin || null != checkpointFile || estimateRelativeErrorPercent > 0 || cacheMegaBytes > 0 || tablebaseMegaBytes > 0 || null != tablebaseFile ) ) {
+			System.err.println( usage );
+			System.exit( 1 );
+		}
+
+		//int bit-flags threads are limited to 31 columns, the fork/join, the checkpointed solvers and the ordered enumeration use long bit-flags
+		if( 0 != lastChessBoardSize ) {
+			launchSweep( chessBoardSize, lastChessBoardSize, threadNumber, splitLine );
+		}
+		else if( estimateRelativeErrorPercent > 0 ) {
+			launchEstimate( chessBoardSize, threadNumber, estimateRelativeErrorPercent );
+		}
+		else if( null != checkpointFile ) {
+			launchCheckpointed( chessBoardSize, threadNumber, splitLine, checkpointFile, resume );
+		}
+		else if( cacheMegaBytes > 0 ) {
+			launchMemoized( chessBoardSize, threadNumber, cacheMegaBytes );
+		}
+		else if( printSolutions ) {
+			launchOrderedEnumeration( chessBoardSize, threadNumber, splitLine );
+		}
+		else if( forkJoin || chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE ) {
+			launchForkJoin( chessBoardSize, threadNumber, splitLine );
+		}
+		else if( tablebaseMegaBytes > 0 || null != tablebaseFile ) {
+
+			final EndgameTablebase endgameTablebase;
+			try {
+				endgameTablebase = NQueensProblemCountStackedBitFlags.loadTablebase( chessBoardSize, tablebaseMegaBytes, tablebaseFile );
+			}
+			catch ( final IOException e ) {
+				System.err.println( e.getMessage() );
+				System.err.println( usage );
+				System.exit( 1 );
+				return;
+			}
+			launchMultiThread( chessBoardSize, printSolutions, threadNumber, progressPeriodSeconds, endgameTablebase );
+		}
+		else {
+			launchBalanced( chessBoardSize, threadNumber, splitLine, progressPeriodSeconds );
+		}
 	}
 }
@@ -50,6 +50,18 @@ public class NQueensProblemCountRecursive {
 		System.out.println("Total number of solution(s):" + solutionCount);
 	}
 
+	/**
+	 * Count again all solutions without printing the total, used by benchmarks
+	 * 
+	 * @return number of solutions
+	 */
+	public long count() {
+
+		solutionCount = 0;
+		solve();
+		return solutionCount;
+	}
+
 	/**
 	 * First line to divide by 2 explored tree
 	 */
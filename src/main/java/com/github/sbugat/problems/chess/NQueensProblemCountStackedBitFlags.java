@@ -2,8 +2,25 @@ package com.github.sbugat.problems.chess;
 
 import gnu.getopt.Getopt;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.apache.commons.lang3.StringUtils;
 
+import com.github.sbugat.puzzle.chess.nqueens.SolutionVisitor;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsKernel;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsKernelGenerator;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsSolutions;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.EndgameTablebase;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.MemoizedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolvers;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.SubtreeCountCache;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.SymmetricBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.tools.SequenceTools;
+
 /**
  * Classic N chess queens on a size N chess board with bits flags
  * 
@@ -33,8 +50,21 @@ public class NQueensProblemCountStackedBitFlags {
 	private final int[] unusedDescendingDiagonalsStack;
 	private int stacklevel = 0;
 
+	/** Solutions of the last lines, may be null */
+	private final EndgameTablebase endgameTablebase;
+	/** Stack level of the queen on the line before the tablebase lines */
+	private final int tablebaseStacklevel;
+
 	public NQueensProblemCountStackedBitFlags(final int chessboardSizeArg, final boolean printSolutionsArg) {
 
+		this(chessboardSizeArg, printSolutionsArg, null);
+	}
+
+	public NQueensProblemCountStackedBitFlags(final int chessboardSizeArg, final boolean printSolutionsArg, final EndgameTablebase endgameTablebaseArg) {
+
+		endgameTablebase = endgameTablebaseArg;
+		tablebaseStacklevel = (null == endgameTablebaseArg) ? 0 : chessboardSizeArg - endgameTablebaseArg.getLines() - 2;
+
 		chessboardSize = chessboardSizeArg;
 		chessboardSizeMinusTwo = chessboardSizeArg - 2;
 
@@ -57,6 +87,18 @@ public class NQueensProblemCountStackedBitFlags {
 		System.out.println("Total number of solution(s):" + solutionCount);
 	}
 
+	/**
+	 * Count again all solutions without printing the total, used by benchmarks
+	 * 
+	 * @return number of solutions
+	 */
+	public long count() {
+
+		solutionCount = 0;
+		firstSolve();
+		return solutionCount;
+	}
+
 	/**
 	 * First line to divide by 2 explored tree
 	 */
@@ -73,7 +115,12 @@ public class NQueensProblemCountStackedBitFlags {
 
 			// Go on to the second line
 			stacklevel = 0;
-			solve(bitFlags);
+			if (null == endgameTablebase) {
+				solve(bitFlags);
+			}
+			else {
+				solveWithTablebase(bitFlags);
+			}
 		}
 
 		// If the cheesboard size is odd, test with a queen on the middle of the first line
@@ -94,7 +141,12 @@ public class NQueensProblemCountStackedBitFlags {
 
 			// Go on to the second line
 			stacklevel = 0;
-			solve(bitFlags);
+			if (null == endgameTablebase) {
+				solve(bitFlags);
+			}
+			else {
+				solveWithTablebase(bitFlags);
+			}
 		}
 
 		// Multiply by 2 the solution count for the other half not calculated
@@ -161,6 +213,78 @@ public class NQueensProblemCountStackedBitFlags {
 		}
 	}
 
+	/**
+	 * Same depth-first/back-tracking algorithm stopped on the line before the tablebase lines, the solutions of the last lines are read in the tablebase
+	 * 
+	 * @param initial bitFlag with a single queen on the first line
+	 */
+	private void solveWithTablebase(int bitFlags) {
+
+		int prevStacklevel = stacklevel - 1;
+		int targetQueen;
+		// Infinite loop, exit condition is tested when unstacking a queen
+		while (true) {
+
+			targetQueen = -bitFlags & bitFlags;
+
+			// The targeted queen is on the line before the tablebase lines, add the solutions of the last lines
+			if (stacklevel >= tablebaseStacklevel) {
+				solutionCount += endgameTablebase.count(unusedColumnsStack[stacklevel] | targetQueen, (unusedAscendingDiagonalsStack[stacklevel] | targetQueen) << 1, (unusedDescendingDiagonalsStack[stacklevel] | targetQueen) >> 1);
+
+				bitFlags ^= targetQueen;
+			}
+			else {
+
+				// Go on to the next line
+				prevStacklevel = stacklevel++;
+				// Mark the current target queen as tested for this stack level
+				bitFlagsStack[stacklevel] = bitFlags ^ targetQueen;
+
+				// Update bit flags and do 3 stacks updates
+				bitFlags = bitFlagsMask & ~((unusedColumnsStack[stacklevel] = unusedColumnsStack[prevStacklevel] | targetQueen) | (unusedAscendingDiagonalsStack[stacklevel] = (unusedAscendingDiagonalsStack[prevStacklevel] | targetQueen) << 1) | (unusedDescendingDiagonalsStack[stacklevel] = (unusedDescendingDiagonalsStack[prevStacklevel] | targetQueen) >> 1));
+			}
+
+			// If all positions have been tested or are already blocked by a column or a diagonal
+			while (bitFlags == 0) {
+
+				// If there is still something to unstack
+				if (stacklevel > 0) {
+					// Backtrace process
+					bitFlags = bitFlagsStack[stacklevel];
+					stacklevel--;
+				}
+				// Exit if all possibilities are tested
+				else {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Load or build the endgame tablebase of the chessboard size
+	 * 
+	 * @param chessBoardSize size of the chessboard
+	 * @param tablebaseMegaBytes memory budget of a built table in megabytes
+	 * @param tablebaseFile tablebase file to load or to save a built table, may be null
+	 * @return tablebase, null if no tablebase fits in the budget or if the tablebase file lines are not usable
+	 * @throws IOException if the tablebase file cannot be used
+	 */
+	static EndgameTablebase loadTablebase(final int chessBoardSize, final int tablebaseMegaBytes, final Path tablebaseFile) throws IOException {
+
+		final long startTime = System.nanoTime();
+		final EndgameTablebase endgameTablebase = EndgameTablebase.loadOrBuild(chessBoardSize, (long) tablebaseMegaBytes << 20, tablebaseFile);
+
+		// The first line and at least one line are searched before the tablebase lines
+		if (null == endgameTablebase || endgameTablebase.getLines() > chessBoardSize - 2) {
+			System.err.println("No usable endgame tablebase for chess size " + chessBoardSize);
+			return null;
+		}
+
+		System.err.println("Endgame tablebase of " + endgameTablebase.getLines() + " lines ready in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+		return endgameTablebase;
+	}
+
 	/**
 	 * Print a solution and mirror version
 	 * 
@@ -183,6 +307,84 @@ public class NQueensProblemCountStackedBitFlags {
 		System.out.println(line + "    " + StringUtils.reverse(line));
 	}
 
+	/**
+	 * Count solutions with a transposition table of sub-trees counts, print total and the table hit rate
+	 * 
+	 * @param chessBoardSize size of the chessboard
+	 * @param cacheMegaBytes memory budget of the table in megabytes
+	 */
+	static void solveMemoized(final int chessBoardSize, final int cacheMegaBytes) {
+
+		final SubtreeCountCache subtreeCountCache = new SubtreeCountCache((long) cacheMegaBytes << 20, 1);
+		System.out.println("Total number of solution(s):" + new MemoizedBitFlagsNQueensSolver(chessBoardSize, subtreeCountCache).solve());
+		System.out.println(subtreeCountCache);
+	}
+
+	/**
+	 * Count solutions with a kernel generated for the chessboard size, print total and check it with the known sequence
+	 * 
+	 * @param chessBoardSize size of the chessboard
+	 */
+	static void solveGenerated(final int chessBoardSize) {
+
+		final long startTime = System.nanoTime();
+		final BitFlagsKernel kernel = BitFlagsKernelGenerator.getKernel(chessBoardSize);
+		System.err.println((BitFlagsKernelGenerator.isGenerated(kernel) ? "Kernel generated in " : "Generic kernel ready in ") + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+
+		final long solutionCount = kernel.count();
+		System.out.println("Total number of solution(s):" + solutionCount);
+
+		if (SequenceTools.isKnownChessboardSize(chessBoardSize) && !SequenceTools.checkSolutionsFound(chessBoardSize, solutionCount)) {
+			System.err.println("Invalid number of solutions found: " + solutionCount + " expected: " + SequenceTools.getExpectedSolutions(chessBoardSize) + " check the algorithm.");
+		}
+	}
+
+	/**
+	 * Count solutions with the 8 symmetries of the chessboard, print total and unique solutions and check them with the known sequences
+	 * 
+	 * @param chessBoardSize size of the chessboard
+	 */
+	static void solveSymmetric(final int chessBoardSize) {
+
+		final SymmetricBitFlagsNQueensSolver solver = new SymmetricBitFlagsNQueensSolver(chessBoardSize, false);
+		final long solutionCount = solver.solve();
+
+		System.out.println("Total number of solution(s):" + solutionCount);
+		System.out.println("Unique number of solution(s):" + solver.getUniqueSolutionCount());
+
+		if (SequenceTools.isKnownChessboardSize(chessBoardSize) && (!SequenceTools.checkSolutionsFound(chessBoardSize, solutionCount) || !SequenceTools.checkUniqueSolutionsFound(chessBoardSize, solver.getUniqueSolutionCount()))) {
+			System.err.println("Invalid number of solutions found, expected: " + SequenceTools.getExpectedSolutions(chessBoardSize) + " and unique: " + SequenceTools.getExpectedUniqueSolutions(chessBoardSize) + " check the algorithm.");
+		}
+	}
+
+	/**
+	 * Print all solutions with a solutions enumeration and their total
+	 * 
+	 * @param chessBoardSize size of the chessboard
+	 */
+	static void printSolutions(final int chessBoardSize) {
+
+		final StringBuilder lineBuilder = new StringBuilder(chessBoardSize);
+		final long solutionCount = BitFlagsSolutions.enumerate(chessBoardSize, new SolutionVisitor() {
+
+			@Override
+			public boolean visit(final int[] queenColumns) {
+
+				System.out.println();
+				for (final int queenColumn : queenColumns) {
+					lineBuilder.setLength(0);
+					for (int x = 0; x < chessBoardSize; x++) {
+						lineBuilder.append(x == queenColumn ? '1' : '0');
+					}
+					System.out.println(lineBuilder);
+				}
+				return true;
+			}
+		});
+
+		System.out.println("Total number of solution(s):" + solutionCount);
+	}
+
 	/**
 	 * N Queens resolving program
 	 * 
@@ -190,9 +392,9 @@ public class NQueensProblemCountStackedBitFlags {
 	 */
 	public static void main(final String args[]) {
 
-		final String usage = "Usage: " + NQueensProblemCountStackedBitFlags.class.getSimpleName() + " [-n <size of the chessboard>]";
+		final String usage = "Usage: " + NQueensProblemCountStackedBitFlags.class.getSimpleName() + " [-n <size of the chessboard>] [-p(print all solutions)] [-u(unique solutions with all chessboard symmetries)] [-m <transposition table size in MB>] [-e <endgame tablebase size in MB>] [-E <endgame tablebase file>] [-g(kernel generated for the chessboard size)]";
 
-		final Getopt getOpt = new Getopt(NQueensProblemCountStackedBitFlags.class.getSimpleName(), args, ":n:p");
+		final Getopt getOpt = new Getopt(NQueensProblemCountStackedBitFlags.class.getSimpleName(), args, ":n:pum:e:E:g");
 		getOpt.setOpterr(false);
 
 		// Default chessboard size
@@ -200,6 +402,16 @@ public class NQueensProblemCountStackedBitFlags {
 
 		boolean printSolutions = false;
 
+		boolean symmetric = false;
+
+		int cacheMegaBytes = 0;
+
+		int tablebaseMegaBytes = 0;
+
+		Path tablebaseFile = null;
+
+		boolean generated = false;
+
 		int c = getOpt.getopt();
 		while (-1 != c) {
 			switch (c) {
@@ -207,7 +419,7 @@ public class NQueensProblemCountStackedBitFlags {
 				try {
 					chessBoardSize = Integer.parseInt(getOpt.getOptarg());
 
-					if (chessBoardSize < 2 || chessBoardSize > 31) {
+					if (chessBoardSize < 2) {
 						System.err.println(usage);
 						System.exit(1);
 					}
@@ -222,6 +434,48 @@ public class NQueensProblemCountStackedBitFlags {
 				printSolutions = true;
 				break;
 
+			case 'u':
+				symmetric = true;
+				break;
+
+			case 'm':
+				try {
+					cacheMegaBytes = Integer.parseInt(getOpt.getOptarg());
+
+					if (cacheMegaBytes < 1) {
+						System.err.println(usage);
+						System.exit(1);
+					}
+				}
+				catch (final NumberFormatException e) {
+					System.err.println(usage);
+					System.exit(1);
+				}
+				break;
+
+			case 'e':
+				try {
+					tablebaseMegaBytes = Integer.parseInt(getOpt.getOptarg());
+
+					if (tablebaseMegaBytes < 1) {
+						System.err.println(usage);
+						System.exit(1);
+					}
+				}
+				catch (final NumberFormatException e) {
+					System.err.println(usage);
+					System.exit(1);
+				}
+				break;
+
+			case 'E':
+				tablebaseFile = Paths.get(getOpt.getOptarg());
+				break;
+
+			case 'g':
+				generated = true;
+				break;
+
 			case '?':
 			default:
 				System.err.println(usage);
@@ -231,6 +485,69 @@ public class NQueensProblemCountStackedBitFlags {
 			c = getOpt.getopt();
 		}
 
-		new NQueensProblemCountStackedBitFlags(chessBoardSize, printSolutions);
+		// The symmetric search is done with int bit-flags limited to 31 columns
+		if (symmetric && chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		// Solutions are printed by a long bit-flags enumeration limited to 63 columns, without the other counting modes
+		if (printSolutions && (chessBoardSize > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || symmetric)) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		// The transposition table caches int bit-flags sub-trees limited to 31 columns, without the other counting modes
+		if (cacheMegaBytes > 0 && (chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || printSolutions || symmetric)) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		// The endgame tablebase completes int bit-flags searches limited to 31 columns, without the other counting modes
+		if ((tablebaseMegaBytes > 0 || null != tablebaseFile) && (chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || printSolutions || symmetric || cacheMegaBytes > 0)) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		// Kernels are generated for int bit-flags limited to 31 columns, without the other counting modes
+		if (generated && (chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || printSolutions || symmetric || cacheMegaBytes > 0 || tablebaseMegaBytes > 0 || null != tablebaseFile)) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		// Solutions are printed by an enumeration, the counting loop does not test the print flag
+		if (printSolutions) {
+			printSolutions(chessBoardSize);
+		}
+		// int bit-flags are limited to 31 columns, larger chessboards are solved with long or multi-words bit-flags
+		else if (cacheMegaBytes > 0) {
+			solveMemoized(chessBoardSize, cacheMegaBytes);
+		}
+		else if (symmetric) {
+			solveSymmetric(chessBoardSize);
+		}
+		else if (chessBoardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			System.out.println("Total number of solution(s):" + StackedBitFlagsNQueensSolvers.newSolver(chessBoardSize, false).solve());
+		}
+		else if (generated) {
+			solveGenerated(chessBoardSize);
+		}
+		else if (tablebaseMegaBytes > 0 || null != tablebaseFile) {
+
+			final EndgameTablebase endgameTablebase;
+			try {
+				endgameTablebase = loadTablebase(chessBoardSize, tablebaseMegaBytes, tablebaseFile);
+			}
+			catch (final IOException e) {
+				System.err.println(e.getMessage());
+				System.err.println(usage);
+				System.exit(1);
+				return;
+			}
+			new NQueensProblemCountStackedBitFlags(chessBoardSize, printSolutions, endgameTablebase);
+		}
+		else {
+			new NQueensProblemCountStackedBitFlags(chessBoardSize, printSolutions);
+		}
 	}
 }
@@ -0,0 +1,18 @@
+package com.github.sbugat.puzzle.chess.nqueens;
+
+/**
+ * Solver able to visit each solution, implemented only by the engines searching whole solutions.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public interface SolutionEnumerator {
+
+	/**
+	 * Visit each solution in lexicographic order of the queens columns, the solution counter is not updated.
+	 *
+	 * @param solutionVisitor visitor of the solutions
+	 * @return number of visited solutions
+	 */
+	long enumerate(SolutionVisitor solutionVisitor);
+}
@@ -0,0 +1,18 @@
+package com.github.sbugat.puzzle.chess.nqueens;
+
+/**
+ * Visitor of the solutions of an enumeration.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public interface SolutionVisitor {
+
+	/**
+	 * Visit a solution, the array is reused for the next solution: it must be copied to be kept.
+	 *
+	 * @param queenColumns column of the queen of each line
+	 * @return true to continue the enumeration, false to stop it
+	 */
+	boolean visit(int[] queenColumns);
+}
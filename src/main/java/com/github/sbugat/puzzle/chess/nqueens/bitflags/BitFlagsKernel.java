@@ -0,0 +1,17 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+/**
+ * Solutions counter of a single chessboard size, see {@link BitFlagsKernelGenerator}.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public interface BitFlagsKernel {
+
+	/**
+	 * Count all solutions.
+	 *
+	 * @return number of solutions
+	 */
+	long count();
+}
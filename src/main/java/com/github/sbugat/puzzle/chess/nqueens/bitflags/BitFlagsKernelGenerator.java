@@ -0,0 +1,245 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Generator of int bit-flags kernels specialized for a chessboard size (up to 31): the lines are fully unrolled in nested loops with a local variable for each bit-flags of each line instead of stacks, and the bit-flags mask is a constant.
+ *
+ * A kernel is generated as java source, compiled at runtime with the system java compiler, loaded by its own class loader and cached for each chessboard size. Without a java compiler (JRE), or if the compilation fails, the kernel is a {@link StackedBitFlagsNQueensSolver}.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class BitFlagsKernelGenerator {
+
+	/** Package of the generated kernels. */
+	private static final String KERNEL_PACKAGE = BitFlagsKernelGenerator.class.getPackage().getName();
+	/** Simple class name prefix of the generated kernels, followed by the chessboard size. */
+	private static final String KERNEL_CLASS_PREFIX = "GeneratedBitFlagsKernel"; //$NON-NLS-1$
+
+	/** Kernels cache by chessboard size. */
+	private static final Map<Integer, BitFlagsKernel> KERNELS = new ConcurrentHashMap<>();
+
+	private BitFlagsKernelGenerator() {
+		// Tools class
+	}
+
+	/**
+	 * Get the kernel of a chessboard size, generated and compiled at the first call.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @return generated kernel, or a stacked bit-flags kernel if the kernel cannot be compiled
+	 */
+	public static BitFlagsKernel getKernel(final int chessboardSize) {
+
+		if (chessboardSize < 1 || chessboardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSize); //$NON-NLS-1$
+		}
+
+		final Integer key = Integer.valueOf(chessboardSize);
+		BitFlagsKernel kernel = KERNELS.get(key);
+		if (null == kernel) {
+			kernel = compile(chessboardSize);
+			final BitFlagsKernel existingKernel = KERNELS.putIfAbsent(key, kernel);
+			if (null != existingKernel) {
+				kernel = existingKernel;
+			}
+		}
+		return kernel;
+	}
+
+	/**
+	 * Check if a kernel is a generated kernel.
+	 *
+	 * @param kernel kernel
+	 * @return false for a stacked bit-flags kernel
+	 */
+	public static boolean isGenerated(final BitFlagsKernel kernel) {
+		return !(kernel instanceof StackedBitFlagsKernel);
+	}
+
+	/**
+	 * Generate the java source of a kernel.
+	 *
+	 * @param simpleClassName simple name of the kernel class
+	 * @param chessboardSize size of the chessboard
+	 * @return java source
+	 */
+	static String generateSource(final String simpleClassName, final int chessboardSize) {
+
+		final String mask = "0x" + Integer.toHexString((int) ((1L << chessboardSize) - 1)).toUpperCase(Locale.ROOT); //$NON-NLS-1$
+		final StringBuilder source = new StringBuilder();
+
+		source.append("package ").append(KERNEL_PACKAGE).append(";\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		source.append("public final class ").append(simpleClassName).append(" implements BitFlagsKernel {\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// First line mirrored: half of the positions counted twice, the middle position of an odd size with the left half of the second line
+		source.append("\t@Override\n\tpublic long count() {\n\t\tlong count = 0;\n"); //$NON-NLS-1$
+		if (1 == chessboardSize) {
+			source.append("\t\tcount = 1;\n"); //$NON-NLS-1$
+		}
+		else {
+			for (int x = 0; x < chessboardSize / 2; x++) {
+				final int queen = 1 << x;
+				source.append("\t\tcount += 2 * count(").append(queen).append(", ").append(queen << 1).append(", ").append(queen >> 1).append(", ").append(mask).append(" & ~").append(queen | queen << 1 | queen >> 1).append(");\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+			}
+			if (0 != chessboardSize % 2) {
+				final int x = chessboardSize / 2;
+				final int queen = 1 << x;
+				source.append("\t\tcount += 2 * count(").append(queen).append(", ").append(queen << 1).append(", ").append(queen >> 1).append(", ").append((1 << x - 1) - 1).append(");\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			}
+		}
+		source.append("\t\treturn count;\n\t}\n\n"); //$NON-NLS-1$
+
+		// Nested loop of each line from the second line, the last line free positions are counted
+		source.append("\tprivate static long count(final int c1, final int a1, final int d1, int b1) {\n\t\tlong count = 0;\n"); //$NON-NLS-1$
+		final StringBuilder indent = new StringBuilder("\t\t"); //$NON-NLS-1$
+		for (int line = 1; line < chessboardSize - 1; line++) {
+
+			final int next = line + 1;
+			source.append(indent).append("while (0 != b").append(line).append(") {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			indent.append('\t');
+			source.append(indent).append("final int q").append(line).append(" = -b").append(line).append(" & b").append(line).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			source.append(indent).append('b').append(line).append(" ^= q").append(line).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			source.append(indent).append("final int c").append(next).append(" = c").append(line).append(" | q").append(line).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			source.append(indent).append("final int a").append(next).append(" = (a").append(line).append(" | q").append(line).append(") << 1;\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			source.append(indent).append("final int d").append(next).append(" = (d").append(line).append(" | q").append(line).append(") >> 1;\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			source.append(indent).append(next < chessboardSize - 1 ? "int b" : "final int b").append(next).append(" = ").append(mask).append(" & ~(c").append(next).append(" | a").append(next).append(" | d").append(next).append(");\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+		}
+		source.append(indent).append("count += Integer.bitCount(b").append(Math.max(1, chessboardSize - 1)).append(");\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		for (int line = chessboardSize - 2; line >= 1; line--) {
+			indent.setLength(indent.length() - 1);
+			source.append(indent).append("}\n"); //$NON-NLS-1$
+		}
+		source.append("\t\treturn count;\n\t}\n}\n"); //$NON-NLS-1$
+
+		return source.toString();
+	}
+
+	/**
+	 * Compile and load a kernel.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @return generated kernel, or a stacked bit-flags kernel if the kernel cannot be compiled
+	 */
+	private static BitFlagsKernel compile(final int chessboardSize) {
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (null == compiler) {
+			return new StackedBitFlagsKernel(chessboardSize);
+		}
+
+		final String simpleClassName = KERNEL_CLASS_PREFIX + chessboardSize;
+		final String className = KERNEL_PACKAGE + '.' + simpleClassName;
+		final JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) { //$NON-NLS-1$
+
+			@Override
+			public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+				return generateSource(simpleClassName, chessboardSize);
+			}
+		};
+
+		// The class file is written in memory
+		final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		final StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null);
+		final JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardFileManager) {
+
+			@Override
+			public JavaFileObject getJavaFileForOutput(final Location location, final String outputClassName, final JavaFileObject.Kind kind, final FileObject sibling) {
+
+				return new SimpleJavaFileObject(URI.create("bytes:///" + outputClassName.replace('.', '/') + kind.extension), kind) { //$NON-NLS-1$
+
+					@Override
+					public OutputStream openOutputStream() {
+						return classBytes;
+					}
+				};
+			}
+		};
+
+		try {
+			// The kernel interface is in the class path or in the code source of this class
+			final String classPath = System.getProperty("java.class.path") + File.pathSeparator + Paths.get(BitFlagsKernel.class.getProtectionDomain().getCodeSource().getLocation().toURI()); //$NON-NLS-1$
+			final boolean compiled = compiler.getTask(null, fileManager, diagnostics, Arrays.asList("-classpath", classPath, "-g:none"), null, Collections.singletonList(sourceFile)).call().booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+			fileManager.close();
+
+			if (!compiled) {
+				System.err.println("Kernel of chess size " + chessboardSize + " not compiled: " + diagnostics.getDiagnostics()); //$NON-NLS-1$ //$NON-NLS-2$
+				return new StackedBitFlagsKernel(chessboardSize);
+			}
+
+			final Class<?> kernelClass = new KernelClassLoader(className, classBytes.toByteArray()).loadClass(className);
+			return (BitFlagsKernel) kernelClass.getDeclaredConstructor().newInstance();
+		}
+		catch (final ReflectiveOperationException | URISyntaxException | IOException e) {
+			System.err.println("Kernel of chess size " + chessboardSize + " not loaded: " + e); //$NON-NLS-1$ //$NON-NLS-2$
+			return new StackedBitFlagsKernel(chessboardSize);
+		}
+	}
+
+	/**
+	 * Class loader of a single generated kernel, other classes are loaded by the loader of the kernel interface.
+	 */
+	private static final class KernelClassLoader extends ClassLoader {
+
+		private final String kernelClassName;
+		private final byte[] kernelClassBytes;
+
+		KernelClassLoader(final String kernelClassNameArg, final byte[] kernelClassBytesArg) {
+
+			super(BitFlagsKernel.class.getClassLoader());
+			kernelClassName = kernelClassNameArg;
+			kernelClassBytes = kernelClassBytesArg;
+		}
+
+		@Override
+		protected Class<?> findClass(final String name) throws ClassNotFoundException {
+
+			if (kernelClassName.equals(name)) {
+				return defineClass(name, kernelClassBytes, 0, kernelClassBytes.length);
+			}
+			return super.findClass(name);
+		}
+	}
+
+	/**
+	 * Kernel counting with the generic stacked bit-flags solver.
+	 */
+	private static final class StackedBitFlagsKernel implements BitFlagsKernel {
+
+		private final StackedBitFlagsNQueensSolver solver;
+
+		StackedBitFlagsKernel(final int chessboardSize) {
+			solver = new StackedBitFlagsNQueensSolver(chessboardSize, false);
+		}
+
+		@Override
+		public synchronized long count() {
+
+			solver.reset();
+			return solver.solve();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator of all solutions with a resumable stacked long bit-flags search (chessboard size up to 63): each solution is searched on demand from the stacks of the previous one.
+ *
+ * Solutions are returned in lexicographic order of the queens columns in the same array reused for all solutions, an array is valid until the next call to {@link #hasNext()} or {@link #next()}.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class BitFlagsSolutionIterator implements Iterator<int[]> {
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long bitFlagsMask;
+
+	/** Column of the queen of each line, reused for all solutions. */
+	private final int[] queenColumns;
+
+	/** Free positions not tested yet on each line. */
+	private final long[] bitFlagsStack;
+	private final long[] unusedColumnsStack;
+	private final long[] unusedAscendingDiagonalsStack;
+	private final long[] unusedDescendingDiagonalsStack;
+
+	/** First line searched, the lines before are a fixed prefix. */
+	private final int firstLine;
+	/** Current line. */
+	private int line;
+
+	/** Next solution is already searched. */
+	private boolean nextSearched;
+	/** Next solution exists. */
+	private boolean nextFound;
+
+	public BitFlagsSolutionIterator(final int chessboardSizeArg) {
+
+		this(chessboardSizeArg, new int[0]);
+	}
+
+	/**
+	 * Create an iterator of the solutions beginning with a prefix, in lexicographic order.
+	 *
+	 * @param chessboardSizeArg size of the chessboard
+	 * @param prefixColumns columns of non attacking queens of the first lines, less lines than the chessboard size
+	 */
+	public BitFlagsSolutionIterator(final int chessboardSizeArg, final int[] prefixColumns) {
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || prefixColumns.length >= chessboardSizeArg) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg + " or prefix length " + prefixColumns.length); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		chessboardSize = chessboardSizeArg;
+		bitFlagsMask = (1L << chessboardSizeArg) - 1;
+
+		queenColumns = new int[chessboardSizeArg];
+		bitFlagsStack = new long[chessboardSizeArg];
+		unusedColumnsStack = new long[chessboardSizeArg];
+		unusedAscendingDiagonalsStack = new long[chessboardSizeArg];
+		unusedDescendingDiagonalsStack = new long[chessboardSizeArg];
+
+		// Place the prefix queens, the search starts on the next line
+		firstLine = prefixColumns.length;
+		for (int prefixLine = 0; prefixLine < firstLine; prefixLine++) {
+
+			final long targetQueen = 1L << prefixColumns[prefixLine];
+			queenColumns[prefixLine] = prefixColumns[prefixLine];
+			unusedColumnsStack[prefixLine + 1] = unusedColumnsStack[prefixLine] | targetQueen;
+			unusedAscendingDiagonalsStack[prefixLine + 1] = (unusedAscendingDiagonalsStack[prefixLine] | targetQueen) << 1;
+			unusedDescendingDiagonalsStack[prefixLine + 1] = (unusedDescendingDiagonalsStack[prefixLine] | targetQueen) >>> 1;
+		}
+		line = firstLine;
+		bitFlagsStack[firstLine] = bitFlagsMask & ~(unusedColumnsStack[firstLine] | unusedAscendingDiagonalsStack[firstLine] | unusedDescendingDiagonalsStack[firstLine]);
+	}
+
+	/**
+	 * Search the next solution from the current stacks.
+	 *
+	 * @return true if a solution is found in the queen columns array
+	 */
+	private boolean searchNext() {
+
+		while (true) {
+
+			final long bitFlags = bitFlagsStack[line];
+
+			// All positions of the line have been tested, go back to the previous line
+			if (0 == bitFlags) {
+				if (firstLine == line) {
+					return false;
+				}
+				line--;
+				continue;
+			}
+
+			final long targetQueen = -bitFlags & bitFlags;
+			bitFlagsStack[line] = bitFlags ^ targetQueen;
+			queenColumns[line] = Long.numberOfTrailingZeros(targetQueen);
+
+			// All queens are placed: the search resumes on this line
+			if (line == chessboardSize - 1) {
+				return true;
+			}
+
+			// Go on to the next line
+			final int previousLine = line++;
+			unusedColumnsStack[line] = unusedColumnsStack[previousLine] | targetQueen;
+			unusedAscendingDiagonalsStack[line] = (unusedAscendingDiagonalsStack[previousLine] | targetQueen) << 1;
+			unusedDescendingDiagonalsStack[line] = (unusedDescendingDiagonalsStack[previousLine] | targetQueen) >>> 1;
+			bitFlagsStack[line] = bitFlagsMask & ~(unusedColumnsStack[line] | unusedAscendingDiagonalsStack[line] | unusedDescendingDiagonalsStack[line]);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+
+		if (!nextSearched) {
+			nextFound = searchNext();
+			nextSearched = true;
+		}
+		return nextFound;
+	}
+
+	@Override
+	public int[] next() {
+
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		nextSearched = false;
+		return queenColumns;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -0,0 +1,80 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.github.sbugat.puzzle.chess.nqueens.SolutionVisitor;
+
+/**
+ * Solutions enumeration of the bit-flags solvers: visitor, lazy iterator and lazy stream of the solutions in lexicographic order of the queens columns (chessboard size up to 63).
+ *
+ * All solutions are visited in the same reused array of the queen column of each line: without copy, no object is allocated per solution. Counting solutions with the solvers {@code solve()} method does not use this search.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class BitFlagsSolutions {
+
+	private BitFlagsSolutions() {
+		// Tools class
+	}
+
+	/**
+	 * Visit each solution until the visitor stops the enumeration.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param solutionVisitor visitor of the solutions
+	 * @return number of visited solutions
+	 */
+	public static long enumerate(final int chessboardSize, final SolutionVisitor solutionVisitor) {
+
+		final BitFlagsSolutionIterator solutionIterator = new BitFlagsSolutionIterator(chessboardSize);
+
+		long visitedSolutionCount = 0;
+		while (solutionIterator.hasNext()) {
+			visitedSolutionCount++;
+			if (!solutionVisitor.visit(solutionIterator.next())) {
+				break;
+			}
+		}
+		return visitedSolutionCount;
+	}
+
+	/**
+	 * First solution in lexicographic order, for the counting solvers without a chessboard of their own.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @return copy of the queen column of each line of the first solution, empty array if there is no solution
+	 */
+	public static int[] first(final int chessboardSize) {
+
+		final BitFlagsSolutionIterator solutionIterator = new BitFlagsSolutionIterator(chessboardSize);
+		if (solutionIterator.hasNext()) {
+			return solutionIterator.next().clone();
+		}
+		return new int[0];
+	}
+
+	/**
+	 * Lazy iterator of the solutions, the returned array is reused for the next solution.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @return iterator of the solutions
+	 */
+	public static Iterator<int[]> iterator(final int chessboardSize) {
+		return new BitFlagsSolutionIterator(chessboardSize);
+	}
+
+	/**
+	 * Lazy sequential stream of the solutions, the array is reused for the next solution: use {@code map(int[]::clone)} to keep solutions.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @return stream of the solutions
+	 */
+	public static Stream<int[]> stream(final int chessboardSize) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(chessboardSize), Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+}
@@ -0,0 +1,55 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+/**
+ * Attack rules of a N chess queens variant as int bit-flags transforms from a line to the next one (chessboard size up to 31).
+ *
+ * Used columns bit-flags are kept as is, diagonals bit-flags are moved from a line to the next one and the queens of the 2 previous lines can attack extra positions of the next line.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public interface BitFlagsVariant {
+
+	/**
+	 * Move the used ascending diagonals to the next line.
+	 *
+	 * @param ascendingDiagonals used ascending diagonals of a line
+	 * @param chessboardSize size of the chessboard
+	 * @return used ascending diagonals of the next line, bits outside of the chessboard are ignored
+	 */
+	int nextAscendingDiagonals(int ascendingDiagonals, int chessboardSize);
+
+	/**
+	 * Move the used descending diagonals to the next line.
+	 *
+	 * @param descendingDiagonals used descending diagonals of a line
+	 * @param chessboardSize size of the chessboard
+	 * @return used descending diagonals of the next line, bits outside of the chessboard are ignored
+	 */
+	int nextDescendingDiagonals(int descendingDiagonals, int chessboardSize);
+
+	/**
+	 * Extra attacks of the queen of the previous line on a line.
+	 *
+	 * @param queen single bit of the queen column, 0 if there is no previous line
+	 * @param chessboardSize size of the chessboard
+	 * @return attacked positions, bits outside of the chessboard are ignored
+	 */
+	int previousLineAttacks(int queen, int chessboardSize);
+
+	/**
+	 * Extra attacks of the queen placed 2 lines before a line.
+	 *
+	 * @param queen single bit of the queen column, 0 if there is no such line
+	 * @param chessboardSize size of the chessboard
+	 * @return attacked positions, bits outside of the chessboard are ignored
+	 */
+	int twoLinesBeforeAttacks(int queen, int chessboardSize);
+
+	/**
+	 * Left-right mirrored solutions are solutions too: only the left half of the first line is searched.
+	 *
+	 * @return true if the rules are symmetric
+	 */
+	boolean isMirrorSymmetric();
+}
@@ -0,0 +1,101 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+/**
+ * Common N chess queens variants: classic, toroidal (modular diagonals), superqueens (queens moving like knights too) and both.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public enum BitFlagsVariants implements BitFlagsVariant {
+
+	/** Classic queens. */
+	CLASSIC(false, false),
+	/** Diagonals wrap around the chessboard edges. */
+	TOROIDAL(true, false),
+	/** Queens attack like knights too. */
+	SUPERQUEEN(false, true),
+	/** Diagonals and knights moves wrap around the chessboard edges. */
+	TOROIDAL_SUPERQUEEN(true, true);
+
+	/** Diagonals and knights moves are rotated instead of shifted. */
+	private final boolean toroidal;
+	/** Knight moves attacks. */
+	private final boolean knight;
+
+	BitFlagsVariants(final boolean toroidalArg, final boolean knightArg) {
+
+		toroidal = toroidalArg;
+		knight = knightArg;
+	}
+
+	/**
+	 * Rotate bit-flags to the left inside the chessboard.
+	 *
+	 * @param bitFlags bit-flags of the chessboard columns
+	 * @param distance number of columns, less than the chessboard size
+	 * @param chessboardSize size of the chessboard
+	 * @return rotated bit-flags without bits outside of the chessboard: rotated again they would come back inside
+	 */
+	private static int rotateLeft(final int bitFlags, final int distance, final int chessboardSize) {
+		return (bitFlags << distance | bitFlags >>> chessboardSize - distance) & (1 << chessboardSize) - 1;
+	}
+
+	/**
+	 * Rotate bit-flags to the right inside the chessboard.
+	 *
+	 * @param bitFlags bit-flags of the chessboard columns
+	 * @param distance number of columns, less than the chessboard size
+	 * @param chessboardSize size of the chessboard
+	 * @return rotated bit-flags without bits outside of the chessboard: rotated again they would come back inside
+	 */
+	private static int rotateRight(final int bitFlags, final int distance, final int chessboardSize) {
+		return (bitFlags >>> distance | bitFlags << chessboardSize - distance) & (1 << chessboardSize) - 1;
+	}
+
+	@Override
+	public int nextAscendingDiagonals(final int ascendingDiagonals, final int chessboardSize) {
+
+		if (toroidal) {
+			return rotateLeft(ascendingDiagonals, 1, chessboardSize);
+		}
+		return ascendingDiagonals << 1;
+	}
+
+	@Override
+	public int nextDescendingDiagonals(final int descendingDiagonals, final int chessboardSize) {
+
+		if (toroidal) {
+			return rotateRight(descendingDiagonals, 1, chessboardSize);
+		}
+		return descendingDiagonals >>> 1;
+	}
+
+	@Override
+	public int previousLineAttacks(final int queen, final int chessboardSize) {
+
+		if (!knight) {
+			return 0;
+		}
+		if (toroidal && chessboardSize > 2) {
+			return rotateLeft(queen, 2, chessboardSize) | rotateRight(queen, 2, chessboardSize);
+		}
+		return queen << 2 | queen >>> 2;
+	}
+
+	@Override
+	public int twoLinesBeforeAttacks(final int queen, final int chessboardSize) {
+
+		if (!knight) {
+			return 0;
+		}
+		if (toroidal && chessboardSize > 1) {
+			return rotateLeft(queen, 1, chessboardSize) | rotateRight(queen, 1, chessboardSize);
+		}
+		return queen << 1 | queen >>> 1;
+	}
+
+	@Override
+	public boolean isMirrorSymmetric() {
+		return true;
+	}
+}
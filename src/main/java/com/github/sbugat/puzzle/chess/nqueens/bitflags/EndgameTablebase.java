@@ -0,0 +1,325 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Precomputed numbers of solutions of the last k lines of a chessboard for every int bit-flags state (chessboard size up to 31): the search stops k lines before the last one with a single table read.
+ *
+ * The last k lines have k free columns, a state is indexed by the rank of its free columns set and the k x k bits of the free columns squares blocked by the diagonals of the queens already placed. Each entry is the number of solutions in one byte (at most k! solutions).
+ *
+ * A tablebase is built once per chessboard size, it can be saved in a file and loaded with a read-only memory mapping.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class EndgameTablebase {
+
+	/** Smallest number of lines of a tablebase. */
+	public static final int MINIMUM_LINES = 2;
+	/** Largest number of lines of a tablebase. */
+	public static final int MAXIMUM_LINES = 4;
+
+	/** File magic number: "NQTB". */
+	private static final int MAGIC = 0x4E515442;
+	/** File header size: magic, chessboard size and number of lines. */
+	private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Number of lines of the tablebase. */
+	private final int lines;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final int bitFlagsMask;
+	/** Binomial coefficients C(n, k) for the free columns rank. */
+	private final int[][] binomials;
+
+	/** Solutions count of each state. */
+	private final ByteBuffer table;
+
+	private EndgameTablebase(final int chessboardSizeArg, final int linesArg, final ByteBuffer tableArg) {
+
+		chessboardSize = chessboardSizeArg;
+		lines = linesArg;
+		bitFlagsMask = (int) ((1L << chessboardSizeArg) - 1);
+		binomials = binomials(chessboardSizeArg, linesArg);
+		table = tableArg;
+	}
+
+	/**
+	 * Binomial coefficients table.
+	 *
+	 * @param n largest n
+	 * @param k largest k
+	 * @return C(i, j) for i up to n and j up to k
+	 */
+	private static int[][] binomials(final int n, final int k) {
+
+		final int[][] binomials = new int[n + 1][k + 1];
+		for (int i = 0; i <= n; i++) {
+			binomials[i][0] = 1;
+			for (int j = 1; j <= Math.min(i, k); j++) {
+				binomials[i][j] = binomials[i - 1][j - 1] + (j <= i - 1 ? binomials[i - 1][j] : 0);
+			}
+		}
+		return binomials;
+	}
+
+	/**
+	 * Memory size of a tablebase.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param lines number of lines of the tablebase
+	 * @return number of bytes of the table
+	 */
+	public static long getTableSize(final int chessboardSize, final int lines) {
+		return (long) binomials(chessboardSize, lines)[chessboardSize][lines] << lines * lines;
+	}
+
+	/**
+	 * Largest number of lines of a tablebase within a memory budget, the first line and at least one line before the tablebase must be searched.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param memoryBudgetBytes memory budget of the table
+	 * @return number of lines, 0 if no tablebase fits in the budget
+	 */
+	public static int getLinesForBudget(final int chessboardSize, final long memoryBudgetBytes) {
+
+		for (int lines = Math.min(MAXIMUM_LINES, chessboardSize - 2); lines >= MINIMUM_LINES; lines--) {
+			if (getTableSize(chessboardSize, lines) <= Math.min(memoryBudgetBytes, Integer.MAX_VALUE)) {
+				return lines;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Build a tablebase.
+	 *
+	 * @param chessboardSize size of the chessboard, up to 31
+	 * @param lines number of lines of the tablebase
+	 * @return new tablebase
+	 */
+	public static EndgameTablebase build(final int chessboardSize, final int lines) {
+
+		if (chessboardSize < 1 || chessboardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || lines < MINIMUM_LINES || lines > Math.min(MAXIMUM_LINES, chessboardSize)) {
+			throw new IllegalArgumentException("Invalid tablebase of " + lines + " lines for chess size " + chessboardSize); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		final int blockedPatterns = 1 << lines * lines;
+		final ByteBuffer table = ByteBuffer.allocate((int) getTableSize(chessboardSize, lines));
+
+		// Queens squares masks of the placements without diagonal conflict between the last lines
+		final int[] columns = new int[lines];
+		final int[] placementMasks = new int[factorial(lines)];
+
+		// Free columns sets with lines bits in increasing order are in the free columns rank order
+		final long lastFreeColumns = ((1L << lines) - 1) << chessboardSize - lines;
+		for (long freeColumns = (1L << lines) - 1; freeColumns <= lastFreeColumns; freeColumns = nextCombination(freeColumns)) {
+
+			long remainingColumns = freeColumns;
+			for (int i = 0; i < lines; i++) {
+				columns[i] = Long.numberOfTrailingZeros(remainingColumns);
+				remainingColumns &= remainingColumns - 1;
+			}
+
+			final int placementNumber = placements(columns, new int[lines], 0, 0, placementMasks, 0);
+
+			// Count the placements avoiding the blocked squares
+			for (int blocked = 0; blocked < blockedPatterns; blocked++) {
+				int count = 0;
+				for (int placement = 0; placement < placementNumber; placement++) {
+					if (0 == (blocked & placementMasks[placement])) {
+						count++;
+					}
+				}
+				table.put((byte) count);
+			}
+		}
+
+		return new EndgameTablebase(chessboardSize, lines, table);
+	}
+
+	private static int factorial(final int n) {
+		return n <= 1 ? 1 : n * factorial(n - 1);
+	}
+
+	/**
+	 * Next set of the same number of bits in increasing order.
+	 *
+	 * @param combination current set
+	 * @return next set
+	 */
+	private static long nextCombination(final long combination) {
+
+		final long lowestBit = combination & -combination;
+		final long ripple = combination + lowestBit;
+		return ripple | ((combination ^ ripple) >>> 2) / lowestBit;
+	}
+
+	/**
+	 * Enumerate the placements of a queen on each line in the free columns without diagonal conflict.
+	 *
+	 * @param columns free columns
+	 * @param columnIndexes column index of the queen of each line
+	 * @param line line to place
+	 * @param usedColumnIndexes bit-flags of the used column indexes
+	 * @param placementMasks squares masks of the placements, bit line * lines + column index
+	 * @param placementNumber number of placements already found
+	 * @return number of placements found
+	 */
+	private static int placements(final int[] columns, final int[] columnIndexes, final int line, final int usedColumnIndexes, final int[] placementMasks, final int placementNumber) {
+
+		final int lines = columns.length;
+		if (line == lines) {
+
+			int mask = 0;
+			for (int i = 0; i < lines; i++) {
+				mask |= 1 << i * lines + columnIndexes[i];
+			}
+			placementMasks[placementNumber] = mask;
+			return placementNumber + 1;
+		}
+
+		int foundPlacementNumber = placementNumber;
+		for (int columnIndex = 0; columnIndex < lines; columnIndex++) {
+
+			if (0 != (usedColumnIndexes & 1 << columnIndex)) {
+				continue;
+			}
+
+			boolean diagonalConflict = false;
+			for (int previousLine = 0; previousLine < line; previousLine++) {
+				if (Math.abs(columns[columnIndexes[previousLine]] - columns[columnIndex]) == line - previousLine) {
+					diagonalConflict = true;
+				}
+			}
+
+			if (!diagonalConflict) {
+				columnIndexes[line] = columnIndex;
+				foundPlacementNumber = placements(columns, columnIndexes, line + 1, usedColumnIndexes | 1 << columnIndex, placementMasks, foundPlacementNumber);
+			}
+		}
+		return foundPlacementNumber;
+	}
+
+	/**
+	 * Number of solutions of the last lines of a state.
+	 *
+	 * @param unusedColumns used columns bit-flags, the number of free columns is the number of lines of the tablebase
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags of the first tablebase line
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags of the first tablebase line
+	 * @return number of solutions
+	 */
+	public int count(final int unusedColumns, final int unusedAscendingDiagonals, final int unusedDescendingDiagonals) {
+
+		final int freeColumns = bitFlagsMask & ~unusedColumns;
+
+		int rank = 0;
+		int remainingColumns = freeColumns;
+		for (int columnIndex = 1; 0 != remainingColumns; columnIndex++) {
+			rank += binomials[Integer.numberOfTrailingZeros(remainingColumns)][columnIndex];
+			remainingColumns &= remainingColumns - 1;
+		}
+
+		// Free squares blocked by a diagonal on each line, the column index of a square is the number of free columns before it
+		int blocked = 0;
+		for (int line = 0; line < lines; line++) {
+
+			int blockedSquares = (unusedAscendingDiagonals << line | unusedDescendingDiagonals >>> line) & freeColumns;
+			while (0 != blockedSquares) {
+				final int blockedSquare = -blockedSquares & blockedSquares;
+				blocked |= 1 << line * lines + Integer.bitCount(freeColumns & blockedSquare - 1);
+				blockedSquares ^= blockedSquare;
+			}
+		}
+
+		return table.get(rank << lines * lines | blocked);
+	}
+
+	/**
+	 * Save the tablebase in a file.
+	 *
+	 * @param tablebaseFile tablebase file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(final Path tablebaseFile) throws IOException {
+
+		try (final FileChannel fileChannel = FileChannel.open(tablebaseFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(chessboardSize).putInt(lines).flip();
+			while (header.hasRemaining()) {
+				fileChannel.write(header);
+			}
+
+			final ByteBuffer content = table.duplicate();
+			content.clear();
+			while (content.hasRemaining()) {
+				fileChannel.write(content);
+			}
+		}
+	}
+
+	/**
+	 * Load a tablebase file with a read-only memory mapping.
+	 *
+	 * @param tablebaseFile tablebase file
+	 * @param chessboardSize expected size of the chessboard
+	 * @return loaded tablebase
+	 * @throws IOException if the file cannot be read or is not a tablebase of this chessboard size
+	 */
+	public static EndgameTablebase load(final Path tablebaseFile, final int chessboardSize) throws IOException {
+
+		try (final FileChannel fileChannel = FileChannel.open(tablebaseFile, StandardOpenOption.READ)) {
+
+			final ByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			final int lines = header.getInt(2 * Integer.BYTES);
+			if (MAGIC != header.getInt(0) || chessboardSize != header.getInt(Integer.BYTES) || lines < MINIMUM_LINES || lines > MAXIMUM_LINES || fileChannel.size() != HEADER_SIZE + getTableSize(chessboardSize, lines)) {
+				throw new IOException("Invalid tablebase file for chess size " + chessboardSize + ": " + tablebaseFile); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+
+			// The mapping stays valid after the channel is closed
+			return new EndgameTablebase(chessboardSize, lines, fileChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, getTableSize(chessboardSize, lines)));
+		}
+	}
+
+	/**
+	 * Load a saved tablebase of the chessboard size if the file exists, otherwise build the largest tablebase of the memory budget and save it if a file is given.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param memoryBudgetBytes memory budget of a built table
+	 * @param tablebaseFile tablebase file, may be null
+	 * @return tablebase, null if no tablebase fits in the budget
+	 * @throws IOException if the file cannot be used
+	 */
+	public static EndgameTablebase loadOrBuild(final int chessboardSize, final long memoryBudgetBytes, final Path tablebaseFile) throws IOException {
+
+		if (null != tablebaseFile && Files.exists(tablebaseFile)) {
+			return load(tablebaseFile, chessboardSize);
+		}
+
+		final int lines = getLinesForBudget(chessboardSize, memoryBudgetBytes);
+		if (0 == lines) {
+			return null;
+		}
+
+		final EndgameTablebase tablebase = build(chessboardSize, lines);
+		if (null != tablebaseFile) {
+			tablebase.save(tablebaseFile);
+		}
+		return tablebase;
+	}
+
+	public int getChessboardSize() {
+		return chessboardSize;
+	}
+
+	public int getLines() {
+		return lines;
+	}
+}
@@ -0,0 +1,193 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+/**
+ * Count the solutions of a sub-tree of the N chess queens search with stacked long bit-flags (chessboard size up to 63).
+ *
+ * A sub-tree is defined by its first line to place and the bit-flags of the columns and diagonals already used by the previous lines, diagonals bit-flags being already shifted for this line. Stacks are allocated once and reused by each count, a counter is not thread safe.
+ *
+ * A count can be followed and stopped by a {@link SearchControl} called every {@link #CHECK_INTERVAL} queens placed.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class LongBitFlagsSubtreeCounter {
+
+	/**
+	 * Control of a count called from time to time by the search loop.
+	 */
+	public interface SearchControl {
+
+		/**
+		 * Check the progress of a count.
+		 *
+		 * @param nodeCount number of queens placed before the last line since the start of the count
+		 * @param solutionCount number of solutions found since the start of the count
+		 * @return true to stop the count
+		 */
+		boolean check(long nodeCount, long solutionCount);
+	}
+
+	/** Number of queens placed before the last line between 2 calls of the search control, a power of 2. */
+	public static final int CHECK_INTERVAL = 4096;
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Precalculated constant. */
+	private final int chessboardSizeMinusOne;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long bitFlagsMask;
+
+	/** Stack for remaining free bit-flags of each line. */
+	private final long[] bitFlagsStack;
+	private final long[] unusedColumnsStack;
+	private final long[] unusedAscendingDiagonalsStack;
+	private final long[] unusedDescendingDiagonalsStack;
+
+	/** Number of queens placed before the last line by the last count. */
+	private long nodeCount;
+	/** The last count was not stopped by its search control. */
+	private boolean completed;
+
+	public LongBitFlagsSubtreeCounter(final int chessboardSizeArg) {
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSize = chessboardSizeArg;
+		chessboardSizeMinusOne = chessboardSizeArg - 1;
+
+		long mask = 0;
+		for (int i = 0; i < chessboardSizeArg; i++) {
+			mask |= 1L << i;
+		}
+		bitFlagsMask = mask;
+
+		bitFlagsStack = new long[chessboardSizeArg];
+		unusedColumnsStack = new long[chessboardSizeArg];
+		unusedAscendingDiagonalsStack = new long[chessboardSizeArg];
+		unusedDescendingDiagonalsStack = new long[chessboardSizeArg];
+	}
+
+	/**
+	 * Count all solutions of a sub-tree.
+	 *
+	 * @param line first line to place
+	 * @param unusedColumns columns used by the previous lines
+	 * @param unusedAscendingDiagonals ascending diagonals used by the previous lines shifted for the first line to place
+	 * @param unusedDescendingDiagonals descending diagonals used by the previous lines shifted for the first line to place
+	 * @return number of solutions of the sub-tree
+	 */
+	public long count(final int line, final long unusedColumns, final long unusedAscendingDiagonals, final long unusedDescendingDiagonals) {
+
+		return count(line, unusedColumns, unusedAscendingDiagonals, unusedDescendingDiagonals, null);
+	}
+
+	/**
+	 * Count the solutions of a sub-tree until the search control stops the count.
+	 *
+	 * @param line first line to place
+	 * @param unusedColumns columns used by the previous lines
+	 * @param unusedAscendingDiagonals ascending diagonals used by the previous lines shifted for the first line to place
+	 * @param unusedDescendingDiagonals descending diagonals used by the previous lines shifted for the first line to place
+	 * @param searchControl control called every {@link #CHECK_INTERVAL} queens placed, may be null
+	 * @return number of solutions of the sub-tree, partial if the count is stopped
+	 */
+	public long count(final int line, final long unusedColumns, final long unusedAscendingDiagonals, final long unusedDescendingDiagonals, final SearchControl searchControl) {
+
+		nodeCount = 0;
+		completed = true;
+
+		// All lines are already placed: the prefix is a solution
+		if (line >= chessboardSize) {
+			return 1;
+		}
+
+		long bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+		if (0 == bitFlags) {
+			return 0;
+		}
+
+		unusedColumnsStack[line] = unusedColumns;
+		unusedAscendingDiagonalsStack[line] = unusedAscendingDiagonals;
+		unusedDescendingDiagonalsStack[line] = unusedDescendingDiagonals;
+
+		long solutionCount = 0;
+		long nodes = 0;
+		int stacklevel = line;
+		int nextStacklevel;
+		long targetQueen;
+		// Infinite loop, exit condition is tested when unstacking a queen
+		while (true) {
+
+			// Test first possible queen of the line using direct inlining(manual code copy) of this method call: Long.lowestOneBit( bitFlags );
+			targetQueen = -bitFlags & bitFlags;
+
+			// All queens are sets on the chessboard then a solution is found!
+			if (stacklevel >= chessboardSizeMinusOne) {
+				solutionCount++;
+
+				bitFlags ^= targetQueen;
+			}
+			else {
+
+				// Call the search control from time to time, a single well predicted branch per node
+				if (0 == (++nodes & CHECK_INTERVAL - 1) && null != searchControl && searchControl.check(nodes, solutionCount)) {
+					nodeCount = nodes;
+					completed = false;
+					return solutionCount;
+				}
+
+				// Mark the current target queen as tested for this stack level
+				bitFlagsStack[stacklevel] = bitFlags ^ targetQueen;
+
+				// Go on to the next line, update bit flags and do 3 stacks updates
+				nextStacklevel = stacklevel + 1;
+				bitFlags = bitFlagsMask & ~((unusedColumnsStack[nextStacklevel] = unusedColumnsStack[stacklevel] | targetQueen) | (unusedAscendingDiagonalsStack[nextStacklevel] = (unusedAscendingDiagonalsStack[stacklevel] | targetQueen) << 1) | (unusedDescendingDiagonalsStack[nextStacklevel] = (unusedDescendingDiagonalsStack[stacklevel] | targetQueen) >>> 1));
+				stacklevel = nextStacklevel;
+			}
+
+			// If all positions have been tested or are already blocked by a column or a diagonal
+			while (bitFlags == 0) {
+
+				// If there is still something to unstack
+				if (stacklevel > line) {
+					// Backtrace process
+					stacklevel--;
+					bitFlags = bitFlagsStack[stacklevel];
+				}
+				// Exit if all possibilities are tested
+				else {
+					nodeCount = nodes;
+					return solutionCount;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Number of queens placed before the last line by the last count.
+	 *
+	 * @return number of nodes of the last count
+	 */
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Check if the last count was not stopped by its search control.
+	 *
+	 * @return true if the last count is complete
+	 */
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	public int getChessboardSize() {
+		return chessboardSize;
+	}
+
+	public long getBitFlagsMask() {
+		return bitFlagsMask;
+	}
+}
@@ -0,0 +1,159 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+/**
+ * Map of long keys to long values with open addressing and linear probing in two primitive arrays, without boxing. The key 0 marks an empty slot and cannot be stored.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class LongLongOpenHashMap {
+
+	/** Key of an empty slot. */
+	private static final long EMPTY_KEY = 0;
+	/** Smallest capacity. */
+	private static final int MINIMUM_CAPACITY = 16;
+	/** Largest capacity of the arrays. */
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/** Keys of the slots. */
+	private long[] keys;
+	/** Values of the slots. */
+	private long[] values;
+	/** Mask of the slot number. */
+	private int slotMask;
+	/** Number of keys. */
+	private int size;
+
+	public LongLongOpenHashMap() {
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Create a map for an expected number of keys.
+	 *
+	 * @param expectedSize expected number of keys
+	 */
+	public LongLongOpenHashMap(final int expectedSize) {
+
+		final int capacity = Integer.highestOneBit((int) Math.min(MAXIMUM_CAPACITY >> 1, Math.max(MINIMUM_CAPACITY >> 1, 2L * expectedSize - 1))) << 1;
+		keys = new long[capacity];
+		values = new long[capacity];
+		slotMask = capacity - 1;
+	}
+
+	/**
+	 * First slot of a key with a 64 bits hash finalizer.
+	 *
+	 * @param key key
+	 * @return slot number
+	 */
+	private int slot(final long key) {
+
+		long hash = key * 0x9E3779B97F4A7C15L;
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return (int) hash & slotMask;
+	}
+
+	/**
+	 * Add a delta to the value of a key, a missing key is added with the delta as value.
+	 *
+	 * @param key key, not 0
+	 * @param delta value to add
+	 */
+	public void addTo(final long key, final long delta) {
+
+		int slot = slot(key);
+		while (EMPTY_KEY != keys[slot]) {
+			if (key == keys[slot]) {
+				values[slot] += delta;
+				return;
+			}
+			slot = slot + 1 & slotMask;
+		}
+
+		keys[slot] = key;
+		values[slot] = delta;
+
+		// Keep the load factor under 1/2
+		if (++size > slotMask >> 1) {
+			resize();
+		}
+	}
+
+	/**
+	 * Value of a key.
+	 *
+	 * @param key key, not 0
+	 * @return value of the key, 0 if the key is missing
+	 */
+	public long get(final long key) {
+
+		int slot = slot(key);
+		while (EMPTY_KEY != keys[slot]) {
+			if (key == keys[slot]) {
+				return values[slot];
+			}
+			slot = slot + 1 & slotMask;
+		}
+		return 0;
+	}
+
+	/**
+	 * Double the capacity and insert again all keys.
+	 */
+	private void resize() {
+
+		if (keys.length >= MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("Map capacity exceeded: " + size + " keys"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		final long[] oldKeys = keys;
+		final long[] oldValues = values;
+		keys = new long[oldKeys.length << 1];
+		values = new long[oldKeys.length << 1];
+		slotMask = keys.length - 1;
+
+		for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+			if (EMPTY_KEY != oldKeys[oldSlot]) {
+				int slot = slot(oldKeys[oldSlot]);
+				while (EMPTY_KEY != keys[slot]) {
+					slot = slot + 1 & slotMask;
+				}
+				keys[slot] = oldKeys[oldSlot];
+				values[slot] = oldValues[oldSlot];
+			}
+		}
+	}
+
+	/**
+	 * All keys of the map.
+	 *
+	 * @return new array of the keys in slots order
+	 */
+	public long[] keys() {
+
+		final long[] mapKeys = new long[size];
+		int i = 0;
+		for (final long key : keys) {
+			if (EMPTY_KEY != key) {
+				mapKeys[i++] = key;
+			}
+		}
+		return mapKeys;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Memory size of the slots arrays.
+	 *
+	 * @return number of bytes
+	 */
+	public long getMemoryBytes() {
+		return (long) keys.length * 2 * Long.BYTES;
+	}
+}
@@ -0,0 +1,187 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.SolutionEnumerator;
+import com.github.sbugat.puzzle.chess.nqueens.SolutionVisitor;
+
+/**
+ * Classic N chess queens on a size N chessboard with stacked long bit-flags (chessboard size up to 63).
+ * 
+ * @author Sylvain Bugat
+ * 
+ */
+public final class LongStackedBitFlagsNQueensSolver extends GenericNQueensSolver implements SolutionEnumerator {
+
+	/** Maximum chessboard size of this solver. */
+	public static final int MAXIMUM_CHESSBOARD_SIZE = Long.SIZE - 1;
+
+	/** Precalculated constant. */
+	private final int chessboardSizeMinusTwo;
+
+	/** Stack for used/free bit-flags. */
+	private final long[] bitFlagsStack;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long bitFlagsMask;
+	private final long[] unusedColumnsStack;
+	private final long[] unusedAscendingDiagonalsStack;
+	private final long[] unusedDescendingDiagonalsStack;
+	private int stacklevel;
+
+	public LongStackedBitFlagsNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg) {
+
+		super(chessboardSizeArg, printSolutionArg);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSizeMinusTwo = chessboardSizeArg - 2;
+
+		long mask = 0;
+		for (int i = 0; i < chessboardSizeArg; i++) {
+			mask |= 1L << i;
+		}
+		bitFlagsMask = mask;
+
+		bitFlagsStack = new long[chessboardSizeArg];
+		unusedColumnsStack = new long[chessboardSizeArg];
+		unusedAscendingDiagonalsStack = new long[chessboardSizeArg];
+		unusedDescendingDiagonalsStack = new long[chessboardSizeArg];
+	}
+
+	@Override
+	public long enumerate(final SolutionVisitor solutionVisitor) {
+
+		// Counting solutions with the mirror does not visit them, all solutions are searched by a resumable search
+		return BitFlagsSolutions.enumerate(chessboardSize, solutionVisitor);
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		// Test half square of the first line
+		for (int x = 0; x < chessboardSize / 2; x++) {
+
+			unusedColumnsStack[0] = 1L << x;
+			unusedAscendingDiagonalsStack[0] = 1L << x << 1;
+			unusedDescendingDiagonalsStack[0] = 1L << x >>> 1;
+			final long bitFlags = bitFlagsMask & ~(unusedColumnsStack[0] | unusedAscendingDiagonalsStack[0] | unusedDescendingDiagonalsStack[0]);
+			bitFlagsStack[0] = bitFlags;
+
+			// Go on to the second line
+			stacklevel = 0;
+			if (0 != bitFlags) {
+				solve(bitFlags);
+			}
+		}
+
+		// If the chessboard size is odd, test with a queen on the middle of the first line
+		if (0 != chessboardSize % 2) {
+
+			final int x = chessboardSize / 2;
+
+			unusedColumnsStack[0] = 1L << x;
+			unusedAscendingDiagonalsStack[0] = 1L << x << 1;
+			unusedDescendingDiagonalsStack[0] = 1L << x >>> 1;
+
+			// Just test half of the positions of the second line because of mirroring
+			long bitFlags = 0;
+			for (int i = 0; i < x - 1; i++) {
+				bitFlags ^= 1L << i;
+			}
+			bitFlagsStack[0] = bitFlags;
+
+			// Go on to the second line
+			stacklevel = 0;
+			if (0 != bitFlags) {
+				solve(bitFlags);
+			}
+		}
+
+		// Multiply by 2 the solution count for the other half not calculated
+		solutionCount *= 2;
+
+		return solutionCount;
+	}
+
+	/**
+	 * Solving with iterative/stacking method by using bit flags, do a depth-first/back-tracking algorithm a queen must me placed on the first line.
+	 * 
+	 * @param bitFlags initial bit-flags with a single queen on the first line
+	 */
+	private void solve(long bitFlags) {
+
+		int prevStacklevel;
+		long targetQueen;
+		// Infinite loop, exit condition is tested when unstacking a queen
+		while (true) {
+
+			// Test first possible queen of the line using direct inlining(manual code copy) of this method call: Long.lowestOneBit( bitFlags );
+			targetQueen = -bitFlags & bitFlags;
+
+			// All queens are sets on the chessboard then a solution is found!
+			// Test with the board size minus 2 because the targeted queen is not placed yet
+			if (stacklevel >= chessboardSizeMinusTwo) {
+				solutionCount++;
+
+				bitFlags ^= targetQueen;
+			}
+			else {
+
+				// Go on to the next line
+				prevStacklevel = stacklevel++;
+				// Mark the current target queen as tested for this stack level
+				bitFlagsStack[stacklevel] = bitFlags ^ targetQueen;
+
+				// Update bit flags and do 3 stacks updates
+				bitFlags = bitFlagsMask & ~((unusedColumnsStack[stacklevel] = unusedColumnsStack[prevStacklevel] | targetQueen) | (unusedAscendingDiagonalsStack[stacklevel] = (unusedAscendingDiagonalsStack[prevStacklevel] | targetQueen) << 1) | (unusedDescendingDiagonalsStack[stacklevel] = (unusedDescendingDiagonalsStack[prevStacklevel] | targetQueen) >>> 1));
+			}
+
+			// If all positions have been tested or are already blocked by a column or a diagonal
+			while (bitFlags == 0) {
+
+				// If there is still something to unstack
+				if (stacklevel > 0) {
+					// Backtrace process
+					bitFlags = bitFlagsStack[stacklevel];
+					stacklevel--;
+				}
+				// Exit if all possibilities are tested
+				else {
+					return;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		// The last line queen is not stacked, it is the only free column left
+		final long lineQueen;
+		if (0 == y) {
+			lineQueen = unusedColumnsStack[0];
+		}
+		else if (y > chessboardSizeMinusTwo) {
+			lineQueen = bitFlagsMask & ~unusedColumnsStack[chessboardSizeMinusTwo];
+		}
+		else {
+			lineQueen = unusedColumnsStack[y] ^ unusedColumnsStack[y - 1];
+		}
+
+		return 0 != (lineQueen & 1L << x);
+	}
+}
@@ -0,0 +1,298 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import gnu.getopt.Getopt;
+
+import java.util.Arrays;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.tools.BenchmarkTools;
+import com.github.sbugat.puzzle.chess.nqueens.tools.InvalidSolutionsException;
+import com.github.sbugat.puzzle.chess.nqueens.tools.SequenceTools;
+
+/**
+ * Classic N chess queens on a size N chessboard with a meet-in-the-middle hash join (chessboard size up to 21).
+ *
+ * The lines above a meeting line and the lines from the meeting line to the bottom are enumerated separately. Each half is grouped in a {@link LongLongOpenHashMap} by its used columns and the diagonals it projects on the last line of the top half, a key packs the 3 bit-flags in a long. A top
+ * half and a bottom half are compatible if they use complementary columns and no diagonal of one half is used by the other: the halves are joined by column sets and the counts of compatible diagonals are multiplied. The first line is mirrored like the other bit-flags solvers.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class MeetInTheMiddleNQueensSolver extends GenericNQueensSolver {
+
+	/** Maximum size of the chessboard: 3 bit-flags are packed in a long key. */
+	public static final int MAXIMUM_CHESSBOARD_SIZE = 21;
+
+	/** Number of lines of the top half. */
+	private final int topLines;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long bitFlagsMask;
+
+	/** Number of keys of the top half of the last solve. */
+	private int topKeyCount;
+	/** Number of keys of the bottom half of the last solve. */
+	private int bottomKeyCount;
+	/** Memory used by the maps of the last solve. */
+	private long mapsMemoryBytes;
+
+	/** Queen column of each line of the first solution, searched on the first chessboard position read. */
+	private int[] firstSolution;
+
+	public MeetInTheMiddleNQueensSolver(final int chessboardSizeArg) {
+
+		// The top half includes the mirrored first line with half of the positions
+		this(chessboardSizeArg, (chessboardSizeArg + 1) / 2);
+	}
+
+	/**
+	 * Create a solver meeting on a line.
+	 *
+	 * @param chessboardSizeArg size of the chessboard
+	 * @param topLinesArg number of lines of the top half, between 1 and the chessboard size - 1, ignored for the 1x1 chessboard
+	 */
+	public MeetInTheMiddleNQueensSolver(final int chessboardSizeArg, final int topLinesArg) {
+
+		super(chessboardSizeArg, false);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+		if (chessboardSizeArg > 1 && (topLinesArg < 1 || topLinesArg >= chessboardSizeArg)) {
+			throw new IllegalArgumentException("Invalid top lines " + topLinesArg + " for chess size " + chessboardSizeArg); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		topLines = topLinesArg;
+		bitFlagsMask = (1L << chessboardSizeArg) - 1;
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		final LongLongOpenHashMap topHalves = new LongLongOpenHashMap();
+		final LongLongOpenHashMap bottomHalves = new LongLongOpenHashMap();
+
+		// Mirrored solutions of the left half of the first line are counted twice, solutions of the middle position once
+		for (int x = 0; x < (chessboardSize + 1) / 2; x++) {
+			final long queen = 1L << x;
+			final long weight = (2 * x + 1 == chessboardSize) ? 1 : 2;
+			enumerateHalf(topHalves, topLines - 1, queen, queen, queen, weight, false);
+		}
+
+		// The bottom half is enumerated upward: descending and ascending diagonals are swapped
+		enumerateHalf(bottomHalves, chessboardSize - topLines, 0, 0, 0, 1, true);
+
+		topKeyCount = topHalves.size();
+		bottomKeyCount = bottomHalves.size();
+		mapsMemoryBytes = topHalves.getMemoryBytes() + bottomHalves.getMemoryBytes();
+
+		solutionCount = join(topHalves, bottomHalves);
+		return solutionCount;
+	}
+
+	/**
+	 * Enumerate the queens placements of a half and add their keys to a map.
+	 *
+	 * @param halves map of the keys of the half to their number of placements
+	 * @param remainingLines number of lines to place
+	 * @param unusedColumns used columns bit-flags
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags of the last placed line
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags of the last placed line
+	 * @param weight number of placements of the first lines
+	 * @param bottom bottom half enumerated upward, projected on the line above its first placed line
+	 */
+	private void enumerateHalf(final LongLongOpenHashMap halves, final int remainingLines, final long unusedColumns, final long unusedAscendingDiagonals, final long unusedDescendingDiagonals, final long weight, final boolean bottom) {
+
+		if (0 == remainingLines) {
+
+			// Key: columns, then the diagonals facing the ascending and the descending diagonals of the top half
+			if (bottom) {
+				halves.addTo(unusedColumns << 2 * chessboardSize | (unusedDescendingDiagonals >>> 1) << chessboardSize | unusedAscendingDiagonals << 1 & bitFlagsMask, weight);
+			}
+			else {
+				halves.addTo(unusedColumns << 2 * chessboardSize | (unusedAscendingDiagonals & bitFlagsMask) << chessboardSize | unusedDescendingDiagonals, weight);
+			}
+			return;
+		}
+
+		long bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals << 1 | unusedDescendingDiagonals >>> 1);
+		while (0 != bitFlags) {
+			final long targetQueen = -bitFlags & bitFlags;
+			bitFlags ^= targetQueen;
+			enumerateHalf(halves, remainingLines - 1, unusedColumns | targetQueen, (unusedAscendingDiagonals << 1 | targetQueen) & bitFlagsMask, unusedDescendingDiagonals >>> 1 | targetQueen, weight, bottom);
+		}
+	}
+
+	/**
+	 * Join the top and bottom halves on complementary columns and multiply the counts of the halves without common diagonals.
+	 *
+	 * @param topHalves keys of the top half
+	 * @param bottomHalves keys of the bottom half
+	 * @return number of solutions
+	 */
+	private long join(final LongLongOpenHashMap topHalves, final LongLongOpenHashMap bottomHalves) {
+
+		final int columnsShift = 2 * chessboardSize;
+		final long diagonalsMask = (1L << columnsShift) - 1;
+
+		// Sorted keys are grouped by columns
+		final long[] topKeys = topHalves.keys();
+		Arrays.sort(topKeys);
+		final long[] bottomKeys = bottomHalves.keys();
+		Arrays.sort(bottomKeys);
+		final long[] bottomCounts = new long[bottomKeys.length];
+		for (int i = 0; i < bottomKeys.length; i++) {
+			bottomCounts[i] = bottomHalves.get(bottomKeys[i]);
+		}
+
+		long count = 0;
+		int topGroupStart = 0;
+		while (topGroupStart < topKeys.length) {
+
+			final long topColumns = topKeys[topGroupStart] >>> columnsShift;
+			int topGroupEnd = topGroupStart + 1;
+			while (topGroupEnd < topKeys.length && topKeys[topGroupEnd] >>> columnsShift == topColumns) {
+				topGroupEnd++;
+			}
+
+			// Bottom group of the complementary columns
+			final long bottomColumns = bitFlagsMask & ~topColumns;
+			int bottomGroupStart = Arrays.binarySearch(bottomKeys, bottomColumns << columnsShift);
+			if (bottomGroupStart < 0) {
+				bottomGroupStart = -bottomGroupStart - 1;
+			}
+			int bottomGroupEnd = bottomGroupStart;
+			while (bottomGroupEnd < bottomKeys.length && bottomKeys[bottomGroupEnd] >>> columnsShift == bottomColumns) {
+				bottomGroupEnd++;
+			}
+
+			for (int topKey = topGroupStart; topKey < topGroupEnd && bottomGroupStart < bottomGroupEnd; topKey++) {
+
+				final long topDiagonals = topKeys[topKey] & diagonalsMask;
+				long compatibleBottomCount = 0;
+				for (int bottomKey = bottomGroupStart; bottomKey < bottomGroupEnd; bottomKey++) {
+					if (0 == (topDiagonals & bottomKeys[bottomKey])) {
+						compatibleBottomCount += bottomCounts[bottomKey];
+					}
+				}
+				count += compatibleBottomCount * topHalves.get(topKeys[topKey]);
+			}
+
+			topGroupStart = topGroupEnd;
+		}
+
+		return count;
+	}
+
+	public int getTopKeyCount() {
+		return topKeyCount;
+	}
+
+	public int getBottomKeyCount() {
+		return bottomKeyCount;
+	}
+
+	public long getMapsMemoryBytes() {
+		return mapsMemoryBytes;
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		// Halves are grouped without placing queens on a chessboard, the chessboard is the first solution in lexicographic order
+		if (null == firstSolution) {
+			firstSolution = BitFlagsSolutions.first(chessboardSize);
+		}
+		return y < firstSolution.length && x == firstSolution[y];
+	}
+
+	/**
+	 * Main program, count solutions with the hash join and compare its speed with the stacked bit-flags solver.
+	 *
+	 * @param args options
+	 * @throws InvalidSolutionsException
+	 */
+	public static void main(final String args[]) throws InvalidSolutionsException {
+
+		final String usage = "Usage: " + MeetInTheMiddleNQueensSolver.class.getSimpleName() + " [-n <size of the chessboard>] [-t <number of lines of the top half>] [-b <number of benchmark runs>] [-w <number of warmup runs>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(MeetInTheMiddleNQueensSolver.class.getSimpleName(), args, ":n:t:b:w:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 8;
+		int topLines = 0;
+		int benchmarkNumber = 0;
+		int warmupNumber = 0;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 't':
+					topLines = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'b':
+					benchmarkNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'w':
+					warmupNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final NumberFormatException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 1 || chessboardSize > MAXIMUM_CHESSBOARD_SIZE || topLines < 0 || (chessboardSize > 1 && topLines >= chessboardSize)) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		final MeetInTheMiddleNQueensSolver solver = (0 == topLines) ? new MeetInTheMiddleNQueensSolver(chessboardSize) : new MeetInTheMiddleNQueensSolver(chessboardSize, topLines);
+		final long solutionCount = solver.solve();
+
+		// End of the algorithm print the total of solution(s) found and the size of the halves
+		System.out.println("Total number of solution(s):" + solutionCount); //$NON-NLS-1$
+		System.out.println("Top half keys:" + solver.getTopKeyCount() + " bottom half keys:" + solver.getBottomKeyCount() + " maps memory:" + (solver.getMapsMemoryBytes() >> 20) + " MB"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+		if (SequenceTools.isKnownChessboardSize(chessboardSize) && !SequenceTools.checkSolutionsFound(chessboardSize, solutionCount)) {
+
+			System.err.println("Invalid number of solutions found: " + solutionCount + " expected: " + SequenceTools.getExpectedSolutions(chessboardSize) + " check the algorithm."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+
+		if (benchmarkNumber > 0) {
+			System.out.println(BenchmarkTools.benchmark("meet-in-the-middle", solver, warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+			System.out.println(BenchmarkTools.benchmark("int-bit-flags", new StackedBitFlagsNQueensSolver(chessboardSize, false), warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+		}
+	}
+}
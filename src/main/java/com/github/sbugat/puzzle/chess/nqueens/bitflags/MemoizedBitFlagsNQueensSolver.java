@@ -0,0 +1,173 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+
+/**
+ * Classic N chess queens on a size N chessboard with int bit-flags and a transposition table of sub-trees solutions counts (chessboard size up to 31).
+ *
+ * Different queens placements of the first lines can block the same columns and diagonals: the sub-tree of such a state is counted once and stored in a {@link SubtreeCountCache}, shareable by many solvers of the same chessboard size. Only the states of the middle lines are cached: the first lines
+ * states are rarely reached twice and the last lines sub-trees are faster to count than to look up.
+ *
+ * The interruption of the counting thread is checked on the cached lines: an interrupted count stops with an {@link IllegalStateException}.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class MemoizedBitFlagsNQueensSolver extends GenericNQueensSolver {
+
+	/** Default first cached line. */
+	public static final int DEFAULT_FIRST_CACHED_LINE = 3;
+	/** Default minimum number of lines to place after a cached line. */
+	public static final int DEFAULT_MINIMUM_REMAINING_LINES = 8;
+
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final int bitFlagsMask;
+
+	/** Transposition table. */
+	private final SubtreeCountCache subtreeCountCache;
+	/** First cached line. */
+	private final int firstCachedLine;
+	/** Last cached line. */
+	private final int lastCachedLine;
+
+	/** Queen column of each line of the first solution, searched on the first chessboard position read. */
+	private int[] firstSolution;
+
+	public MemoizedBitFlagsNQueensSolver(final int chessboardSizeArg, final SubtreeCountCache subtreeCountCacheArg) {
+
+		this(chessboardSizeArg, subtreeCountCacheArg, DEFAULT_FIRST_CACHED_LINE, DEFAULT_MINIMUM_REMAINING_LINES);
+	}
+
+	/**
+	 * Create a solver caching the lines from a first line up to a minimum number of remaining lines.
+	 *
+	 * @param chessboardSizeArg size of the chessboard
+	 * @param subtreeCountCacheArg transposition table, must be used only for this chessboard size
+	 * @param firstCachedLineArg first cached line
+	 * @param minimumRemainingLines minimum number of lines to place after a cached line
+	 */
+	public MemoizedBitFlagsNQueensSolver(final int chessboardSizeArg, final SubtreeCountCache subtreeCountCacheArg, final int firstCachedLineArg, final int minimumRemainingLines) {
+
+		super(chessboardSizeArg, false);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		bitFlagsMask = (int) ((1L << chessboardSizeArg) - 1);
+		subtreeCountCache = subtreeCountCacheArg;
+		firstCachedLine = Math.max(1, firstCachedLineArg);
+		lastCachedLine = chessboardSizeArg - minimumRemainingLines;
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		long halfSolutionCount = 0;
+		for (int x = 0; x < chessboardSize / 2; x++) {
+			halfSolutionCount += countFirstLineQueen(x);
+		}
+		if (0 != chessboardSize % 2) {
+			halfSolutionCount += countFirstLineQueen(chessboardSize / 2);
+		}
+
+		// Multiply by 2 the solution count for the other half not calculated
+		solutionCount = halfSolutionCount * 2;
+		return solutionCount;
+	}
+
+	/**
+	 * Count the solutions of a queen on the left half or in the middle of the first line, the mirrored solutions are not counted.
+	 *
+	 * @param x column of the first line queen, at most the chessboard size / 2
+	 * @return number of solutions of the half of the chessboard
+	 */
+	public long countFirstLineQueen(final int x) {
+
+		final int queen = 1 << x;
+
+		// Middle queen of an odd chessboard: only the left half of the second line
+		if (0 != chessboardSize % 2 && x == chessboardSize / 2) {
+
+			long count = 0;
+			for (int secondLineQueen = 1; secondLineQueen < 1 << x - 1; secondLineQueen <<= 1) {
+				count += count(2, queen | secondLineQueen, ((queen << 1 | secondLineQueen) << 1) & bitFlagsMask, (queen >> 1 | secondLineQueen) >> 1);
+			}
+			return count;
+		}
+
+		return count(1, queen, queen << 1 & bitFlagsMask, queen >> 1);
+	}
+
+	/**
+	 * Count the solutions of a state, middle lines states are looked up and stored in the transposition table.
+	 *
+	 * @param line line to place
+	 * @param unusedColumns used columns bit-flags
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags of the line inside the chessboard
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags of the line
+	 * @return number of solutions
+	 */
+	private long count(final int line, final int unusedColumns, final int unusedAscendingDiagonals, final int unusedDescendingDiagonals) {
+
+		int bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+
+		// Last line: a free position is a solution
+		if (line == chessboardSize - 1) {
+			return Integer.bitCount(bitFlags);
+		}
+
+		final boolean cachedLine = line >= firstCachedLine && line <= lastCachedLine;
+		if (cachedLine) {
+
+			// Cooperative stop of an interrupted count, a partial count must not be cached
+			if (Thread.currentThread().isInterrupted()) {
+				throw new IllegalStateException("Interrupted count"); //$NON-NLS-1$
+			}
+
+			final long cachedCount = subtreeCountCache.get(unusedColumns, unusedAscendingDiagonals, unusedDescendingDiagonals);
+			if (SubtreeCountCache.MISSING != cachedCount) {
+				return cachedCount;
+			}
+		}
+
+		long count = 0;
+		while (0 != bitFlags) {
+			final int targetQueen = -bitFlags & bitFlags;
+			bitFlags ^= targetQueen;
+			count += count(line + 1, unusedColumns | targetQueen, (unusedAscendingDiagonals | targetQueen) << 1 & bitFlagsMask, (unusedDescendingDiagonals | targetQueen) >> 1);
+		}
+
+		if (cachedLine) {
+			subtreeCountCache.put(unusedColumns, unusedAscendingDiagonals, unusedDescendingDiagonals, count);
+		}
+		return count;
+	}
+
+	public SubtreeCountCache getSubtreeCountCache() {
+		return subtreeCountCache;
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		// Sub-trees are counted without placing queens on a chessboard, the chessboard is the first solution in lexicographic order
+		if (null == firstSolution) {
+			firstSolution = BitFlagsSolutions.first(chessboardSize);
+		}
+		return y < firstSolution.length && x == firstSolution[y];
+	}
+}
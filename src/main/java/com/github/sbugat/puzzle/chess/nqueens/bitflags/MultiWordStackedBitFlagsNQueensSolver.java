@@ -0,0 +1,257 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import java.util.Arrays;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+
+/**
+ * Classic N chess queens on a size N chessboard with stacked multi-words bit-flags (no chessboard size limit).
+ *
+ * Each line bit-flags are stored in several long words, bit x of the line is the bit x % 64 of the word x / 64. Stacks are flat arrays with one slot of words per stack level: stack level l word w is at index l * words + w.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class MultiWordStackedBitFlagsNQueensSolver extends GenericNQueensSolver {
+
+	/** Number of bits in a word. */
+	private static final int WORD_SIZE = Long.SIZE;
+	/** Shifting to get the word number of a bit. */
+	private static final int WORD_SHIFT = 6;
+
+	/** Precalculated constant. */
+	private final int chessboardSizeMinusTwo;
+	/** Number of words of a line. */
+	private final int words;
+
+	/** Current line bit-flags. */
+	private final long[] bitFlags;
+	/** Stack for used/free bit-flags. */
+	private final long[] bitFlagsStack;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long[] bitFlagsMask;
+	private final long[] unusedColumnsStack;
+	private final long[] unusedAscendingDiagonalsStack;
+	private final long[] unusedDescendingDiagonalsStack;
+	private int stacklevel;
+
+	public MultiWordStackedBitFlagsNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg) {
+
+		super(chessboardSizeArg, printSolutionArg);
+
+		if (chessboardSizeArg < 1) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSizeMinusTwo = chessboardSizeArg - 2;
+		words = (chessboardSizeArg + WORD_SIZE - 1) >>> WORD_SHIFT;
+
+		bitFlagsMask = new long[words];
+		for (int i = 0; i < chessboardSizeArg; i++) {
+			bitFlagsMask[i >>> WORD_SHIFT] |= 1L << i;
+		}
+
+		bitFlags = new long[words];
+		bitFlagsStack = new long[chessboardSizeArg * words];
+		unusedColumnsStack = new long[chessboardSizeArg * words];
+		unusedAscendingDiagonalsStack = new long[chessboardSizeArg * words];
+		unusedDescendingDiagonalsStack = new long[chessboardSizeArg * words];
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		// Test half square of the first line
+		for (int x = 0; x < chessboardSize / 2; x++) {
+
+			placeFirstLineQueen(x);
+			for (int w = 0; w < words; w++) {
+				bitFlags[w] = bitFlagsMask[w] & ~(unusedColumnsStack[w] | unusedAscendingDiagonalsStack[w] | unusedDescendingDiagonalsStack[w]);
+			}
+
+			// Go on to the second line
+			stacklevel = 0;
+			if (!isEmpty(bitFlags)) {
+				solveFromSecondLine();
+			}
+		}
+
+		// If the chessboard size is odd, test with a queen on the middle of the first line
+		if (0 != chessboardSize % 2) {
+
+			final int x = chessboardSize / 2;
+
+			placeFirstLineQueen(x);
+
+			// Just test half of the positions of the second line because of mirroring
+			Arrays.fill(bitFlags, 0L);
+			for (int i = 0; i < x - 1; i++) {
+				bitFlags[i >>> WORD_SHIFT] ^= 1L << i;
+			}
+
+			// Go on to the second line
+			stacklevel = 0;
+			if (!isEmpty(bitFlags)) {
+				solveFromSecondLine();
+			}
+		}
+
+		// Multiply by 2 the solution count for the other half not calculated
+		solutionCount *= 2;
+
+		return solutionCount;
+	}
+
+	/**
+	 * Initialize the first stack level with a single queen on the first line.
+	 *
+	 * @param x column of the queen
+	 */
+	private void placeFirstLineQueen(final int x) {
+
+		Arrays.fill(unusedColumnsStack, 0, words, 0L);
+		Arrays.fill(unusedAscendingDiagonalsStack, 0, words, 0L);
+		Arrays.fill(unusedDescendingDiagonalsStack, 0, words, 0L);
+
+		unusedColumnsStack[x >>> WORD_SHIFT] = 1L << x;
+		if (x + 1 < words * WORD_SIZE) {
+			unusedAscendingDiagonalsStack[x + 1 >>> WORD_SHIFT] = 1L << x + 1;
+		}
+		if (x > 0) {
+			unusedDescendingDiagonalsStack[x - 1 >>> WORD_SHIFT] = 1L << x - 1;
+		}
+	}
+
+	/**
+	 * Solving with iterative/stacking method by using multi-words bit flags, do a depth-first/back-tracking algorithm a queen must me placed on the first line.
+	 */
+	private void solveFromSecondLine() {
+
+		int prevBase;
+		int base;
+		int targetWord;
+		long targetQueen;
+		long carry;
+		long diagonals;
+		// Infinite loop, exit condition is tested when unstacking a queen
+		while (true) {
+
+			// Test first possible queen of the line, the first non empty word contains it
+			targetWord = 0;
+			while (0 == bitFlags[targetWord]) {
+				targetWord++;
+			}
+			targetQueen = -bitFlags[targetWord] & bitFlags[targetWord];
+
+			// All queens are sets on the chessboard then a solution is found!
+			// Test with the board size minus 2 because the targeted queen is not placed yet
+			if (stacklevel >= chessboardSizeMinusTwo) {
+				solutionCount++;
+
+				bitFlags[targetWord] ^= targetQueen;
+			}
+			else {
+
+				// Go on to the next line
+				prevBase = stacklevel * words;
+				stacklevel++;
+				base = prevBase + words;
+
+				// Mark the current target queen as tested for this stack level
+				bitFlags[targetWord] ^= targetQueen;
+				System.arraycopy(bitFlags, 0, bitFlagsStack, base, words);
+
+				// Columns stack update
+				System.arraycopy(unusedColumnsStack, prevBase, unusedColumnsStack, base, words);
+				unusedColumnsStack[base + targetWord] |= targetQueen;
+
+				// Ascending diagonals stack update, shift to the left from the lowest word
+				carry = 0L;
+				for (int w = 0; w < words; w++) {
+					diagonals = unusedAscendingDiagonalsStack[prevBase + w];
+					if (w == targetWord) {
+						diagonals |= targetQueen;
+					}
+					unusedAscendingDiagonalsStack[base + w] = diagonals << 1 | carry;
+					carry = diagonals >>> WORD_SIZE - 1;
+				}
+
+				// Descending diagonals stack update, shift to the right from the highest word
+				carry = 0L;
+				for (int w = words - 1; w >= 0; w--) {
+					diagonals = unusedDescendingDiagonalsStack[prevBase + w];
+					if (w == targetWord) {
+						diagonals |= targetQueen;
+					}
+					unusedDescendingDiagonalsStack[base + w] = diagonals >>> 1 | carry;
+					carry = diagonals << WORD_SIZE - 1;
+				}
+
+				// Update bit flags of the next line
+				for (int w = 0; w < words; w++) {
+					bitFlags[w] = bitFlagsMask[w] & ~(unusedColumnsStack[base + w] | unusedAscendingDiagonalsStack[base + w] | unusedDescendingDiagonalsStack[base + w]);
+				}
+			}
+
+			// If all positions have been tested or are already blocked by a column or a diagonal
+			while (isEmpty(bitFlags)) {
+
+				// If there is still something to unstack
+				if (stacklevel > 0) {
+					// Backtrace process
+					System.arraycopy(bitFlagsStack, stacklevel * words, bitFlags, 0, words);
+					stacklevel--;
+				}
+				// Exit if all possibilities are tested
+				else {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check if all words of a line bit-flags are empty.
+	 *
+	 * @param lineBitFlags line bit-flags words
+	 * @return true if no bit is set
+	 */
+	private boolean isEmpty(final long[] lineBitFlags) {
+
+		for (int w = 0; w < words; w++) {
+			if (0 != lineBitFlags[w]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		final int w = x >>> WORD_SHIFT;
+		final long bit = 1L << x;
+
+		// The last line queen is not stacked, it is the only free column left
+		if (0 == y) {
+			return 0 != (unusedColumnsStack[w] & bit);
+		}
+		else if (y > chessboardSizeMinusTwo) {
+			return 0 == (unusedColumnsStack[chessboardSizeMinusTwo * words + w] & bit);
+		}
+		return 0 != ((unusedColumnsStack[y * words + w] ^ unusedColumnsStack[(y - 1) * words + w]) & bit);
+	}
+}
@@ -0,0 +1,465 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import gnu.getopt.Getopt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index of the solutions counts of the first lines prefixes: unranking of the k-th solution in lexicographic order of the queens columns and uniform random sampling of the solutions (chessboard size up to 63).
+ *
+ * The index stores the prefixes having solutions in lexicographic order with the number of solutions before each prefix. A solution is found with a binary search of its prefix, then line by line by counting the sub-tree of each free position with a
+ * {@link LongBitFlagsSubtreeCounter}: the remaining lines sub-trees are small. An index is built once in parallel and can be saved in a file.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SolutionIndex {
+
+	/** Maximum number of lines of the prefixes, columns of a prefix are packed in a long. */
+	public static final int MAXIMUM_LINES = 10;
+	/** Default maximum number of prefixes of an index. */
+	public static final int DEFAULT_MAXIMUM_PREFIXES = 1 << 20;
+
+	/** Bits of a packed prefix column. */
+	private static final int COLUMN_BITS = 6;
+	/** Index file magic number: NQSI. */
+	private static final int MAGIC = 0x4E515349;
+	/** Index file header: magic number, chessboard size, lines and prefixes count. */
+	private static final int HEADER_SIZE = 4 * Integer.BYTES;
+	/** Number of prefixes counted by a build task. */
+	private static final int BUILD_BLOCK_PREFIXES = 256;
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Number of lines of the prefixes. */
+	private final int lines;
+	/** Packed columns of each prefix. */
+	private final long[] prefixesColumns;
+	/** Number of solutions of the prefixes before each prefix, the last value is the total number of solutions. */
+	private final long[] previousSolutionCounts;
+
+	private SolutionIndex(final int chessboardSizeArg, final int linesArg, final long[] prefixesColumnsArg, final long[] previousSolutionCountsArg) {
+
+		chessboardSize = chessboardSizeArg;
+		lines = linesArg;
+		prefixesColumns = prefixesColumnsArg;
+		previousSolutionCounts = previousSolutionCountsArg;
+	}
+
+	/**
+	 * Find the deepest prefixes line with at most a maximum number of prefixes.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param maximumPrefixes maximum number of prefixes
+	 * @return number of lines of the prefixes
+	 */
+	public static int getLinesForPrefixes(final int chessboardSize, final int maximumPrefixes) {
+
+		int lines = 1;
+		while (lines < Math.min(MAXIMUM_LINES, chessboardSize - 1) && collectPrefixes(chessboardSize, lines + 1, maximumPrefixes + 1).size() <= maximumPrefixes) {
+			lines++;
+		}
+		return lines;
+	}
+
+	/**
+	 * Collect the prefixes of a line in lexicographic order, prefixes without any free position left are dropped.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param lines number of lines of the prefixes
+	 * @param limit maximum number of prefixes to collect
+	 * @return packed columns of the prefixes
+	 */
+	private static List<Long> collectPrefixes(final int chessboardSize, final int lines, final int limit) {
+
+		final List<Long> prefixes = new ArrayList<>();
+		final long bitFlagsMask = -1L >>> Long.SIZE - chessboardSize;
+		collectPrefixes(bitFlagsMask, lines, 0, 0L, 0L, 0L, 0L, limit, prefixes);
+		return prefixes;
+	}
+
+	private static void collectPrefixes(final long bitFlagsMask, final int lines, final int line, final long packedColumns, final long unusedColumns, final long unusedAscendingDiagonals, final long unusedDescendingDiagonals, final int limit, final List<Long> prefixes) {
+
+		if (line == lines) {
+			prefixes.add(Long.valueOf(packedColumns));
+			return;
+		}
+
+		long bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+		while (0 != bitFlags && prefixes.size() < limit) {
+			final long targetQueen = -bitFlags & bitFlags;
+			bitFlags ^= targetQueen;
+			collectPrefixes(bitFlagsMask, lines, line + 1, packedColumns | (long) Long.numberOfTrailingZeros(targetQueen) << line * COLUMN_BITS, unusedColumns | targetQueen, (unusedAscendingDiagonals | targetQueen) << 1, (unusedDescendingDiagonals | targetQueen) >>> 1, limit, prefixes);
+		}
+	}
+
+	/**
+	 * Build an index by counting the solutions of each prefix in parallel.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param lines number of lines of the prefixes
+	 * @param threadNumber number of threads of the build
+	 * @return index
+	 */
+	public static SolutionIndex build(final int chessboardSize, final int lines, final int threadNumber) {
+
+		if (chessboardSize < 1 || chessboardSize > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || lines < 1 || lines > Math.min(MAXIMUM_LINES, chessboardSize)) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSize + " or lines " + lines); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		final List<Long> prefixes = collectPrefixes(chessboardSize, lines, Integer.MAX_VALUE);
+		final long[] allPrefixesColumns = new long[prefixes.size()];
+		for (int i = 0; i < allPrefixesColumns.length; i++) {
+			allPrefixesColumns[i] = prefixes.get(i).longValue();
+		}
+
+		// Count each prefix by blocks taken by the threads in order
+		final long[] solutionCounts = new long[allPrefixesColumns.length];
+		final AtomicInteger nextBlock = new AtomicInteger();
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < threadNumber; thread++) {
+				futures.add(executorService.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+
+						final LongBitFlagsSubtreeCounter counter = new LongBitFlagsSubtreeCounter(chessboardSize);
+						for (int block = nextBlock.getAndIncrement(); block * BUILD_BLOCK_PREFIXES < allPrefixesColumns.length; block = nextBlock.getAndIncrement()) {
+
+							final int end = Math.min(allPrefixesColumns.length, (block + 1) * BUILD_BLOCK_PREFIXES);
+							for (int i = block * BUILD_BLOCK_PREFIXES; i < end; i++) {
+								final long[] masks = getPrefixMasks(allPrefixesColumns[i], lines);
+								solutionCounts[i] = counter.count(lines, masks[0], masks[1], masks[2]);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (final ExecutionException e) {
+			throw new IllegalStateException("Index build failed", e.getCause()); //$NON-NLS-1$
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted index build", e); //$NON-NLS-1$
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+
+		// Keep only the prefixes having solutions
+		int prefixCount = 0;
+		for (final long solutionCount : solutionCounts) {
+			if (0 != solutionCount) {
+				prefixCount++;
+			}
+		}
+
+		final long[] prefixesColumns = new long[prefixCount];
+		final long[] previousSolutionCounts = new long[prefixCount + 1];
+		int prefix = 0;
+		for (int i = 0; i < solutionCounts.length; i++) {
+			if (0 != solutionCounts[i]) {
+				prefixesColumns[prefix] = allPrefixesColumns[i];
+				previousSolutionCounts[prefix + 1] = previousSolutionCounts[prefix] + solutionCounts[i];
+				prefix++;
+			}
+		}
+
+		return new SolutionIndex(chessboardSize, lines, prefixesColumns, previousSolutionCounts);
+	}
+
+	/**
+	 * Used columns and diagonals bit-flags after the lines of a prefix.
+	 *
+	 * @param packedColumns packed columns of the prefix
+	 * @param lines number of lines of the prefix
+	 * @return columns, ascending and descending diagonals bit-flags shifted for the next line
+	 */
+	private static long[] getPrefixMasks(final long packedColumns, final int lines) {
+
+		long unusedColumns = 0;
+		long unusedAscendingDiagonals = 0;
+		long unusedDescendingDiagonals = 0;
+		for (int line = 0; line < lines; line++) {
+			final long targetQueen = 1L << getPrefixColumn(packedColumns, line);
+			unusedColumns |= targetQueen;
+			unusedAscendingDiagonals = (unusedAscendingDiagonals | targetQueen) << 1;
+			unusedDescendingDiagonals = (unusedDescendingDiagonals | targetQueen) >>> 1;
+		}
+		return new long[] { unusedColumns, unusedAscendingDiagonals, unusedDescendingDiagonals };
+	}
+
+	private static int getPrefixColumn(final long packedColumns, final int line) {
+		return (int) (packedColumns >>> line * COLUMN_BITS) & (1 << COLUMN_BITS) - 1;
+	}
+
+	/**
+	 * Get the solution of a rank in lexicographic order of the queens columns.
+	 *
+	 * @param rank rank of the solution from 0
+	 * @return column of the queen of each line
+	 */
+	public int[] unrank(final long rank) {
+
+		if (rank < 0 || rank >= getSolutionCount()) {
+			throw new IllegalArgumentException("Invalid solution rank " + rank); //$NON-NLS-1$
+		}
+
+		// Last prefix with less solutions before it than the rank, counts are strictly increasing since all prefixes have solutions
+		int prefix = Arrays.binarySearch(previousSolutionCounts, rank);
+		if (prefix < 0) {
+			prefix = -prefix - 2;
+		}
+
+		final int[] queens = new int[chessboardSize];
+		for (int line = 0; line < lines; line++) {
+			queens[line] = getPrefixColumn(prefixesColumns[prefix], line);
+		}
+
+		final long[] masks = getPrefixMasks(prefixesColumns[prefix], lines);
+		long unusedColumns = masks[0];
+		long unusedAscendingDiagonals = masks[1];
+		long unusedDescendingDiagonals = masks[2];
+		long remainingRank = rank - previousSolutionCounts[prefix];
+
+		// Choose the free position of each line containing the remaining rank
+		final LongBitFlagsSubtreeCounter counter = new LongBitFlagsSubtreeCounter(chessboardSize);
+		final long bitFlagsMask = counter.getBitFlagsMask();
+		for (int line = lines; line < chessboardSize; line++) {
+
+			long bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+			while (true) {
+
+				final long targetQueen = -bitFlags & bitFlags;
+				bitFlags ^= targetQueen;
+
+				final long solutionCount = counter.count(line + 1, unusedColumns | targetQueen, (unusedAscendingDiagonals | targetQueen) << 1, (unusedDescendingDiagonals | targetQueen) >>> 1);
+				if (remainingRank < solutionCount) {
+					queens[line] = Long.numberOfTrailingZeros(targetQueen);
+					unusedColumns |= targetQueen;
+					unusedAscendingDiagonals = (unusedAscendingDiagonals | targetQueen) << 1;
+					unusedDescendingDiagonals = (unusedDescendingDiagonals | targetQueen) >>> 1;
+					break;
+				}
+				remainingRank -= solutionCount;
+			}
+		}
+
+		return queens;
+	}
+
+	/**
+	 * Get a uniformly random solution.
+	 *
+	 * @param random random generator
+	 * @return column of the queen of each line
+	 */
+	public int[] sample(final SplittableRandom random) {
+
+		return unrank(random.nextLong(getSolutionCount()));
+	}
+
+	/**
+	 * Save the index in a file.
+	 *
+	 * @param indexFile index file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(final Path indexFile) throws IOException {
+
+		try (final FileChannel fileChannel = FileChannel.open(indexFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			final ByteBuffer content = ByteBuffer.allocate(HEADER_SIZE + (2 * prefixesColumns.length + 1) * Long.BYTES);
+			content.putInt(MAGIC).putInt(chessboardSize).putInt(lines).putInt(prefixesColumns.length);
+			content.asLongBuffer().put(prefixesColumns).put(previousSolutionCounts);
+
+			// The long view does not move the buffer position
+			content.clear();
+			while (content.hasRemaining()) {
+				fileChannel.write(content);
+			}
+		}
+	}
+
+	/**
+	 * Load an index file.
+	 *
+	 * @param indexFile index file
+	 * @param chessboardSize expected size of the chessboard
+	 * @return loaded index
+	 * @throws IOException if the file cannot be read or is not an index of this chessboard size
+	 */
+	public static SolutionIndex load(final Path indexFile, final int chessboardSize) throws IOException {
+
+		try (final FileChannel fileChannel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+
+			final ByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			final int lines = header.getInt(2 * Integer.BYTES);
+			final int prefixCount = header.getInt(3 * Integer.BYTES);
+			if (MAGIC != header.getInt(0) || chessboardSize != header.getInt(Integer.BYTES) || lines < 1 || lines > MAXIMUM_LINES || prefixCount < 0 || fileChannel.size() != HEADER_SIZE + (2L * prefixCount + 1) * Long.BYTES) {
+				throw new IOException("Invalid index file for chess size " + chessboardSize + ": " + indexFile); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+
+			final long[] prefixesColumns = new long[prefixCount];
+			final long[] previousSolutionCounts = new long[prefixCount + 1];
+			fileChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (2L * prefixCount + 1) * Long.BYTES).asLongBuffer().get(prefixesColumns).get(previousSolutionCounts);
+			return new SolutionIndex(chessboardSize, lines, prefixesColumns, previousSolutionCounts);
+		}
+	}
+
+	/**
+	 * Load an index file if it exists, otherwise build the index and save it in the file.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param lines number of lines of the prefixes of a built index
+	 * @param threadNumber number of threads of the build
+	 * @param indexFile index file, may be null to only build the index
+	 * @return index
+	 * @throws IOException if the index file cannot be used
+	 */
+	public static SolutionIndex loadOrBuild(final int chessboardSize, final int lines, final int threadNumber, final Path indexFile) throws IOException {
+
+		if (null != indexFile && Files.exists(indexFile)) {
+			return load(indexFile, chessboardSize);
+		}
+
+		final SolutionIndex index = build(chessboardSize, lines, threadNumber);
+		if (null != indexFile) {
+			index.save(indexFile);
+		}
+		return index;
+	}
+
+	public int getChessboardSize() {
+		return chessboardSize;
+	}
+
+	public int getLines() {
+		return lines;
+	}
+
+	public int getPrefixCount() {
+		return prefixesColumns.length;
+	}
+
+	public long getSolutionCount() {
+		return previousSolutionCounts[prefixesColumns.length];
+	}
+
+	/**
+	 * Main program, print solutions of given ranks or random solutions.
+	 *
+	 * @param args options
+	 * @throws IOException if the index file cannot be used
+	 */
+	public static void main(final String args[]) throws IOException {
+
+		final String usage = "Usage: " + SolutionIndex.class.getSimpleName() + " [-n <size of the chessboard>] [-k <rank of the solution from 0>] [-r <number of random solutions>] [-l <lines of the index>] [-t <number of threads>] [-f <index file>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(SolutionIndex.class.getSimpleName(), args, ":n:k:r:l:t:f:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 8;
+		final List<Long> ranks = new ArrayList<>();
+		int randomSolutions = 0;
+		int lines = 0;
+		int threadNumber = Runtime.getRuntime().availableProcessors();
+		Path indexFile = null;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'k':
+					ranks.add(Long.valueOf(getOpt.getOptarg()));
+					break;
+
+				case 'r':
+					randomSolutions = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'l':
+					lines = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 't':
+					threadNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'f':
+					indexFile = Paths.get(getOpt.getOptarg());
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final NumberFormatException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 1 || chessboardSize > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || lines < 0 || lines > Math.min(MAXIMUM_LINES, chessboardSize) || threadNumber < 1) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		if (0 == lines) {
+			lines = getLinesForPrefixes(chessboardSize, DEFAULT_MAXIMUM_PREFIXES);
+		}
+
+		final long startTime = System.nanoTime();
+		final SolutionIndex index = loadOrBuild(chessboardSize, lines, threadNumber, indexFile);
+		System.out.println("Index of " + index.getPrefixCount() + " prefixes of " + index.getLines() + " lines loaded in " + (System.nanoTime() - startTime) / 1_000_000 + "ms, total number of solution(s):" + index.getSolutionCount()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+		for (final Long rank : ranks) {
+			if (rank.longValue() < 0 || rank.longValue() >= index.getSolutionCount()) {
+				System.err.println("Invalid solution rank " + rank); //$NON-NLS-1$
+			}
+			else {
+				System.out.println("Solution " + rank + ": " + Arrays.toString(index.unrank(rank.longValue()))); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		final SplittableRandom random = new SplittableRandom();
+		for (int i = 0; i < randomSolutions && 0 != index.getSolutionCount(); i++) {
+			System.out.println("Random solution: " + Arrays.toString(index.sample(random))); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import gnu.getopt.Getopt;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.tools.BenchmarkBaseline;
+import com.github.sbugat.puzzle.chess.nqueens.tools.BenchmarkResult;
+import com.github.sbugat.puzzle.chess.nqueens.tools.BenchmarkTools;
+import com.github.sbugat.puzzle.chess.nqueens.tools.InvalidSolutionsException;
+import com.github.sbugat.puzzle.chess.nqueens.tools.PerformanceRegressionException;
+import com.github.sbugat.puzzle.chess.nqueens.tools.SequenceTools;
+
+/**
+ * Stacked bit-flags solvers selection depending of the chessboard size: int bit-flags up to 31, long bit-flags up to 63 and multi-words bit-flags above.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class StackedBitFlagsNQueensSolvers {
+
+	private StackedBitFlagsNQueensSolvers() {
+		// Tools class
+	}
+
+	/**
+	 * Create the fastest stacked bit-flags solver for a chessboard size.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param printSolution print solution flag
+	 * @return solver of the smallest bit-flags type large enough for the chessboard
+	 */
+	public static GenericNQueensSolver newSolver(final int chessboardSize, final boolean printSolution) {
+
+		if (chessboardSize <= StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			return new StackedBitFlagsNQueensSolver(chessboardSize, printSolution);
+		}
+		if (chessboardSize <= LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			return new LongStackedBitFlagsNQueensSolver(chessboardSize, printSolution);
+		}
+		return new MultiWordStackedBitFlagsNQueensSolver(chessboardSize, printSolution);
+	}
+
+	/** Default allowed slowdown compared to the baseline in percent. */
+	private static final double DEFAULT_REGRESSION_THRESHOLD_PERCENT = 10;
+
+	/**
+	 * Main program, count solutions and compare the int, long and multi-words bit-flags solvers speed.
+	 *
+	 * @param args options
+	 * @throws InvalidSolutionsException
+	 * @throws IOException if the result or baseline file cannot be used
+	 * @throws PerformanceRegressionException if a solver is slower than the baseline
+	 */
+	public static void main(final String args[]) throws InvalidSolutionsException, IOException, PerformanceRegressionException {
+
+		final String usage = "Usage: " + StackedBitFlagsNQueensSolvers.class.getSimpleName() + " [-n <size of the chessboard>] [-b <number of benchmark runs>] [-w <number of warmup runs>] [-o <result file .csv or .json>] [-B <baseline file>] [-S(save the baseline)] [-x <regression threshold in percent>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(StackedBitFlagsNQueensSolvers.class.getSimpleName(), args, ":n:b:w:o:B:Sx:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 8;
+		int benchmarkNumber = 0;
+		int warmupNumber = 0;
+		Path resultFile = null;
+		Path baselineFile = null;
+		boolean saveBaseline = false;
+		double regressionThresholdPercent = DEFAULT_REGRESSION_THRESHOLD_PERCENT;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			switch (c) {
+
+			case 'n':
+				try {
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+
+					if (chessboardSize < 1) {
+						System.err.println(usage);
+						System.exit(1);
+					}
+				}
+				catch (final NumberFormatException e) {
+					System.err.println(usage);
+					System.exit(1);
+				}
+				break;
+
+			case 'b':
+				try {
+					benchmarkNumber = Integer.parseInt(getOpt.getOptarg());
+				}
+				catch (final NumberFormatException e) {
+					System.err.println(usage);
+					System.exit(1);
+				}
+				break;
+
+			case 'w':
+				try {
+					warmupNumber = Integer.parseInt(getOpt.getOptarg());
+				}
+				catch (final NumberFormatException e) {
+					System.err.println(usage);
+					System.exit(1);
+				}
+				break;
+
+			case 'o':
+				resultFile = Paths.get(getOpt.getOptarg());
+				break;
+
+			case 'B':
+				baselineFile = Paths.get(getOpt.getOptarg());
+				break;
+
+			case 'S':
+				saveBaseline = true;
+				break;
+
+			case 'x':
+				try {
+					regressionThresholdPercent = Double.parseDouble(getOpt.getOptarg());
+				}
+				catch (final NumberFormatException e) {
+					System.err.println(usage);
+					System.exit(1);
+				}
+				break;
+
+			case '?':
+			default:
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		final long solutionCount = newSolver(chessboardSize, false).solve();
+
+		// End of the algorithm print the total of solution(s) found
+		System.out.println("Total number of solution(s):" + solutionCount); //$NON-NLS-1$
+
+		if (SequenceTools.isKnownChessboardSize(chessboardSize) && !SequenceTools.checkSolutionsFound(chessboardSize, solutionCount)) {
+
+			System.err.println("Invalid number of solutions found: " + solutionCount + " expected: " + SequenceTools.getExpectedSolutions(chessboardSize) + " check the algorithm."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+
+		// Benchmark each bit-flags type able to solve this chessboard size, bigger types must not be slower on small chessboards
+		if (benchmarkNumber > 0) {
+
+			final List<BenchmarkResult> benchmarkResults = new ArrayList<>();
+			if (chessboardSize <= StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+				benchmarkResults.add(BenchmarkTools.benchmark("int-bit-flags", new StackedBitFlagsNQueensSolver(chessboardSize, false), warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+			}
+			if (chessboardSize <= LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+				benchmarkResults.add(BenchmarkTools.benchmark("long-bit-flags", new LongStackedBitFlagsNQueensSolver(chessboardSize, false), warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+			}
+			benchmarkResults.add(BenchmarkTools.benchmark("multi-words-bit-flags", new MultiWordStackedBitFlagsNQueensSolver(chessboardSize, false), warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+
+			for (final BenchmarkResult benchmarkResult : benchmarkResults) {
+				System.out.println(benchmarkResult);
+			}
+
+			if (null != resultFile) {
+				BenchmarkTools.write(benchmarkResults, resultFile);
+			}
+
+			if (null != baselineFile) {
+				checkBaseline(benchmarkResults, baselineFile, saveBaseline, regressionThresholdPercent);
+			}
+		}
+	}
+
+	/**
+	 * Compare benchmarks with their baseline, or save them as the new baseline.
+	 *
+	 * @param benchmarkResults benchmark results
+	 * @param baselineFile baseline file
+	 * @param saveBaseline save the benchmarks as the new baseline instead of comparing them
+	 * @param regressionThresholdPercent allowed slowdown in percent
+	 * @throws IOException if the baseline file cannot be used
+	 * @throws PerformanceRegressionException if a benchmark is slower than its baseline
+	 */
+	private static void checkBaseline(final List<BenchmarkResult> benchmarkResults, final Path baselineFile, final boolean saveBaseline, final double regressionThresholdPercent) throws IOException, PerformanceRegressionException {
+
+		final BenchmarkBaseline baseline = BenchmarkBaseline.load(baselineFile);
+
+		for (final BenchmarkResult benchmarkResult : benchmarkResults) {
+			if (saveBaseline) {
+				baseline.put(benchmarkResult);
+			}
+			else {
+				baseline.check(benchmarkResult, regressionThresholdPercent);
+			}
+		}
+
+		if (saveBaseline) {
+			baseline.save(baselineFile);
+		}
+	}
+}
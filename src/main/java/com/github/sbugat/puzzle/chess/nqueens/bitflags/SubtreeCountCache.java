@@ -0,0 +1,203 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded transposition table of sub-tree solutions counts keyed by the int bit-flags state of a line: used columns, ascending and descending diagonals (the line is the number of used columns).
+ *
+ * The table is set-associative: a state is stored in one of the {@value #WAYS} entries of its bucket, a full bucket evicts an entry with a clock policy (recently read entries get a second chance). Buckets are protected by striped locks so a table can be shared by many threads. Hits and misses are
+ * counted with striped counters.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SubtreeCountCache {
+
+	/** Number of entries of a bucket. */
+	private static final int WAYS = 4;
+	/** Memory size of an entry: columns and ascending diagonals key, descending diagonals key, count and reference flag. */
+	public static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES + 1;
+	/** Value returned for a state not in the table. */
+	public static final long MISSING = -1;
+
+	/** Columns and ascending diagonals of each entry, 0 for an empty entry (a cached state has at least 1 used column). */
+	private final long[] keys;
+	/** Descending diagonals of each entry. */
+	private final int[] descendingDiagonalsKeys;
+	/** Sub-tree solutions count of each entry. */
+	private final long[] counts;
+	/** Entry read since the last clock hand pass. */
+	private final boolean[] referenced;
+	/** Clock hand of each bucket. */
+	private final byte[] clockHands;
+
+	/** Mask of the bucket number. */
+	private final int bucketMask;
+	/** Locks of the buckets. */
+	private final Object[] locks;
+	/** Mask of the lock number. */
+	private final int lockMask;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Create a table using at most the memory budget.
+	 *
+	 * @param memoryBudgetBytes memory budget of the entries, at least one bucket is created
+	 * @param stripeNumber number of locks, rounded to a power of 2
+	 */
+	public SubtreeCountCache(final long memoryBudgetBytes, final int stripeNumber) {
+
+		final long maximumBucketNumber = Math.max(1, Math.min(1 << 28, memoryBudgetBytes / (ENTRY_BYTES * WAYS)));
+		final int bucketNumber = Integer.highestOneBit((int) maximumBucketNumber);
+		bucketMask = bucketNumber - 1;
+
+		keys = new long[bucketNumber * WAYS];
+		descendingDiagonalsKeys = new int[bucketNumber * WAYS];
+		counts = new long[bucketNumber * WAYS];
+		referenced = new boolean[bucketNumber * WAYS];
+		clockHands = new byte[bucketNumber];
+
+		final int lockNumber = Integer.highestOneBit(Math.max(1, Math.min(stripeNumber, bucketNumber)));
+		lockMask = lockNumber - 1;
+		locks = new Object[lockNumber];
+		for (int i = 0; i < lockNumber; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Key of the columns and ascending diagonals.
+	 *
+	 * @param unusedColumns used columns bit-flags
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags
+	 * @return key, never 0 if a column is used
+	 */
+	private static long key(final int unusedColumns, final int unusedAscendingDiagonals) {
+		return (long) unusedColumns << Integer.SIZE | unusedAscendingDiagonals & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Bucket of a state with a 64 bits hash finalizer.
+	 *
+	 * @param key columns and ascending diagonals key
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags
+	 * @return bucket number
+	 */
+	private int bucket(final long key, final int unusedDescendingDiagonals) {
+
+		long hash = key * 0x9E3779B97F4A7C15L ^ unusedDescendingDiagonals;
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return (int) hash & bucketMask;
+	}
+
+	/**
+	 * Read the solutions count of a state.
+	 *
+	 * @param unusedColumns used columns bit-flags, at least 1 column
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags inside the chessboard
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags inside the chessboard
+	 * @return solutions count of the state, {@link #MISSING} if the state is not in the table
+	 */
+	public long get(final int unusedColumns, final int unusedAscendingDiagonals, final int unusedDescendingDiagonals) {
+
+		final long key = key(unusedColumns, unusedAscendingDiagonals);
+		final int bucket = bucket(key, unusedDescendingDiagonals);
+		final int firstEntry = bucket * WAYS;
+
+		synchronized (locks[bucket & lockMask]) {
+			for (int entry = firstEntry; entry < firstEntry + WAYS; entry++) {
+				if (keys[entry] == key && descendingDiagonalsKeys[entry] == unusedDescendingDiagonals) {
+					referenced[entry] = true;
+					hitCount.increment();
+					return counts[entry];
+				}
+			}
+		}
+
+		missCount.increment();
+		return MISSING;
+	}
+
+	/**
+	 * Store the solutions count of a state, an entry of a full bucket is evicted.
+	 *
+	 * @param unusedColumns used columns bit-flags, at least 1 column
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags inside the chessboard
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags inside the chessboard
+	 * @param count solutions count of the state
+	 */
+	public void put(final int unusedColumns, final int unusedAscendingDiagonals, final int unusedDescendingDiagonals, final long count) {
+
+		final long key = key(unusedColumns, unusedAscendingDiagonals);
+		final int bucket = bucket(key, unusedDescendingDiagonals);
+		final int firstEntry = bucket * WAYS;
+
+		synchronized (locks[bucket & lockMask]) {
+
+			// Update the state or use an empty entry
+			for (int entry = firstEntry; entry < firstEntry + WAYS; entry++) {
+				if (0 == keys[entry] || keys[entry] == key && descendingDiagonalsKeys[entry] == unusedDescendingDiagonals) {
+					store(entry, key, unusedDescendingDiagonals, count);
+					return;
+				}
+			}
+
+			// Clock eviction: referenced entries get a second chance
+			int hand = clockHands[bucket];
+			while (referenced[firstEntry + hand]) {
+				referenced[firstEntry + hand] = false;
+				hand = (hand + 1) % WAYS;
+			}
+			clockHands[bucket] = (byte) ((hand + 1) % WAYS);
+			store(firstEntry + hand, key, unusedDescendingDiagonals, count);
+		}
+		evictionCount.increment();
+	}
+
+	private void store(final int entry, final long key, final int unusedDescendingDiagonals, final long count) {
+
+		keys[entry] = key;
+		descendingDiagonalsKeys[entry] = unusedDescendingDiagonals;
+		counts[entry] = count;
+		referenced[entry] = false;
+	}
+
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * Ratio of the reads finding their state.
+	 *
+	 * @return hit rate between 0 and 1, 0 without read
+	 */
+	public double getHitRate() {
+
+		final long hits = hitCount.sum();
+		final long reads = hits + missCount.sum();
+		return 0 == reads ? 0 : (double) hits / reads;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "Cache: %d entries, %d hits, %d misses (hit rate %.2f%%), %d evictions", Integer.valueOf(getCapacity()), Long.valueOf(getHitCount()), Long.valueOf(getMissCount()), Double.valueOf(getHitRate() * 100), Long.valueOf(getEvictionCount())); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,296 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+
+/**
+ * Classic N chess queens on a size N chessboard with bit-flags using the 8 symmetries of the chessboard (chessboard size up to 31).
+ *
+ * Only canonical solutions are searched, each one is counted with the size of its symmetries orbit:
+ * <ul>
+ * <li>with a queen in the corner of the first line, the second line queen is placed on the right of the column 1 queen (diagonal mirror), these solutions have 8 distinct symmetries</li>
+ * <li>otherwise the first line queen is placed on the left half and both borders are bounded so the first line queen is nearer of a corner than any other border queen, a solution is counted only if it is the smallest of its rotations: 2, 4 or 8 distinct symmetries if it is invariant by a 90 degrees, a 180 degrees or no rotation</li>
+ * </ul>
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SymmetricBitFlagsNQueensSolver extends GenericNQueensSolver {
+
+	/** Smallest chessboard size of the symmetric search, smaller chessboards are solved by the stacked bit-flags solver. */
+	private static final int MINIMUM_CHESSBOARD_SIZE = 5;
+
+	/** Precalculated constant. */
+	private final int chessboardSizeMinusOne;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final int bitFlagsMask;
+	/** Bit of the last column. */
+	private final int topBit;
+
+	/** Queen bit of each line. */
+	private final int[] chessboard;
+
+	/** Column of the first line queen or line of the column 1 queen bound. */
+	private int bound1;
+	/** Opposite bound of the first line queen. */
+	private int bound2;
+	/** Both borders columns mask. */
+	private int sideMask;
+	/** Forbidden columns of the last line. */
+	private int lastMask;
+	/** Last line queen bit of a solution invariant by a 180 degrees rotation. */
+	private int endBit;
+
+	/** Number of canonical solutions with 8 distinct symmetries. */
+	private long solutionCount8;
+	/** Number of canonical solutions invariant by a 180 degrees rotation. */
+	private long solutionCount4;
+	/** Number of canonical solutions invariant by a 90 degrees rotation. */
+	private long solutionCount2;
+
+	public SymmetricBitFlagsNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg) {
+
+		super(chessboardSizeArg, printSolutionArg);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSizeMinusOne = chessboardSizeArg - 1;
+		topBit = 1 << chessboardSizeMinusOne;
+
+		int mask = 0;
+		for (int i = 0; i < chessboardSizeArg; i++) {
+			mask |= 1 << i;
+		}
+		bitFlagsMask = mask;
+
+		chessboard = new int[chessboardSizeArg];
+	}
+
+	@Override
+	public long solve() {
+
+		// Very small chessboards have too few lines for the borders bounds, they are counted without symmetries
+		if (chessboardSize < MINIMUM_CHESSBOARD_SIZE) {
+			return solveWithoutSymmetries();
+		}
+
+		// Queen in the corner of the first line and the second line queen on the right of the column 1 queen
+		chessboard[0] = 1;
+		for (bound1 = 2; bound1 < chessboardSizeMinusOne; bound1++) {
+
+			final int bit = 1 << bound1;
+			chessboard[1] = bit;
+			solveCorner(2, (2 | bit) << 1, 1 | bit, bit >> 1);
+		}
+
+		// Queen on the left half of the first line but not in the corner
+		sideMask = topBit | 1;
+		lastMask = sideMask;
+		endBit = topBit >> 1;
+		for (bound1 = 1, bound2 = chessboardSize - 2; bound1 < bound2; bound1++, bound2--) {
+
+			final int bit = 1 << bound1;
+			chessboard[0] = bit;
+			solveBounded(1, bit << 1, bit, bit >> 1);
+
+			lastMask |= lastMask >> 1 | lastMask << 1;
+			endBit >>= 1;
+		}
+
+		solutionCount = solutionCount8 * 8 + solutionCount4 * 4 + solutionCount2 * 2;
+
+		return solutionCount;
+	}
+
+	/**
+	 * Count solutions of very small chessboards without symmetries: the 4x4 chessboard solutions are invariant by a 90 degrees rotation and the 1x1 chessboard single queen by all symmetries.
+	 *
+	 * @return number of solutions
+	 */
+	private long solveWithoutSymmetries() {
+
+		solutionCount = new StackedBitFlagsNQueensSolver(chessboardSize, false).solve();
+		solutionCount2 = solutionCount / 2;
+
+		return solutionCount;
+	}
+
+	/**
+	 * Solving recursive method with a queen in the corner of the first line.
+	 *
+	 * @param y line to place
+	 * @param unusedAscendingDiagonals ascending diagonals bit-flags of the line
+	 * @param unusedColumns columns bit-flags
+	 * @param unusedDescendingDiagonals descending diagonals bit-flags of the line
+	 */
+	private void solveCorner(final int y, final int unusedAscendingDiagonals, final int unusedColumns, final int unusedDescendingDiagonals) {
+
+		int bitFlags = bitFlagsMask & ~(unusedAscendingDiagonals | unusedColumns | unusedDescendingDiagonals);
+
+		// Last line: a free position is a solution with 8 distinct symmetries
+		if (y == chessboardSizeMinusOne) {
+			if (0 != bitFlags) {
+				chessboard[y] = bitFlags;
+				solutionCount8++;
+			}
+			return;
+		}
+
+		// Column 1 queen must be below the second line queen column (diagonal mirror)
+		if (y < bound1) {
+			bitFlags &= ~2;
+		}
+
+		while (0 != bitFlags) {
+			final int targetQueen = -bitFlags & bitFlags;
+			bitFlags ^= targetQueen;
+			chessboard[y] = targetQueen;
+			solveCorner(y + 1, (unusedAscendingDiagonals | targetQueen) << 1, unusedColumns | targetQueen, (unusedDescendingDiagonals | targetQueen) >> 1);
+		}
+	}
+
+	/**
+	 * Solving recursive method with a queen on the left half of the first line but not in the corner, borders queens are bounded by the first line queen.
+	 *
+	 * @param y line to place
+	 * @param unusedAscendingDiagonals ascending diagonals bit-flags of the line
+	 * @param unusedColumns columns bit-flags
+	 * @param unusedDescendingDiagonals descending diagonals bit-flags of the line
+	 */
+	private void solveBounded(final int y, final int unusedAscendingDiagonals, final int unusedColumns, final int unusedDescendingDiagonals) {
+
+		int bitFlags = bitFlagsMask & ~(unusedAscendingDiagonals | unusedColumns | unusedDescendingDiagonals);
+
+		// Last line: the queen must not be nearer of a corner than the first line queen
+		if (y == chessboardSizeMinusOne) {
+			if (0 != bitFlags && 0 == (bitFlags & lastMask)) {
+				chessboard[y] = bitFlags;
+				checkSymmetries();
+			}
+			return;
+		}
+
+		// Borders queens cannot be on the first lines
+		if (y < bound1) {
+			bitFlags &= ~sideMask;
+		}
+		// Borders queens must be placed before the opposite bound line
+		else if (y == bound2) {
+			if (0 == (unusedColumns & sideMask)) {
+				return;
+			}
+			if ((unusedColumns & sideMask) != sideMask) {
+				bitFlags &= sideMask;
+			}
+		}
+
+		while (0 != bitFlags) {
+			final int targetQueen = -bitFlags & bitFlags;
+			bitFlags ^= targetQueen;
+			chessboard[y] = targetQueen;
+			solveBounded(y + 1, (unusedAscendingDiagonals | targetQueen) << 1, unusedColumns | targetQueen, (unusedDescendingDiagonals | targetQueen) >> 1);
+		}
+	}
+
+	/**
+	 * Compare a solution with its rotations: count it only if it is the smallest one with the size of its symmetries orbit.
+	 */
+	private void checkSymmetries() {
+
+		int line;
+		int rotatedLine;
+		int comparedQueen;
+		int rotatedQueen;
+
+		// 90 degrees rotation
+		if (chessboard[bound2] == 1) {
+			for (rotatedQueen = 2, line = 1; line <= chessboardSizeMinusOne; line++, rotatedQueen <<= 1) {
+				comparedQueen = 1;
+				for (rotatedLine = chessboardSizeMinusOne; chessboard[rotatedLine] != rotatedQueen && chessboard[line] >= comparedQueen; rotatedLine--) {
+					comparedQueen <<= 1;
+				}
+				if (chessboard[line] > comparedQueen) {
+					return;
+				}
+				if (chessboard[line] < comparedQueen) {
+					break;
+				}
+			}
+			// Identical to its 90 degrees rotation
+			if (line > chessboardSizeMinusOne) {
+				solutionCount2++;
+				return;
+			}
+		}
+
+		// 180 degrees rotation
+		if (chessboard[chessboardSizeMinusOne] == endBit) {
+			for (rotatedLine = chessboardSizeMinusOne - 1, line = 1; line <= chessboardSizeMinusOne; line++, rotatedLine--) {
+				comparedQueen = 1;
+				for (rotatedQueen = topBit; rotatedQueen != chessboard[rotatedLine] && chessboard[line] >= comparedQueen; rotatedQueen >>= 1) {
+					comparedQueen <<= 1;
+				}
+				if (chessboard[line] > comparedQueen) {
+					return;
+				}
+				if (chessboard[line] < comparedQueen) {
+					break;
+				}
+			}
+			// Identical to its 180 degrees rotation
+			if (line > chessboardSizeMinusOne) {
+				solutionCount4++;
+				return;
+			}
+		}
+
+		// 270 degrees rotation
+		if (chessboard[bound1] == topBit) {
+			for (rotatedQueen = topBit >> 1, line = 1; line <= chessboardSizeMinusOne; line++, rotatedQueen >>= 1) {
+				comparedQueen = 1;
+				for (rotatedLine = 0; chessboard[rotatedLine] != rotatedQueen && chessboard[line] >= comparedQueen; rotatedLine++) {
+					comparedQueen <<= 1;
+				}
+				if (chessboard[line] > comparedQueen) {
+					return;
+				}
+				if (chessboard[line] < comparedQueen) {
+					break;
+				}
+			}
+		}
+
+		solutionCount8++;
+	}
+
+	/**
+	 * Number of unique solutions: solutions count without all symmetric solutions.
+	 *
+	 * @return unique solutions count of the last solve
+	 */
+	public long getUniqueSolutionCount() {
+
+		// A single queen is a unique solution invariant by all symmetries
+		if (1 == chessboardSize) {
+			return 1;
+		}
+		return solutionCount8 + solutionCount4 + solutionCount2;
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+		solutionCount8 = 0;
+		solutionCount4 = 0;
+		solutionCount2 = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		return 0 != (chessboard[y] & 1 << x);
+	}
+}
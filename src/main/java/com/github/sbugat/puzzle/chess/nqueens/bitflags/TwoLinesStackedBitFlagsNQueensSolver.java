@@ -0,0 +1,339 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import gnu.getopt.Getopt;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.tools.BenchmarkTools;
+import com.github.sbugat.puzzle.chess.nqueens.tools.InvalidSolutionsException;
+import com.github.sbugat.puzzle.chess.nqueens.tools.SequenceTools;
+
+/**
+ * Classic N chess queens on a size N chessboard with stacked int bit-flags placing 2 lines at each stack level (chessboard size up to 31).
+ *
+ * The free positions of the second line of a pair are computed once for the stack level without the first line queen, a precomputed table gives the second line columns compatible with each first line column: a pair of queens needs a single stack push. The last line is counted with a bit count.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class TwoLinesStackedBitFlagsNQueensSolver extends GenericNQueensSolver {
+
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final int bitFlagsMask;
+	/** Second line columns not attacked by a first line queen, for each column of the first line queen. */
+	private final int[] compatibleSecondLineColumns;
+
+	/** Stack level of the last pair of lines. */
+	private final int lastStacklevel;
+	/** The last pair of lines is followed by a single last line. */
+	private final boolean singleLastLine;
+
+	/** Stack for the free positions of the first line of a pair. */
+	private final int[] bitFlagsStack;
+	/** Stack for the free positions of the second line of a pair without the first line queen. */
+	private final int[] secondLineBitFlagsStack;
+	/** Stack for the remaining positions of the second line of a pair with the first line queen. */
+	private final int[] secondLineQueensStack;
+	/** Stack for the first line queen of a pair. */
+	private final int[] firstLineQueenStack;
+	private final int[] unusedColumnsStack;
+	private final int[] unusedAscendingDiagonalsStack;
+	private final int[] unusedDescendingDiagonalsStack;
+
+	public TwoLinesStackedBitFlagsNQueensSolver(final int chessboardSizeArg) {
+
+		super(chessboardSizeArg, false);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		bitFlagsMask = (int) ((1L << chessboardSizeArg) - 1);
+
+		compatibleSecondLineColumns = new int[chessboardSizeArg];
+		for (int column = 0; column < chessboardSizeArg; column++) {
+			final int queen = 1 << column;
+			compatibleSecondLineColumns[column] = bitFlagsMask & ~(queen | queen << 1 | queen >> 1);
+		}
+
+		// Lines after the first line are placed by pairs
+		final int pairs = (chessboardSizeArg - 1) / 2;
+		lastStacklevel = pairs - 1;
+		singleLastLine = 0 == chessboardSizeArg % 2;
+
+		final int stackSize = Math.max(1, pairs);
+		bitFlagsStack = new int[stackSize];
+		secondLineBitFlagsStack = new int[stackSize];
+		secondLineQueensStack = new int[stackSize];
+		firstLineQueenStack = new int[stackSize];
+		unusedColumnsStack = new int[stackSize];
+		unusedAscendingDiagonalsStack = new int[stackSize];
+		unusedDescendingDiagonalsStack = new int[stackSize];
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			unusedColumnsStack[0] = 1;
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		// Test half square of the first line
+		for (int x = 0; x < chessboardSize / 2; x++) {
+
+			final int queen = 1 << x;
+			solve(queen, queen << 1, queen >> 1, bitFlagsMask & ~(queen | queen << 1 | queen >> 1));
+		}
+
+		// If the chessboard size is odd, test with a queen on the middle of the first line
+		if (0 != chessboardSize % 2) {
+
+			final int x = chessboardSize / 2;
+			final int queen = 1 << x;
+
+			// Just test half of the positions of the second line because of mirroring
+			solve(queen, queen << 1, queen >> 1, (1 << x - 1) - 1);
+		}
+
+		// Multiply by 2 the solution count for the other half not calculated
+		solutionCount *= 2;
+
+		return solutionCount;
+	}
+
+	/**
+	 * Solving with iterative/stacking method by using bit flags 2 lines at a time, do a depth-first/back-tracking algorithm a queen must me placed on the first line.
+	 *
+	 * @param unusedColumns used columns bit-flags of the first line
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags of the second line
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags of the second line
+	 * @param bitFlags free positions of the second line
+	 */
+	private void solve(final int unusedColumns, final int unusedAscendingDiagonals, final int unusedDescendingDiagonals, int bitFlags) {
+
+		// 2x2 chessboard: the second line is the last line
+		if (lastStacklevel < 0) {
+			solutionCount += Integer.bitCount(bitFlags);
+			return;
+		}
+
+		int stacklevel = 0;
+		unusedColumnsStack[0] = unusedColumns;
+		unusedAscendingDiagonalsStack[0] = unusedAscendingDiagonals;
+		unusedDescendingDiagonalsStack[0] = unusedDescendingDiagonals;
+		secondLineBitFlagsStack[0] = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals << 1 | unusedDescendingDiagonals >> 1);
+
+		int firstLineQueen = 0;
+		int secondLineBitFlags = 0;
+		// Infinite loop, exit condition is tested when unstacking a pair of queens
+		while (true) {
+
+			// Next first line queen of the pair
+			if (0 == secondLineBitFlags) {
+
+				// If all positions of the first line of the pair have been tested
+				if (0 == bitFlags) {
+
+					// Exit if all possibilities are tested
+					if (0 == stacklevel) {
+						return;
+					}
+
+					// Backtrace process
+					stacklevel--;
+					bitFlags = bitFlagsStack[stacklevel];
+					firstLineQueen = firstLineQueenStack[stacklevel];
+					secondLineBitFlags = secondLineQueensStack[stacklevel];
+					continue;
+				}
+
+				firstLineQueen = -bitFlags & bitFlags;
+				bitFlags ^= firstLineQueen;
+				secondLineBitFlags = secondLineBitFlagsStack[stacklevel] & compatibleSecondLineColumns[Integer.numberOfTrailingZeros(firstLineQueen)];
+
+				// The second line of the pair is the last line: each free position is a solution
+				if (stacklevel >= lastStacklevel && !singleLastLine) {
+					solutionCount += Integer.bitCount(secondLineBitFlags);
+					secondLineBitFlags = 0;
+				}
+				continue;
+			}
+
+			final int secondLineQueen = -secondLineBitFlags & secondLineBitFlags;
+			secondLineBitFlags ^= secondLineQueen;
+
+			final int nextUnusedColumns = unusedColumnsStack[stacklevel] | firstLineQueen | secondLineQueen;
+			final int nextUnusedAscendingDiagonals = ((unusedAscendingDiagonalsStack[stacklevel] | firstLineQueen) << 1 | secondLineQueen) << 1;
+			final int nextUnusedDescendingDiagonals = ((unusedDescendingDiagonalsStack[stacklevel] | firstLineQueen) >> 1 | secondLineQueen) >> 1;
+			final int nextBitFlags = bitFlagsMask & ~(nextUnusedColumns | nextUnusedAscendingDiagonals | nextUnusedDescendingDiagonals);
+
+			// A single last line after the last pair: each free position is a solution
+			if (stacklevel >= lastStacklevel) {
+				solutionCount += Integer.bitCount(nextBitFlags);
+			}
+			else if (0 != nextBitFlags) {
+
+				// Go on to the next pair of lines
+				bitFlagsStack[stacklevel] = bitFlags;
+				firstLineQueenStack[stacklevel] = firstLineQueen;
+				secondLineQueensStack[stacklevel] = secondLineBitFlags;
+
+				stacklevel++;
+				unusedColumnsStack[stacklevel] = nextUnusedColumns;
+				unusedAscendingDiagonalsStack[stacklevel] = nextUnusedAscendingDiagonals;
+				unusedDescendingDiagonalsStack[stacklevel] = nextUnusedDescendingDiagonals;
+				secondLineBitFlagsStack[stacklevel] = bitFlagsMask & ~(nextUnusedColumns | nextUnusedAscendingDiagonals << 1 | nextUnusedDescendingDiagonals >> 1);
+
+				bitFlags = nextBitFlags;
+				secondLineBitFlags = 0;
+			}
+		}
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		final int lineQueen;
+		if (0 == y) {
+			lineQueen = unusedColumnsStack[0];
+		}
+		// 2x2 chessboard: no stacked pair of lines
+		else if (lastStacklevel < 0) {
+			lineQueen = 0;
+		}
+		// Stacked pair of lines, the second line queen is the other new column of the next stack level
+		else if ((y - 1) / 2 < lastStacklevel) {
+
+			final int pair = (y - 1) / 2;
+			if (1 == y % 2) {
+				lineQueen = firstLineQueenStack[pair];
+			}
+			else {
+				lineQueen = unusedColumnsStack[pair + 1] ^ unusedColumnsStack[pair] ^ firstLineQueenStack[pair];
+			}
+		}
+		// The last lines are counted without being stacked: first placement of the last lines after the last stack level
+		else {
+
+			final int firstLastLine = 2 * lastStacklevel + 1;
+			final int[] lastLinesQueens = new int[chessboardSize - firstLastLine];
+			if (placeLastLines(lastLinesQueens, 0, unusedColumnsStack[lastStacklevel], unusedAscendingDiagonalsStack[lastStacklevel], unusedDescendingDiagonalsStack[lastStacklevel])) {
+				lineQueen = lastLinesQueens[y - firstLastLine];
+			}
+			else {
+				lineQueen = 0;
+			}
+		}
+
+		return 0 != (lineQueen & 1 << x);
+	}
+
+	/**
+	 * Place the queens of the last lines, the first placement found is kept.
+	 *
+	 * @param lastLinesQueens queen of each last line
+	 * @param line last line to place
+	 * @param unusedColumns used columns bit-flags
+	 * @param unusedAscendingDiagonals used ascending diagonals bit-flags of the line
+	 * @param unusedDescendingDiagonals used descending diagonals bit-flags of the line
+	 * @return true if the last lines are placed
+	 */
+	private boolean placeLastLines(final int[] lastLinesQueens, final int line, final int unusedColumns, final int unusedAscendingDiagonals, final int unusedDescendingDiagonals) {
+
+		if (line == lastLinesQueens.length) {
+			return true;
+		}
+
+		int bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+		while (0 != bitFlags) {
+			final int targetQueen = -bitFlags & bitFlags;
+			bitFlags ^= targetQueen;
+			lastLinesQueens[line] = targetQueen;
+			if (placeLastLines(lastLinesQueens, line + 1, unusedColumns | targetQueen, (unusedAscendingDiagonals | targetQueen) << 1, (unusedDescendingDiagonals | targetQueen) >> 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Main program, count solutions and compare the speed with the single line stacked bit-flags solver.
+	 *
+	 * @param args options
+	 * @throws InvalidSolutionsException
+	 */
+	public static void main(final String args[]) throws InvalidSolutionsException {
+
+		final String usage = "Usage: " + TwoLinesStackedBitFlagsNQueensSolver.class.getSimpleName() + " [-n <size of the chessboard>] [-b <number of benchmark runs>] [-w <number of warmup runs>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(TwoLinesStackedBitFlagsNQueensSolver.class.getSimpleName(), args, ":n:b:w:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 8;
+		int benchmarkNumber = 0;
+		int warmupNumber = 0;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'b':
+					benchmarkNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'w':
+					warmupNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final NumberFormatException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 1 || chessboardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		final TwoLinesStackedBitFlagsNQueensSolver solver = new TwoLinesStackedBitFlagsNQueensSolver(chessboardSize);
+		final long solutionCount = solver.solve();
+
+		// End of the algorithm print the total of solution(s) found
+		System.out.println("Total number of solution(s):" + solutionCount); //$NON-NLS-1$
+
+		if (SequenceTools.isKnownChessboardSize(chessboardSize) && !SequenceTools.checkSolutionsFound(chessboardSize, solutionCount)) {
+
+			System.err.println("Invalid number of solutions found: " + solutionCount + " expected: " + SequenceTools.getExpectedSolutions(chessboardSize) + " check the algorithm."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+
+		if (benchmarkNumber > 0) {
+			System.out.println(BenchmarkTools.benchmark("two-lines-bit-flags", solver, warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+			System.out.println(BenchmarkTools.benchmark("int-bit-flags", new StackedBitFlagsNQueensSolver(chessboardSize, false), warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package com.github.sbugat.puzzle.chess.nqueens.bitflags;
+
+import gnu.getopt.Getopt;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.tools.BenchmarkTools;
+import com.github.sbugat.puzzle.chess.nqueens.tools.InvalidSolutionsException;
+
+/**
+ * N chess queens variants on a size N chessboard with stacked int bit-flags and pluggable attack rules (chessboard size up to 31).
+ *
+ * The search is the classic stacked bit-flags search, the {@link BitFlagsVariant} moves the diagonals from a line to the next one and adds the attacks of the queens of the 2 previous lines. For mirror symmetric rules, the queens of the left half of the first line are counted
+ * twice and the middle queen of an odd chessboard once.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class VariantStackedBitFlagsNQueensSolver extends GenericNQueensSolver {
+
+	/** Attack rules. */
+	private final BitFlagsVariant variant;
+
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final int bitFlagsMask;
+	/** Precalculated constant. */
+	private final int chessboardSizeMinusOne;
+
+	/** Stack for the remaining positions of each line. */
+	private final int[] bitFlagsStack;
+	/** Stack for the queen of each line, shifted by one line: the first element is an empty line before the chessboard. */
+	private final int[] queensStack;
+	private final int[] unusedColumnsStack;
+	private final int[] unusedAscendingDiagonalsStack;
+	private final int[] unusedDescendingDiagonalsStack;
+
+	public VariantStackedBitFlagsNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg, final BitFlagsVariant variantArg) {
+
+		super(chessboardSizeArg, printSolutionArg);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		variant = variantArg;
+		bitFlagsMask = (1 << chessboardSizeArg) - 1;
+		chessboardSizeMinusOne = chessboardSizeArg - 1;
+
+		bitFlagsStack = new int[chessboardSizeArg];
+		queensStack = new int[chessboardSizeArg + 1];
+		unusedColumnsStack = new int[chessboardSizeArg];
+		unusedAscendingDiagonalsStack = new int[chessboardSizeArg];
+		unusedDescendingDiagonalsStack = new int[chessboardSizeArg];
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			queensStack[1] = 1;
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		if (!variant.isMirrorSymmetric()) {
+			long count = 0;
+			for (int x = 0; x < chessboardSize; x++) {
+				count += count(1 << x);
+			}
+			solutionCount = count;
+			return solutionCount;
+		}
+
+		long halfSolutionCount = 0;
+		for (int x = 0; x < chessboardSize / 2; x++) {
+			halfSolutionCount += count(1 << x);
+		}
+
+		// Multiply by 2 the solution count for the other half not calculated, the middle queen solutions are mirrored in themselves
+		solutionCount = halfSolutionCount * 2;
+		if (0 != chessboardSize % 2) {
+			solutionCount += count(1 << chessboardSize / 2);
+		}
+		return solutionCount;
+	}
+
+	/**
+	 * Count the solutions with a queen on the first line.
+	 *
+	 * @param firstQueen single bit of the first line queen
+	 * @return number of solutions
+	 */
+	private long count(final int firstQueen) {
+
+		queensStack[1] = firstQueen;
+		unusedColumnsStack[0] = firstQueen;
+		unusedAscendingDiagonalsStack[0] = firstQueen;
+		unusedDescendingDiagonalsStack[0] = firstQueen;
+
+		long count = 0;
+		int line = 1;
+		int bitFlags = getFreeBitFlags(0);
+		// Infinite loop, exit condition is tested when unstacking a queen
+		while (true) {
+
+			// If all positions have been tested or are already blocked
+			if (0 == bitFlags) {
+
+				if (1 == line) {
+					return count;
+				}
+
+				// Backtrace process
+				bitFlags = bitFlagsStack[--line];
+				continue;
+			}
+
+			// Last line: each free position is a solution
+			if (line == chessboardSizeMinusOne) {
+				count += Integer.bitCount(bitFlags);
+				bitFlags = 0;
+				continue;
+			}
+
+			final int targetQueen = -bitFlags & bitFlags;
+			bitFlagsStack[line] = bitFlags ^ targetQueen;
+
+			// Go on to the next line
+			queensStack[line + 1] = targetQueen;
+			unusedColumnsStack[line] = unusedColumnsStack[line - 1] | targetQueen;
+			unusedAscendingDiagonalsStack[line] = variant.nextAscendingDiagonals(unusedAscendingDiagonalsStack[line - 1], chessboardSize) | targetQueen;
+			unusedDescendingDiagonalsStack[line] = variant.nextDescendingDiagonals(unusedDescendingDiagonalsStack[line - 1], chessboardSize) | targetQueen;
+			bitFlags = getFreeBitFlags(line);
+			line++;
+		}
+	}
+
+	/**
+	 * Free positions of the line after a placed line.
+	 *
+	 * @param line placed line
+	 * @return free positions bit-flags
+	 */
+	private int getFreeBitFlags(final int line) {
+
+		return bitFlagsMask & ~(unusedColumnsStack[line] | variant.nextAscendingDiagonals(unusedAscendingDiagonalsStack[line], chessboardSize) | variant.nextDescendingDiagonals(unusedDescendingDiagonalsStack[line], chessboardSize)
+				| variant.previousLineAttacks(queensStack[line + 1], chessboardSize) | variant.twoLinesBeforeAttacks(queensStack[line], chessboardSize));
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		final int lineQueen;
+		if (0 == y || y < chessboardSizeMinusOne) {
+			lineQueen = queensStack[y + 1];
+		}
+		// The last line queen is not stacked, it is the first free position of the last line
+		else {
+			final int bitFlags = getFreeBitFlags(chessboardSizeMinusOne - 1);
+			lineQueen = -bitFlags & bitFlags;
+		}
+
+		return 0 != (lineQueen & 1 << x);
+	}
+
+	/**
+	 * Main program, count the solutions of a variant and compare its speed with the classic solver.
+	 *
+	 * @param args options
+	 * @throws InvalidSolutionsException
+	 */
+	public static void main(final String args[]) throws InvalidSolutionsException {
+
+		final String usage = "Usage: " + VariantStackedBitFlagsNQueensSolver.class.getSimpleName() + " [-n <size of the chessboard>] [-v <variant: classic, toroidal, superqueen or toroidal_superqueen>] [-b <number of benchmark runs>] [-w <number of warmup runs>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(VariantStackedBitFlagsNQueensSolver.class.getSimpleName(), args, ":n:v:b:w:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 8;
+		BitFlagsVariants variant = BitFlagsVariants.CLASSIC;
+		int benchmarkNumber = 0;
+		int warmupNumber = 0;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'v':
+					variant = BitFlagsVariants.valueOf(getOpt.getOptarg().toUpperCase());
+					break;
+
+				case 'b':
+					benchmarkNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'w':
+					warmupNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final IllegalArgumentException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 1 || chessboardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		final VariantStackedBitFlagsNQueensSolver solver = new VariantStackedBitFlagsNQueensSolver(chessboardSize, false, variant);
+
+		final long solutionCount = solver.solve();
+
+		// End of the algorithm print the total of solution(s) found
+		System.out.println("Total number of " + variant.name().toLowerCase() + " solution(s):" + solutionCount); //$NON-NLS-1$ //$NON-NLS-2$
+
+		if (benchmarkNumber > 0) {
+			System.out.println(BenchmarkTools.benchmark(variant.name().toLowerCase() + "-bit-flags", solver, warmupNumber, benchmarkNumber, solutionCount)); //$NON-NLS-1$
+			System.out.println(BenchmarkTools.benchmark("int-bit-flags", new StackedBitFlagsNQueensSolver(chessboardSize, false), warmupNumber, benchmarkNumber)); //$NON-NLS-1$
+		}
+	}
+}
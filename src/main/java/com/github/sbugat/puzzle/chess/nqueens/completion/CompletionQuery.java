@@ -0,0 +1,111 @@
+package com.github.sbugat.puzzle.chess.nqueens.completion;
+
+import java.util.Arrays;
+
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+
+/**
+ * Partial chessboard to complete: queens already placed on some lines and blocked squares where no queen can be placed (chessboard size up to 63).
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class CompletionQuery {
+
+	/** Answer wanted for a query. */
+	public enum Mode {
+
+		/** 1 if the chessboard can be completed, 0 otherwise. */
+		EXISTS,
+		/** Number of completions. */
+		COUNT
+	}
+
+	/** Column value of a line without pre-placed queen. */
+	public static final int NO_QUEEN = -1;
+
+	/** Size of the chessboard. */
+	private final int chessboardSize;
+	/** Answer wanted. */
+	private final Mode mode;
+	/** Pre-placed queen column of each line or {@link #NO_QUEEN}. */
+	private final int[] queens;
+	/** Blocked squares bit-flags of each line. */
+	private final long[] blockedSquares;
+
+	public CompletionQuery(final int chessboardSizeArg, final Mode modeArg) {
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSize = chessboardSizeArg;
+		mode = modeArg;
+		queens = new int[chessboardSizeArg];
+		Arrays.fill(queens, NO_QUEEN);
+		blockedSquares = new long[chessboardSizeArg];
+	}
+
+	/**
+	 * Pre-place a queen, replacing the pre-placed queen of the line if any.
+	 *
+	 * @param x column of the queen
+	 * @param y line of the queen
+	 * @return this query
+	 */
+	public CompletionQuery placeQueen(final int x, final int y) {
+
+		checkSquare(x, y);
+		queens[y] = x;
+		return this;
+	}
+
+	/**
+	 * Forbid a square to the completion queens.
+	 *
+	 * @param x column of the square
+	 * @param y line of the square
+	 * @return this query
+	 */
+	public CompletionQuery blockSquare(final int x, final int y) {
+
+		checkSquare(x, y);
+		blockedSquares[y] |= 1L << x;
+		return this;
+	}
+
+	private void checkSquare(final int x, final int y) {
+
+		if (x < 0 || x >= chessboardSize || y < 0 || y >= chessboardSize) {
+			throw new IllegalArgumentException("Invalid square " + x + ',' + y); //$NON-NLS-1$
+		}
+	}
+
+	public int getChessboardSize() {
+		return chessboardSize;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Get the pre-placed queen of a line.
+	 *
+	 * @param y line
+	 * @return column of the queen or {@link #NO_QUEEN}
+	 */
+	public int getQueen(final int y) {
+		return queens[y];
+	}
+
+	/**
+	 * Get the blocked squares of a line.
+	 *
+	 * @param y line
+	 * @return blocked squares bit-flags
+	 */
+	public long getBlockedSquares(final int y) {
+		return blockedSquares[y];
+	}
+}
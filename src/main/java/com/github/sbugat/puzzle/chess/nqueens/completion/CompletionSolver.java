@@ -0,0 +1,235 @@
+package com.github.sbugat.puzzle.chess.nqueens.completion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completion of partial chessboards with stacked long bit-flags.
+ *
+ * Each line gets a mask of its allowed squares: the pre-placed queen square alone, or the squares not blocked and not attacked by a pre-placed queen of another line. The depth-first search then places a queen on each line like the counting solvers, without mirror since a partial
+ * chessboard is not symmetric.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class CompletionSolver {
+
+	/** Allowed squares bit-flags of each line. */
+	private final long[] allowedSquares;
+	/** Stack for the remaining positions. */
+	private final long[] bitFlagsStack;
+	private final long[] unusedColumnsStack;
+	private final long[] unusedAscendingDiagonalsStack;
+	private final long[] unusedDescendingDiagonalsStack;
+
+	/**
+	 * Create a solver reusable for queries of a chessboard size at most the maximum size.
+	 *
+	 * @param maximumChessboardSize maximum size of the chessboard of the queries
+	 */
+	public CompletionSolver(final int maximumChessboardSize) {
+
+		allowedSquares = new long[maximumChessboardSize];
+		bitFlagsStack = new long[maximumChessboardSize];
+		unusedColumnsStack = new long[maximumChessboardSize];
+		unusedAscendingDiagonalsStack = new long[maximumChessboardSize];
+		unusedDescendingDiagonalsStack = new long[maximumChessboardSize];
+	}
+
+	/**
+	 * Answer a query.
+	 *
+	 * @param query partial chessboard
+	 * @return 1 or 0 for an {@link CompletionQuery.Mode#EXISTS} query, the number of completions for a {@link CompletionQuery.Mode#COUNT} query
+	 */
+	public long solve(final CompletionQuery query) {
+
+		return count(query, CompletionQuery.Mode.EXISTS == query.getMode() ? 1 : Long.MAX_VALUE);
+	}
+
+	/**
+	 * Count the completions of a partial chessboard up to a limit.
+	 *
+	 * @param query partial chessboard
+	 * @param limit number of completions to stop the search at
+	 * @return number of completions, at most the limit
+	 */
+	public long count(final CompletionQuery query, final long limit) {
+
+		final int chessboardSize = query.getChessboardSize();
+		if (chessboardSize > allowedSquares.length) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSize); //$NON-NLS-1$
+		}
+
+		if (!seedAllowedSquares(query)) {
+			return 0;
+		}
+
+		long solutionCount = 0;
+		int stacklevel = 0;
+		long bitFlags = allowedSquares[0];
+		unusedColumnsStack[0] = 0;
+		unusedAscendingDiagonalsStack[0] = 0;
+		unusedDescendingDiagonalsStack[0] = 0;
+
+		while (true) {
+
+			// If all positions have been tested or are already blocked
+			while (0 == bitFlags) {
+
+				if (0 == stacklevel) {
+					return solutionCount;
+				}
+
+				// Backtrace process
+				bitFlags = bitFlagsStack[stacklevel--];
+			}
+
+			final long targetQueen = -bitFlags & bitFlags;
+			bitFlags ^= targetQueen;
+
+			// Last line: a completion is found
+			if (stacklevel == chessboardSize - 1) {
+
+				if (++solutionCount >= limit) {
+					return solutionCount;
+				}
+				continue;
+			}
+
+			// Go on to the next line
+			final int prevStacklevel = stacklevel++;
+			bitFlagsStack[stacklevel] = bitFlags;
+			bitFlags = allowedSquares[stacklevel] & ~((unusedColumnsStack[stacklevel] = unusedColumnsStack[prevStacklevel] | targetQueen) | (unusedAscendingDiagonalsStack[stacklevel] = (unusedAscendingDiagonalsStack[prevStacklevel] | targetQueen) << 1) | (unusedDescendingDiagonalsStack[stacklevel] = (unusedDescendingDiagonalsStack[prevStacklevel] | targetQueen) >>> 1));
+		}
+	}
+
+	/**
+	 * Compute the allowed squares of each line from the pre-placed queens and the blocked squares.
+	 *
+	 * @param query partial chessboard
+	 * @return false if a line has no allowed square
+	 */
+	private boolean seedAllowedSquares(final CompletionQuery query) {
+
+		final int chessboardSize = query.getChessboardSize();
+		final long bitFlagsMask = -1L >>> Long.SIZE - chessboardSize;
+
+		for (int y = 0; y < chessboardSize; y++) {
+
+			final int queen = query.getQueen(y);
+			if (CompletionQuery.NO_QUEEN == queen) {
+				allowedSquares[y] = bitFlagsMask & ~query.getBlockedSquares(y);
+			}
+			else {
+				allowedSquares[y] = 1L << queen;
+			}
+		}
+
+		// Remove the squares attacked by each pre-placed queen on the other lines
+		for (int queenLine = 0; queenLine < chessboardSize; queenLine++) {
+
+			final int queen = query.getQueen(queenLine);
+			if (CompletionQuery.NO_QUEEN == queen) {
+				continue;
+			}
+
+			for (int y = 0; y < chessboardSize; y++) {
+
+				if (y != queenLine) {
+					final int distance = Math.abs(y - queenLine);
+					long attacks = 1L << queen;
+					if (queen + distance < chessboardSize) {
+						attacks |= 1L << queen + distance;
+					}
+					if (queen - distance >= 0) {
+						attacks |= 1L << queen - distance;
+					}
+					allowedSquares[y] &= ~attacks;
+				}
+			}
+		}
+
+		for (int y = 0; y < chessboardSize; y++) {
+			if (0 == allowedSquares[y]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Answer a batch of queries in parallel on a fixed thread pool.
+	 *
+	 * @param queries partial chessboards
+	 * @param threadNumber number of threads of the pool
+	 * @return answer of each query in the queries order
+	 */
+	public static long[] solve(final List<CompletionQuery> queries, final int threadNumber) {
+
+		int maximumChessboardSize = 1;
+		for (final CompletionQuery query : queries) {
+			maximumChessboardSize = Math.max(maximumChessboardSize, query.getChessboardSize());
+		}
+
+		// One solver per thread, each thread takes the next query not answered yet
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+		try {
+			final long[] answers = new long[queries.size()];
+			final AtomicInteger nextQuery = new AtomicInteger();
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < threadNumber; thread++) {
+				futures.add(executorService.submit(new QueriesTask(queries, answers, nextQuery, maximumChessboardSize)));
+			}
+
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+			return answers;
+		}
+		catch (final ExecutionException e) {
+			throw new IllegalStateException("Query failed", e.getCause()); //$NON-NLS-1$
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted queries", e); //$NON-NLS-1$
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Task answering the queries of a thread.
+	 */
+	private static final class QueriesTask implements Callable<Void> {
+
+		private final List<CompletionQuery> queries;
+		private final long[] answers;
+		private final AtomicInteger nextQuery;
+		private final int maximumChessboardSize;
+
+		QueriesTask(final List<CompletionQuery> queriesArg, final long[] answersArg, final AtomicInteger nextQueryArg, final int maximumChessboardSizeArg) {
+			queries = queriesArg;
+			answers = answersArg;
+			nextQuery = nextQueryArg;
+			maximumChessboardSize = maximumChessboardSizeArg;
+		}
+
+		@Override
+		public Void call() {
+
+			final CompletionSolver solver = new CompletionSolver(maximumChessboardSize);
+			for (int i = nextQuery.getAndIncrement(); i < queries.size(); i = nextQuery.getAndIncrement()) {
+				answers[i] = solver.solve(queries.get(i));
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,332 @@
+package com.github.sbugat.puzzle.chess.nqueens.distributed;
+
+import gnu.getopt.Getopt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.BitFlagsPrefix;
+import com.github.sbugat.puzzle.chess.nqueens.tools.SequenceTools;
+
+/**
+ * Coordinator of N chess queens workers processes: the left half of the chessboard is split into prefixes work units sent over TCP to the connected workers (see {@link NQueensWorker}).
+ *
+ * Protocol: the coordinator sends the chessboard size to a new worker, then each work unit as its number, line and 3 bit-flags. The worker answers the work unit number and its solutions count. A negative work unit number ends the worker. Work units of a lost worker or of a worker not answering before the work unit timeout are queued again for the other workers.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class NQueensCoordinator {
+
+	/** Default TCP port of the coordinator. */
+	public static final int DEFAULT_PORT = 5670;
+	/** Work unit number ending a worker. */
+	static final int END_OF_WORK = -1;
+	/** Default wait time of a work unit count before its worker is considered lost. */
+	public static final int DEFAULT_WORK_UNIT_TIMEOUT_SECONDS = 3600;
+
+	/** Wait time of a worker connection for a pending work unit before checking the end of the work. */
+	private static final long POLL_TIMEOUT_MILLISECONDS = 200;
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Prefixes of all work units. */
+	private final List<BitFlagsPrefix> workUnits;
+	/** Wait time of a work unit count in milliseconds, 0 to wait forever. */
+	private final int workUnitTimeoutMilliseconds;
+
+	/** Work units not sent or sent to a lost worker. */
+	private final BlockingDeque<Integer> pendingWorkUnits = new LinkedBlockingDeque<>();
+	/** Completed work units. */
+	private final BitSet completedWorkUnits;
+	/** Count down of the remaining work units. */
+	private final CountDownLatch remainingWorkUnits;
+	/** Sum of completed work units solutions. */
+	private long halfSolutionCount;
+
+	public NQueensCoordinator(final int chessboardSizeArg, final int workUnitsLine) {
+
+		this(chessboardSizeArg, workUnitsLine, (int) TimeUnit.SECONDS.toMillis(DEFAULT_WORK_UNIT_TIMEOUT_SECONDS));
+	}
+
+	/**
+	 * Create a coordinator of the mirror work units of a line.
+	 *
+	 * @param chessboardSizeArg size of the chessboard
+	 * @param workUnitsLine line of the work units prefixes
+	 * @param workUnitTimeoutMillisecondsArg wait time of a work unit count before its worker is considered lost and the work unit queued again, 0 to wait forever
+	 */
+	public NQueensCoordinator(final int chessboardSizeArg, final int workUnitsLine, final int workUnitTimeoutMillisecondsArg) {
+
+		if (chessboardSizeArg < 2 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSize = chessboardSizeArg;
+		workUnitTimeoutMilliseconds = workUnitTimeoutMillisecondsArg;
+		workUnits = BitFlagsPrefix.mirrorWorkUnits(chessboardSizeArg, new LongBitFlagsSubtreeCounter(chessboardSizeArg).getBitFlagsMask(), workUnitsLine);
+
+		completedWorkUnits = new BitSet(workUnits.size());
+		remainingWorkUnits = new CountDownLatch(workUnits.size());
+		for (int workUnit = 0; workUnit < workUnits.size(); workUnit++) {
+			pendingWorkUnits.add(Integer.valueOf(workUnit));
+		}
+	}
+
+	/**
+	 * Accept workers connections until all work units are completed, workers connected after the end of the work are ended until the server socket is closed.
+	 *
+	 * @param serverSocket bound server socket, closed by the caller
+	 * @return number of solutions
+	 * @throws InterruptedException if interrupted while waiting for the work units
+	 */
+	public long solve(final ServerSocket serverSocket) throws InterruptedException {
+
+		final Thread acceptThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+
+				try {
+					while (!serverSocket.isClosed()) {
+						final Socket socket = serverSocket.accept();
+						// Not a daemon thread like the accept thread: the end of the work must be sent to the worker before exiting
+						final Thread connectionThread = new Thread(new WorkerConnection(socket), "worker-" + socket.getRemoteSocketAddress()); //$NON-NLS-1$
+						connectionThread.setDaemon(false);
+						connectionThread.start();
+					}
+				}
+				catch (final SocketException e) {
+					// Server socket closed at the end of the work
+				}
+				catch (final IOException e) {
+					// Already connected workers go on with the pending work units
+					System.err.println("Workers connections no longer accepted: " + e.getMessage()); //$NON-NLS-1$
+				}
+			}
+		}, "coordinator-accept"); //$NON-NLS-1$
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+
+		remainingWorkUnits.await();
+
+		// Multiply by 2 the solution count for the other half not calculated
+		synchronized (this) {
+			return halfSolutionCount * 2;
+		}
+	}
+
+	/**
+	 * Add the solutions of a completed work unit, a work unit already completed is ignored.
+	 *
+	 * @param workUnit work unit number
+	 * @param solutionCount solutions count of the work unit
+	 */
+	private synchronized void complete(final int workUnit, final long solutionCount) {
+
+		if (!completedWorkUnits.get(workUnit)) {
+			completedWorkUnits.set(workUnit);
+			halfSolutionCount += solutionCount;
+			remainingWorkUnits.countDown();
+		}
+	}
+
+	/**
+	 * Connection to a worker sending pending work units one by one.
+	 */
+	private final class WorkerConnection implements Runnable {
+
+		private final Socket socket;
+
+		WorkerConnection(final Socket socketArg) {
+			socket = socketArg;
+		}
+
+		@Override
+		public void run() {
+
+			Integer workUnit = null;
+			try (final Socket workerSocket = socket; final DataInputStream input = new DataInputStream(new BufferedInputStream(workerSocket.getInputStream())); final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(workerSocket.getOutputStream()))) {
+
+				workerSocket.setKeepAlive(true);
+				// A hung worker is lost after the timeout, its work unit is queued again
+				workerSocket.setSoTimeout(workUnitTimeoutMilliseconds);
+				output.writeInt(chessboardSize);
+				output.flush();
+
+				while (true) {
+
+					workUnit = pendingWorkUnits.poll(POLL_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS);
+					if (null == workUnit) {
+
+						// All work units are completed, end the worker
+						if (0 == remainingWorkUnits.getCount()) {
+							output.writeInt(END_OF_WORK);
+							output.flush();
+							return;
+						}
+						continue;
+					}
+
+					final BitFlagsPrefix prefix = workUnits.get(workUnit.intValue());
+					output.writeInt(workUnit.intValue());
+					output.writeInt(prefix.getLine());
+					output.writeLong(prefix.getUnusedColumns());
+					output.writeLong(prefix.getUnusedAscendingDiagonals());
+					output.writeLong(prefix.getUnusedDescendingDiagonals());
+					output.flush();
+
+					final int completedWorkUnit = input.readInt();
+					final long solutionCount = input.readLong();
+					if (completedWorkUnit != workUnit.intValue()) {
+						throw new IOException("Unexpected work unit " + completedWorkUnit + " instead of " + workUnit); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					complete(completedWorkUnit, solutionCount);
+					workUnit = null;
+				}
+			}
+			catch (final IOException e) {
+				System.err.println("Worker " + socket.getRemoteSocketAddress() + " lost: " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				// Queue again the work unit of a lost worker in first position
+				if (null != workUnit) {
+					pendingWorkUnits.addFirst(workUnit);
+				}
+			}
+		}
+	}
+
+	public int getWorkUnitsCount() {
+		return workUnits.size();
+	}
+
+	/**
+	 * Start a local worker process with the same java and class path.
+	 *
+	 * @param port coordinator port
+	 * @return worker process
+	 * @throws IOException if the process cannot be started
+	 */
+	private static Process startLocalWorker(final int port) throws IOException {
+
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		final ProcessBuilder processBuilder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), NQueensWorker.class.getName(), "-h", "localhost", "-p", String.valueOf(port)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		processBuilder.inheritIO();
+		return processBuilder.start();
+	}
+
+	/**
+	 * Main program.
+	 *
+	 * @param args options
+	 * @throws IOException if the coordinator port cannot be bound
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public static void main(final String args[]) throws IOException, InterruptedException {
+
+		final String usage = "Usage: " + NQueensCoordinator.class.getSimpleName() + " [-n <size of the chessboard>] [-k <line of the work units>] [-p <port>] [-w <number of local workers to start>] [-o <work unit timeout in seconds, 0 to wait forever>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(NQueensCoordinator.class.getSimpleName(), args, ":n:k:p:w:o:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 8;
+		int workUnitsLine = 3;
+		int port = DEFAULT_PORT;
+		int localWorkers = 0;
+		int workUnitTimeoutSeconds = DEFAULT_WORK_UNIT_TIMEOUT_SECONDS;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'k':
+					workUnitsLine = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'p':
+					port = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'w':
+					localWorkers = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'o':
+					workUnitTimeoutSeconds = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final NumberFormatException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 2 || chessboardSize > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || workUnitsLine < 1 || localWorkers < 0 || workUnitTimeoutSeconds < 0 || workUnitTimeoutSeconds > Integer.MAX_VALUE / 1000) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		final NQueensCoordinator coordinator = new NQueensCoordinator(chessboardSize, workUnitsLine, (int) TimeUnit.SECONDS.toMillis(workUnitTimeoutSeconds));
+
+		final List<Process> workerProcesses = new ArrayList<>();
+		try (final ServerSocket serverSocket = new ServerSocket(port)) {
+
+			System.out.println("Coordinator listening on port " + serverSocket.getLocalPort() + " with " + coordinator.getWorkUnitsCount() + " work units"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+			// Without work unit the coordinator ends before the workers connect
+			for (int i = 0; 0 != coordinator.getWorkUnitsCount() && i < localWorkers; i++) {
+				workerProcesses.add(startLocalWorker(serverSocket.getLocalPort()));
+			}
+
+			final long solutionCount = coordinator.solve(serverSocket);
+
+			// End of the algorithm print the total of solution(s) found
+			System.out.println("Total number of solution(s):" + solutionCount); //$NON-NLS-1$
+
+			if (SequenceTools.isKnownChessboardSize(chessboardSize) && !SequenceTools.checkSolutionsFound(chessboardSize, solutionCount)) {
+
+				System.err.println("Invalid number of solutions found: " + solutionCount + " expected: " + SequenceTools.getExpectedSolutions(chessboardSize) + " check the algorithm."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+		finally {
+			for (final Process workerProcess : workerProcesses) {
+				workerProcess.waitFor();
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.github.sbugat.puzzle.chess.nqueens.distributed;
+
+import gnu.getopt.Getopt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+
+/**
+ * Worker process counting the solutions of the work units sent by a {@link NQueensCoordinator}.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class NQueensWorker {
+
+	/** Number of connection attempts while the coordinator is not started. */
+	private static final int CONNECTION_ATTEMPTS = 10;
+	/** Wait time between 2 connection attempts. */
+	private static final long CONNECTION_RETRY_MILLISECONDS = 1000;
+
+	private NQueensWorker() {
+		// Main class
+	}
+
+	/**
+	 * Count work units until the coordinator ends the work.
+	 *
+	 * @param socket connection to the coordinator
+	 * @return number of work units counted
+	 * @throws IOException if the connection is lost
+	 */
+	public static int work(final Socket socket) throws IOException {
+
+		try (final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream())); final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+			final LongBitFlagsSubtreeCounter counter = new LongBitFlagsSubtreeCounter(input.readInt());
+
+			int workUnitsCount = 0;
+			int workUnit = input.readInt();
+			while (NQueensCoordinator.END_OF_WORK != workUnit) {
+
+				final int line = input.readInt();
+				final long unusedColumns = input.readLong();
+				final long unusedAscendingDiagonals = input.readLong();
+				final long unusedDescendingDiagonals = input.readLong();
+
+				final long solutionCount = counter.count(line, unusedColumns, unusedAscendingDiagonals, unusedDescendingDiagonals);
+
+				output.writeInt(workUnit);
+				output.writeLong(solutionCount);
+				output.flush();
+
+				workUnitsCount++;
+				workUnit = input.readInt();
+			}
+
+			return workUnitsCount;
+		}
+	}
+
+	/**
+	 * Main program.
+	 *
+	 * @param args options
+	 * @throws IOException if the connection is lost
+	 * @throws InterruptedException if interrupted while waiting for the coordinator
+	 */
+	public static void main(final String args[]) throws IOException, InterruptedException {
+
+		final String usage = "Usage: " + NQueensWorker.class.getSimpleName() + " [-h <coordinator host>] [-p <coordinator port>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(NQueensWorker.class.getSimpleName(), args, ":h:p:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		String host = "localhost"; //$NON-NLS-1$
+		int port = NQueensCoordinator.DEFAULT_PORT;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			switch (c) {
+
+			case 'h':
+				host = getOpt.getOptarg();
+				break;
+
+			case 'p':
+				try {
+					port = Integer.parseInt(getOpt.getOptarg());
+				}
+				catch (final NumberFormatException e) {
+					System.err.println(usage);
+					System.exit(1);
+				}
+				break;
+
+			case '?':
+			default:
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		// Wait for the coordinator to be started
+		for (int attempt = 1;; attempt++) {
+
+			try (final Socket socket = new Socket(host, port)) {
+				socket.setKeepAlive(true);
+				System.out.println("Worker done: " + work(socket) + " work unit(s) counted"); //$NON-NLS-1$ //$NON-NLS-2$
+				return;
+			}
+			catch (final ConnectException e) {
+				if (attempt >= CONNECTION_ATTEMPTS) {
+					throw e;
+				}
+				Thread.sleep(CONNECTION_RETRY_MILLISECONDS);
+			}
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import gnu.getopt.Getopt;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+
+/**
+ * Classic N chess queens on a size N chessboard solved asynchronously with long bit-flags work units (chessboard size up to 63).
+ *
+ * The solve can be stopped without killing threads: cancelling the returned future, reaching a deadline or exhausting a nodes budget stops each work unit search cooperatively, stop conditions are checked every {@link #CHECK_INTERVAL} queens placed. A solve stopped by the deadline
+ * or the budget completes with its partial progress, a cancelled solve completes with a cancellation.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class AsyncBitFlagsNQueensSolver {
+
+	/** No deadline or no nodes budget. */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	/** Number of queens placed between 2 checks of the stop conditions, the nodes budget can be exceeded by this number for each thread. */
+	public static final int CHECK_INTERVAL = LongBitFlagsSubtreeCounter.CHECK_INTERVAL;
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Prefixes of all work units. */
+	private final List<BitFlagsPrefix> workUnits;
+
+	public AsyncBitFlagsNQueensSolver(final int chessboardSizeArg, final int workUnitsLine) {
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSize = chessboardSizeArg;
+
+		// The single solution of the 1x1 chessboard has no mirror: a first line prefix counted once
+		if (1 == chessboardSizeArg) {
+			workUnits = null;
+		}
+		else {
+			workUnits = BitFlagsPrefix.mirrorWorkUnits(chessboardSizeArg, new LongBitFlagsSubtreeCounter(chessboardSizeArg).getBitFlagsMask(), workUnitsLine);
+		}
+	}
+
+	/**
+	 * Start a solve, each work unit is a task of the executor.
+	 *
+	 * @param executor executor of the work units tasks
+	 * @param timeoutMillis time before the solve is stopped with its partial progress in milliseconds or {@link #UNLIMITED}
+	 * @param nodeBudget number of queens to place before the solve is stopped with its partial progress or {@link #UNLIMITED}
+	 * @return future of the result, cancelling it stops the solve
+	 */
+	public CompletableFuture<AsyncSolveResult> solveAsync(final Executor executor, final long timeoutMillis, final long nodeBudget) {
+
+		if (1 == chessboardSize) {
+			return CompletableFuture.completedFuture(new AsyncSolveResult(AsyncSolveResult.Status.COMPLETED, 1, 1, 0, 0));
+		}
+
+		final long deadline = UNLIMITED == timeoutMillis ? UNLIMITED : System.nanoTime() + timeoutMillis * 1_000_000;
+		final SolveControl solveControl = new SolveControl(deadline, nodeBudget);
+
+		final CompletableFuture<?>[] workUnitsFutures = new CompletableFuture<?>[workUnits.size()];
+		for (int workUnit = 0; workUnit < workUnits.size(); workUnit++) {
+
+			final BitFlagsPrefix prefix = workUnits.get(workUnit);
+			workUnitsFutures[workUnit] = CompletableFuture.runAsync(() -> solveControl.count(chessboardSize, prefix), executor);
+		}
+
+		final CompletableFuture<AsyncSolveResult> resultFuture = CompletableFuture.allOf(workUnitsFutures).thenApply(v -> solveControl.getResult(workUnits.size()));
+
+		// A cancelled result stops the remaining work units
+		resultFuture.whenComplete((result, throwable) -> {
+			if (resultFuture.isCancelled()) {
+				solveControl.stop(null);
+			}
+		});
+
+		return resultFuture;
+	}
+
+	/**
+	 * Stop conditions and progress shared by the work units of a solve.
+	 */
+	private static final class SolveControl implements LongBitFlagsSubtreeCounter.SearchControl {
+
+		/** Marker of a cancelled solve. */
+		private static final Object CANCELLED = new Object();
+
+		/** Deadline of System.nanoTime() or {@link AsyncBitFlagsNQueensSolver#UNLIMITED}. */
+		private final long deadline;
+		/** Remaining nodes budget, reserved by intervals of nodes. */
+		private final AtomicLong remainingNodes;
+
+		/** Stop reason: a status, {@link #CANCELLED} or null while running. */
+		private final AtomicReference<Object> stopReason = new AtomicReference<>();
+		/** Stop flag read by the search loops. */
+		private volatile boolean stopped;
+
+		private final LongAdder halfSolutionCount = new LongAdder();
+		private final LongAdder nodeCount = new LongAdder();
+		private final AtomicInteger completedWorkUnits = new AtomicInteger();
+
+		SolveControl(final long deadlineArg, final long nodeBudget) {
+
+			deadline = deadlineArg;
+			remainingNodes = new AtomicLong(nodeBudget);
+		}
+
+		/**
+		 * Stop the solve, only the first stop reason is kept.
+		 *
+		 * @param status stop status or null for a cancellation
+		 */
+		void stop(final AsyncSolveResult.Status status) {
+
+			stopReason.compareAndSet(null, null == status ? CANCELLED : status);
+			stopped = true;
+		}
+
+		/**
+		 * Check the stop conditions and reserve the next nodes interval.
+		 *
+		 * @return true if the search must stop
+		 */
+		private boolean checkStop() {
+
+			if (stopped) {
+				return true;
+			}
+			if (UNLIMITED != deadline && System.nanoTime() - deadline >= 0) {
+				stop(AsyncSolveResult.Status.DEADLINE_EXCEEDED);
+				return true;
+			}
+			if (UNLIMITED != remainingNodes.get() && remainingNodes.addAndGet(-CHECK_INTERVAL) < 0) {
+				stop(AsyncSolveResult.Status.BUDGET_EXHAUSTED);
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Count the solutions of a work unit sub-tree until it is completed or the solve is stopped.
+		 *
+		 * @param chessboardSize size of the chessboard
+		 * @param prefix work unit prefix
+		 */
+		void count(final int chessboardSize, final BitFlagsPrefix prefix) {
+
+			if (checkStop()) {
+				return;
+			}
+
+			final LongBitFlagsSubtreeCounter counter = new LongBitFlagsSubtreeCounter(chessboardSize);
+			halfSolutionCount.add(counter.count(prefix.getLine(), prefix.getUnusedColumns(), prefix.getUnusedAscendingDiagonals(), prefix.getUnusedDescendingDiagonals(), this));
+			nodeCount.add(counter.getNodeCount());
+			if (counter.isCompleted()) {
+				completedWorkUnits.incrementAndGet();
+			}
+		}
+
+		@Override
+		public boolean check(final long nodes, final long solutionCount) {
+			return checkStop();
+		}
+
+		AsyncSolveResult getResult(final int workUnitsCount) {
+
+			final Object reason = stopReason.get();
+			final AsyncSolveResult.Status status = reason instanceof AsyncSolveResult.Status && completedWorkUnits.get() < workUnitsCount ? (AsyncSolveResult.Status) reason : AsyncSolveResult.Status.COMPLETED;
+
+			// Multiply by 2 the solution count for the other half not calculated
+			return new AsyncSolveResult(status, halfSolutionCount.sum() * 2, nodeCount.sum(), completedWorkUnits.get(), workUnitsCount);
+		}
+	}
+
+	/**
+	 * Main program, solve with a deadline and a nodes budget and print the result or the partial progress.
+	 *
+	 * @param args options
+	 * @throws InterruptedException if interrupted while waiting for the result
+	 */
+	public static void main(final String args[]) throws InterruptedException {
+
+		final String usage = "Usage: " + AsyncBitFlagsNQueensSolver.class.getSimpleName() + " [-n <size of the chessboard>] [-t <number of threads>] [-d <deadline in milliseconds>] [-m <maximum number of nodes>]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(AsyncBitFlagsNQueensSolver.class.getSimpleName(), args, ":n:t:d:m:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 8;
+		int threadNumber = Runtime.getRuntime().availableProcessors();
+		long timeoutMillis = UNLIMITED;
+		long nodeBudget = UNLIMITED;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 't':
+					threadNumber = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'd':
+					timeoutMillis = Long.parseLong(getOpt.getOptarg());
+					break;
+
+				case 'm':
+					nodeBudget = Long.parseLong(getOpt.getOptarg());
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final NumberFormatException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 1 || chessboardSize > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || threadNumber < 1) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		final int workUnitsLine = chessboardSize < 2 ? 1 : BitFlagsPrefix.findSplitLine(chessboardSize, new LongBitFlagsSubtreeCounter(chessboardSize).getBitFlagsMask(), threadNumber * 64);
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+		try {
+			System.out.println(new AsyncBitFlagsNQueensSolver(chessboardSize, workUnitsLine).solveAsync(executorService, timeoutMillis, nodeBudget).get());
+		}
+		catch (final ExecutionException e) {
+			throw new IllegalStateException("Solve failed", e.getCause()); //$NON-NLS-1$
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+/**
+ * Result of an asynchronous solve: complete solutions count or partial progress of a stopped solve.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class AsyncSolveResult {
+
+	/** End reason of a solve. */
+	public enum Status {
+
+		/** All work units are counted, the solutions count is exact. */
+		COMPLETED,
+		/** The deadline is reached before all work units are counted. */
+		DEADLINE_EXCEEDED,
+		/** The nodes budget is exhausted before all work units are counted. */
+		BUDGET_EXHAUSTED
+	}
+
+	private final Status status;
+	/** Solutions found by the explored part of the tree and their mirrors. */
+	private final long solutionCount;
+	/** Number of queens placed. */
+	private final long nodeCount;
+	private final int completedWorkUnits;
+	private final int workUnitsCount;
+
+	AsyncSolveResult(final Status statusArg, final long solutionCountArg, final long nodeCountArg, final int completedWorkUnitsArg, final int workUnitsCountArg) {
+
+		status = statusArg;
+		solutionCount = solutionCountArg;
+		nodeCount = nodeCountArg;
+		completedWorkUnits = completedWorkUnitsArg;
+		workUnitsCount = workUnitsCountArg;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public boolean isCompleted() {
+		return Status.COMPLETED == status;
+	}
+
+	/**
+	 * Get the solutions count, exact if the solve is completed or a lower bound otherwise.
+	 *
+	 * @return solutions count
+	 */
+	public long getSolutionCount() {
+		return solutionCount;
+	}
+
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getCompletedWorkUnits() {
+		return completedWorkUnits;
+	}
+
+	public int getWorkUnitsCount() {
+		return workUnitsCount;
+	}
+
+	@Override
+	public String toString() {
+		return status + " solutions:" + solutionCount + " nodes:" + nodeCount + " work units:" + completedWorkUnits + '/' + workUnitsCount; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
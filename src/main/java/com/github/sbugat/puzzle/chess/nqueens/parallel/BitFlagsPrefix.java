@@ -0,0 +1,166 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Placed first lines of a N chess queens search: next line to place and long bit-flags of used columns and diagonals (diagonals bit-flags are already shifted for the next line).
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class BitFlagsPrefix {
+
+	/** Next line to place. */
+	private final int line;
+	private final long unusedColumns;
+	private final long unusedAscendingDiagonals;
+	private final long unusedDescendingDiagonals;
+
+	public BitFlagsPrefix(final int lineArg, final long unusedColumnsArg, final long unusedAscendingDiagonalsArg, final long unusedDescendingDiagonalsArg) {
+
+		line = lineArg;
+		unusedColumns = unusedColumnsArg;
+		unusedAscendingDiagonals = unusedAscendingDiagonalsArg;
+		unusedDescendingDiagonals = unusedDescendingDiagonalsArg;
+	}
+
+	/**
+	 * Place a queen on the next line.
+	 *
+	 * @param targetQueen single bit of the queen column
+	 * @return prefix with one more line
+	 */
+	public BitFlagsPrefix place(final long targetQueen) {
+
+		return new BitFlagsPrefix(line + 1, unusedColumns | targetQueen, (unusedAscendingDiagonals | targetQueen) << 1, (unusedDescendingDiagonals | targetQueen) >>> 1);
+	}
+
+	/**
+	 * Free positions of the next line.
+	 *
+	 * @param bitFlagsMask bit-flags mask of the chessboard size
+	 * @return free positions bit-flags
+	 */
+	public long getFreeBitFlags(final long bitFlagsMask) {
+
+		return bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+	}
+
+	/**
+	 * First lines of the left half of the chessboard, solutions of these prefixes must be multiplied by 2 for the mirrored half. For an odd chessboard size, the middle queen of the first line is placed with a queen on the left half of the second line.
+	 *
+	 * @param chessboardSize size of the chessboard (at least 2)
+	 * @return mirror roots prefixes in depth-first order
+	 */
+	public static List<BitFlagsPrefix> mirrorRoots(final int chessboardSize) {
+
+		final List<BitFlagsPrefix> roots = new ArrayList<>();
+		final BitFlagsPrefix emptyChessboard = new BitFlagsPrefix(0, 0L, 0L, 0L);
+
+		// Test half square of the first line
+		for (int x = 0; x < chessboardSize / 2; x++) {
+			roots.add(emptyChessboard.place(1L << x));
+		}
+
+		// If the chessboard size is odd, test with a queen on the middle of the first line and only on the left half of the second line because of mirroring
+		if (0 != chessboardSize % 2) {
+
+			final int x = chessboardSize / 2;
+			final BitFlagsPrefix middleQueen = emptyChessboard.place(1L << x);
+			for (int i = 0; i < x - 1; i++) {
+				roots.add(middleQueen.place(1L << i));
+			}
+		}
+
+		return roots;
+	}
+
+	/**
+	 * Expand prefixes up to a line, prefixes without any free position left are dropped.
+	 *
+	 * @param prefixes prefixes to expand
+	 * @param bitFlagsMask bit-flags mask of the chessboard size
+	 * @param targetLine line of the expanded prefixes
+	 * @return expanded prefixes in depth-first order
+	 */
+	public static List<BitFlagsPrefix> expand(final List<BitFlagsPrefix> prefixes, final long bitFlagsMask, final int targetLine) {
+
+		final List<BitFlagsPrefix> expandedPrefixes = new ArrayList<>();
+		for (final BitFlagsPrefix prefix : prefixes) {
+			prefix.expand(bitFlagsMask, targetLine, expandedPrefixes);
+		}
+		return expandedPrefixes;
+	}
+
+	/**
+	 * Recursive expansion of a prefix.
+	 *
+	 * @param bitFlagsMask bit-flags mask of the chessboard size
+	 * @param targetLine line of the expanded prefixes
+	 * @param expandedPrefixes expanded prefixes list to fill
+	 */
+	private void expand(final long bitFlagsMask, final int targetLine, final List<BitFlagsPrefix> expandedPrefixes) {
+
+		// Target line reached or complete chessboard
+		if (line >= targetLine || line >= Long.bitCount(bitFlagsMask)) {
+			expandedPrefixes.add(this);
+			return;
+		}
+
+		long bitFlags = getFreeBitFlags(bitFlagsMask);
+		while (0 != bitFlags) {
+			final long targetQueen = -bitFlags & bitFlags;
+			place(targetQueen).expand(bitFlagsMask, targetLine, expandedPrefixes);
+			bitFlags ^= targetQueen;
+		}
+	}
+
+	/**
+	 * Work units of a chessboard: mirror roots expanded up to a line, the index of a prefix in the list is its work unit number. Solutions of these prefixes must be multiplied by 2 for the mirrored half.
+	 *
+	 * @param chessboardSize size of the chessboard (at least 2)
+	 * @param bitFlagsMask bit-flags mask of the chessboard size
+	 * @param line line of the work units prefixes
+	 * @return work units prefixes in depth-first order
+	 */
+	public static List<BitFlagsPrefix> mirrorWorkUnits(final int chessboardSize, final long bitFlagsMask, final int line) {
+
+		return expand(mirrorRoots(chessboardSize), bitFlagsMask, line);
+	}
+
+	/**
+	 * Find the first line where the mirror roots expansion gives enough prefixes.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @param bitFlagsMask bit-flags mask of the chessboard size
+	 * @param targetPrefixes minimum number of prefixes
+	 * @return split line, at most the chessboard size minus 2
+	 */
+	public static int findSplitLine(final int chessboardSize, final long bitFlagsMask, final int targetPrefixes) {
+
+		List<BitFlagsPrefix> prefixes = mirrorRoots(chessboardSize);
+		int splitLine = 1;
+		while (prefixes.size() < targetPrefixes && splitLine < chessboardSize - 2) {
+			splitLine++;
+			prefixes = expand(prefixes, bitFlagsMask, splitLine);
+		}
+		return splitLine;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public long getUnusedColumns() {
+		return unusedColumns;
+	}
+
+	public long getUnusedAscendingDiagonals() {
+		return unusedAscendingDiagonals;
+	}
+
+	public long getUnusedDescendingDiagonals() {
+		return unusedDescendingDiagonals;
+	}
+}
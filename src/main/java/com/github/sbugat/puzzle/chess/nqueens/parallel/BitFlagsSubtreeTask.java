@@ -0,0 +1,72 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+
+/**
+ * Fork/join task counting the solutions of a prefix sub-tree: prefixes before the split line are divided into one sub-task per free position so idle workers can steal them, prefixes on the split line are counted sequentially.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+final class BitFlagsSubtreeTask extends RecursiveTask<Long> {
+
+	private static final long serialVersionUID = 6530384614325627412L;
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long bitFlagsMask;
+	/** First line counted sequentially. */
+	private final int splitLine;
+	/** Prefix of the sub-tree. */
+	private final BitFlagsPrefix prefix;
+
+	BitFlagsSubtreeTask(final int chessboardSizeArg, final long bitFlagsMaskArg, final int splitLineArg, final BitFlagsPrefix prefixArg) {
+
+		chessboardSize = chessboardSizeArg;
+		bitFlagsMask = bitFlagsMaskArg;
+		splitLine = splitLineArg;
+		prefix = prefixArg;
+	}
+
+	@Override
+	protected Long compute() {
+
+		// Deep enough to count the sub-tree in this worker
+		if (prefix.getLine() >= splitLine || prefix.getLine() >= chessboardSize) {
+			return Long.valueOf(new LongBitFlagsSubtreeCounter(chessboardSize).count(prefix.getLine(), prefix.getUnusedColumns(), prefix.getUnusedAscendingDiagonals(), prefix.getUnusedDescendingDiagonals()));
+		}
+
+		// Split the sub-tree with a task for each free position of the next line
+		final List<BitFlagsSubtreeTask> subtasks = new ArrayList<>();
+		long bitFlags = prefix.getFreeBitFlags(bitFlagsMask);
+		while (0 != bitFlags) {
+			final long targetQueen = -bitFlags & bitFlags;
+			subtasks.add(new BitFlagsSubtreeTask(chessboardSize, bitFlagsMask, splitLine, prefix.place(targetQueen)));
+			bitFlags ^= targetQueen;
+		}
+
+		return Long.valueOf(sum(subtasks));
+	}
+
+	/**
+	 * Fork all tasks and sum their solutions count.
+	 *
+	 * @param tasks tasks to run
+	 * @return sum of the tasks solutions count
+	 */
+	static long sum(final List<BitFlagsSubtreeTask> tasks) {
+
+		invokeAll(tasks);
+
+		long solutionCount = 0;
+		for (final BitFlagsSubtreeTask task : tasks) {
+			solutionCount += task.join().longValue();
+		}
+		return solutionCount;
+	}
+}
@@ -0,0 +1,107 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsSolutions;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+
+/**
+ * Classic N chess queens on a size N chessboard with long bit-flags on a work-stealing fork/join pool (chessboard size up to 63).
+ *
+ * The left half of the first line is split into sub-trees down to a split line, each sub-tree is a task that idle workers can steal. Solutions are multiplied by 2 for the mirrored half.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class ForkJoinBitFlagsNQueensSolver extends GenericNQueensSolver {
+
+	/** Split line value to compute it depending of the pool parallelism. */
+	public static final int AUTOMATIC_SPLIT_LINE = 0;
+	/** Number of prefixes per worker targeted by the automatic split line. */
+	private static final int AUTOMATIC_SPLIT_PREFIXES_PER_WORKER = 32;
+
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long bitFlagsMask;
+	/** Pool running the tasks. */
+	private final ForkJoinPool forkJoinPool;
+	/** First line counted sequentially by a task. */
+	private final int splitLine;
+
+	/** Queen column of each line of the first solution, searched on the first chessboard position read. */
+	private int[] firstSolution;
+
+	public ForkJoinBitFlagsNQueensSolver(final int chessboardSizeArg, final ForkJoinPool forkJoinPoolArg, final int splitLineArg) {
+
+		super(chessboardSizeArg, false);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		forkJoinPool = forkJoinPoolArg;
+		bitFlagsMask = new LongBitFlagsSubtreeCounter(chessboardSizeArg).getBitFlagsMask();
+
+		if (AUTOMATIC_SPLIT_LINE == splitLineArg) {
+			splitLine = BitFlagsPrefix.findSplitLine(chessboardSizeArg, bitFlagsMask, forkJoinPoolArg.getParallelism() * AUTOMATIC_SPLIT_PREFIXES_PER_WORKER);
+		}
+		else {
+			splitLine = splitLineArg;
+		}
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		final List<BitFlagsSubtreeTask> rootTasks = new ArrayList<>();
+		for (final BitFlagsPrefix root : BitFlagsPrefix.mirrorRoots(chessboardSize)) {
+			rootTasks.add(new BitFlagsSubtreeTask(chessboardSize, bitFlagsMask, splitLine, root));
+		}
+
+		final long halfSolutionCount = forkJoinPool.invoke(new RecursiveTask<Long>() {
+
+			private static final long serialVersionUID = -1792468032473283962L;
+
+			@Override
+			protected Long compute() {
+				return Long.valueOf(BitFlagsSubtreeTask.sum(rootTasks));
+			}
+		}).longValue();
+
+		// Multiply by 2 the solution count for the other half not calculated
+		solutionCount = halfSolutionCount * 2;
+
+		return solutionCount;
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		// Solutions are counted by many tasks without a single chessboard, the chessboard is the first solution in lexicographic order
+		if (null == firstSolution) {
+			firstSolution = BitFlagsSolutions.first(chessboardSize);
+		}
+		return y < firstSolution.length && x == firstSolution[y];
+	}
+
+	public int getSplitLine() {
+		return splitLine;
+	}
+}
@@ -0,0 +1,275 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.github.sbugat.puzzle.chess.nqueens.SolutionEnumerator;
+import com.github.sbugat.puzzle.chess.nqueens.SolutionVisitor;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsSolutionIterator;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+
+/**
+ * Parallel enumeration of all N chess queens solutions visited in lexicographic order of the queens columns, the order of the single-threaded solvers (chessboard size up to 63).
+ *
+ * Work units are the prefixes of the first lines in lexicographic order. Each work unit task writes its solutions, one byte per queen column, in off-heap buffers sent to its own bounded queue, and the calling thread visits the work units queues in order. Only a window of work
+ * units ahead of the visited one is submitted and each work unit queue is bounded: producers wait when the visitor falls behind and the buffers memory stays bounded.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class OrderedParallelEnumerator implements SolutionEnumerator {
+
+	/** Default number of work units per thread of an automatic work units line. */
+	public static final int DEFAULT_WORK_UNITS_PER_THREAD = 64;
+
+	/** Size of a solutions buffer in bytes. */
+	private static final int BUFFER_BYTES = 1 << 16;
+	/** Number of full buffers a work unit can queue before waiting for the visitor. */
+	private static final int QUEUED_BUFFERS_PER_WORK_UNIT = 4;
+	/** Number of work units submitted ahead of the visited one, multiplied by the number of threads. */
+	private static final int WINDOW_WORK_UNITS_PER_THREAD = 2;
+	/** Timeout of a producer waiting for queue space, the stop flag is checked after each timeout. */
+	private static final long PRODUCER_WAIT_MILLISECONDS = 100;
+
+	/** Last buffer of a work unit. */
+	private static final ByteBuffer END_OF_WORK_UNIT = ByteBuffer.allocate(0);
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Number of threads of the pool. */
+	private final int threadNumber;
+	/** Prefix columns of each work unit in lexicographic order. */
+	private final List<int[]> workUnits;
+
+	/** Empty buffers reused by the producers. */
+	private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+	/** Stop flag of the producers when the visitor stops the enumeration. */
+	private volatile boolean stopped;
+	/** First failure of a work unit task, null if none. */
+	private volatile RuntimeException failure;
+
+	/**
+	 * Create an enumerator.
+	 *
+	 * @param chessboardSizeArg size of the chessboard
+	 * @param threadNumberArg number of threads of the pool
+	 * @param workUnitsLine line of the work units prefixes, 0 for an automatic line
+	 */
+	public OrderedParallelEnumerator(final int chessboardSizeArg, final int threadNumberArg, final int workUnitsLine) {
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSize = chessboardSizeArg;
+		threadNumber = threadNumberArg;
+
+		// Expand the prefixes line by line up to the work units line, at least one line is left to the tasks
+		final int maximumLine = 0 == workUnitsLine ? chessboardSizeArg - 1 : Math.min(workUnitsLine, chessboardSizeArg - 1);
+		final long bitFlagsMask = -1L >>> Long.SIZE - chessboardSizeArg;
+		List<int[]> prefixes = new ArrayList<>();
+		prefixes.add(new int[0]);
+		for (int line = 0; line < maximumLine && (0 != workUnitsLine || prefixes.size() < threadNumberArg * DEFAULT_WORK_UNITS_PER_THREAD); line++) {
+			prefixes = expand(prefixes, bitFlagsMask);
+		}
+		workUnits = prefixes;
+	}
+
+	/**
+	 * Add a line to prefixes, prefixes without any free position left are dropped.
+	 *
+	 * @param prefixes prefixes of the same number of lines in lexicographic order
+	 * @param bitFlagsMask bit-flags mask of the chessboard size
+	 * @return expanded prefixes in lexicographic order
+	 */
+	private static List<int[]> expand(final List<int[]> prefixes, final long bitFlagsMask) {
+
+		final List<int[]> expandedPrefixes = new ArrayList<>();
+		for (final int[] prefix : prefixes) {
+
+			long unusedColumns = 0;
+			long unusedAscendingDiagonals = 0;
+			long unusedDescendingDiagonals = 0;
+			for (final int column : prefix) {
+				final long targetQueen = 1L << column;
+				unusedColumns |= targetQueen;
+				unusedAscendingDiagonals = (unusedAscendingDiagonals | targetQueen) << 1;
+				unusedDescendingDiagonals = (unusedDescendingDiagonals | targetQueen) >>> 1;
+			}
+
+			long bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+			while (0 != bitFlags) {
+				final long targetQueen = -bitFlags & bitFlags;
+				bitFlags ^= targetQueen;
+
+				final int[] expandedPrefix = Arrays.copyOf(prefix, prefix.length + 1);
+				expandedPrefix[prefix.length] = Long.numberOfTrailingZeros(targetQueen);
+				expandedPrefixes.add(expandedPrefix);
+			}
+		}
+		return expandedPrefixes;
+	}
+
+	/**
+	 * Visit all solutions in lexicographic order in the calling thread until the visitor stops the enumeration.
+	 *
+	 * @param solutionVisitor visitor of the solutions
+	 * @return number of visited solutions
+	 */
+	@Override
+	public long enumerate(final SolutionVisitor solutionVisitor) {
+
+		stopped = false;
+		failure = null;
+		final int window = threadNumber * WINDOW_WORK_UNITS_PER_THREAD;
+		final List<BlockingQueue<ByteBuffer>> workUnitsQueues = new ArrayList<>();
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+		try {
+			// Work units are submitted in order: a visited work unit task is always started before the tasks of the next work units
+			for (int workUnit = 0; workUnit < workUnits.size(); workUnit++) {
+				workUnitsQueues.add(new ArrayBlockingQueue<ByteBuffer>(QUEUED_BUFFERS_PER_WORK_UNIT));
+			}
+			for (int workUnit = 0; workUnit < Math.min(window, workUnits.size()); workUnit++) {
+				executorService.execute(new WorkUnitTask(workUnits.get(workUnit), workUnitsQueues.get(workUnit)));
+			}
+
+			final int[] queenColumns = new int[chessboardSize];
+			long visitedSolutionCount = 0;
+			for (int workUnit = 0; workUnit < workUnits.size(); workUnit++) {
+
+				final BlockingQueue<ByteBuffer> workUnitQueue = workUnitsQueues.get(workUnit);
+				for (ByteBuffer buffer = workUnitQueue.take(); END_OF_WORK_UNIT != buffer; buffer = workUnitQueue.take()) {
+
+					while (buffer.hasRemaining()) {
+						for (int line = 0; line < chessboardSize; line++) {
+							queenColumns[line] = buffer.get();
+						}
+						visitedSolutionCount++;
+						if (!solutionVisitor.visit(queenColumns)) {
+							stopped = true;
+							return visitedSolutionCount;
+						}
+					}
+
+					buffer.clear();
+					freeBuffers.add(buffer);
+				}
+				workUnitsQueues.set(workUnit, null);
+
+				if (null != failure) {
+					throw new IllegalStateException("Work unit failed", failure); //$NON-NLS-1$
+				}
+
+				// Slide the window
+				if (workUnit + window < workUnits.size()) {
+					executorService.execute(new WorkUnitTask(workUnits.get(workUnit + window), workUnitsQueues.get(workUnit + window)));
+				}
+			}
+
+			return visitedSolutionCount;
+		}
+		catch (final InterruptedException e) {
+			stopped = true;
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted enumeration", e); //$NON-NLS-1$
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Task writing the solutions of a work unit in buffers.
+	 */
+	private final class WorkUnitTask implements Runnable {
+
+		private final int[] prefix;
+		private final BlockingQueue<ByteBuffer> workUnitQueue;
+
+		WorkUnitTask(final int[] prefixArg, final BlockingQueue<ByteBuffer> workUnitQueueArg) {
+			prefix = prefixArg;
+			workUnitQueue = workUnitQueueArg;
+		}
+
+		@Override
+		public void run() {
+
+			try {
+				final BitFlagsSolutionIterator solutionIterator = new BitFlagsSolutionIterator(chessboardSize, prefix);
+				ByteBuffer buffer = takeFreeBuffer();
+				while (solutionIterator.hasNext() && !stopped) {
+
+					if (buffer.remaining() < chessboardSize) {
+						send(buffer);
+						buffer = takeFreeBuffer();
+					}
+
+					for (final int column : solutionIterator.next()) {
+						buffer.put((byte) column);
+					}
+				}
+
+				if (0 != buffer.position()) {
+					send(buffer);
+				}
+				else {
+					freeBuffers.add(buffer);
+				}
+				send(END_OF_WORK_UNIT);
+			}
+			catch (final InterruptedException e) {
+				// Enumeration stopped
+				Thread.currentThread().interrupt();
+			}
+			catch (final RuntimeException e) {
+				// The visitor gets the failure after the end of the work unit
+				failure = e;
+				workUnitQueue.clear();
+				workUnitQueue.add(END_OF_WORK_UNIT);
+			}
+		}
+
+		/**
+		 * Send a buffer to the visitor, wait while the work unit queue is full.
+		 *
+		 * @param buffer filled buffer
+		 * @throws InterruptedException if the enumeration is stopped
+		 */
+		private void send(final ByteBuffer buffer) throws InterruptedException {
+
+			buffer.flip();
+			while (!workUnitQueue.offer(buffer, PRODUCER_WAIT_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+				if (stopped) {
+					throw new InterruptedException();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Take a reused buffer or allocate a new one, the number of buffers is bounded by the work units window and queues.
+	 *
+	 * @return empty buffer of a multiple of the chessboard size
+	 */
+	private ByteBuffer takeFreeBuffer() {
+
+		final ByteBuffer buffer = freeBuffers.poll();
+		if (null != buffer) {
+			return buffer;
+		}
+		return ByteBuffer.allocateDirect(BUFFER_BYTES - BUFFER_BYTES % chessboardSize);
+	}
+
+	public int getWorkUnitsCount() {
+		return workUnits.size();
+	}
+}
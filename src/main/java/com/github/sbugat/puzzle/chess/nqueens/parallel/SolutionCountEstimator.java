@@ -0,0 +1,189 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+
+/**
+ * Approximate N chess queens solutions count with parallel Knuth Monte-Carlo probes (chessboard size up to 63).
+ *
+ * Probes are run by rounds on a fixed thread pool, each thread with its own {@link SubtreeSizeEstimator}. The estimate is refined after each round and the solve stops once the 95% confidence interval half-width relative to the estimate is below a target error.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SolutionCountEstimator {
+
+	/** Normal distribution quantile of the 95% confidence interval. */
+	public static final double CONFIDENCE_95_QUANTILE = 1.96;
+
+	/** Number of probes of a thread for each round, small rounds to stop soon after a coarse target error is reached. */
+	private static final int ROUND_PROBES = 1 << 14;
+	/** Minimum number of probes before testing the relative error, the variance of a few probes is not reliable. */
+	private static final long MINIMUM_PROBES = 1 << 14;
+
+	/**
+	 * Estimated solutions count with its confidence interval.
+	 */
+	public static final class Estimate {
+
+		private final double solutionCount;
+		private final double standardError;
+		private final long probes;
+
+		Estimate(final double solutionCountArg, final double standardErrorArg, final long probesArg) {
+
+			solutionCount = solutionCountArg;
+			standardError = standardErrorArg;
+			probes = probesArg;
+		}
+
+		public double getSolutionCount() {
+			return solutionCount;
+		}
+
+		public double getStandardError() {
+			return standardError;
+		}
+
+		public long getProbes() {
+			return probes;
+		}
+
+		public double getConfidenceLow() {
+			return Math.max(0, solutionCount - CONFIDENCE_95_QUANTILE * standardError);
+		}
+
+		public double getConfidenceHigh() {
+			return solutionCount + CONFIDENCE_95_QUANTILE * standardError;
+		}
+
+		/**
+		 * Get the 95% confidence interval half-width relative to the estimate.
+		 *
+		 * @return relative error, infinite if no solution is found yet
+		 */
+		public double getRelativeError() {
+
+			if (0 == solutionCount) {
+				return Double.POSITIVE_INFINITY;
+			}
+			return CONFIDENCE_95_QUANTILE * standardError / solutionCount;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Estimated number of solution(s):%.4g 95%% confidence interval:[%.4g, %.4g] relative error:%.2f%% probes:%d", Double.valueOf(solutionCount), Double.valueOf(getConfidenceLow()), Double.valueOf(getConfidenceHigh()), Double.valueOf(getRelativeError() * 100), Long.valueOf(probes)); //$NON-NLS-1$
+		}
+	}
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Number of threads of the pool. */
+	private final int threadNumber;
+	/** Seed of the threads random generators. */
+	private final long seed;
+
+	public SolutionCountEstimator(final int chessboardSizeArg, final int threadNumberArg, final long seedArg) {
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		chessboardSize = chessboardSizeArg;
+		threadNumber = threadNumberArg;
+		seed = seedArg;
+	}
+
+	/**
+	 * Run probes until the target relative error or the maximum number of probes is reached.
+	 *
+	 * @param targetRelativeError target 95% confidence interval half-width relative to the estimate
+	 * @param maximumProbes maximum number of probes
+	 * @param progressStream stream of the refined estimates printed after each round, may be null
+	 * @return final estimate
+	 */
+	public Estimate estimate(final double targetRelativeError, final long maximumProbes, final PrintStream progressStream) {
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+		try {
+			final List<ProbesTask> tasks = new ArrayList<>();
+			for (int thread = 0; thread < threadNumber; thread++) {
+				tasks.add(new ProbesTask(new SubtreeSizeEstimator(chessboardSize, seed + thread)));
+			}
+
+			double sum = 0;
+			double sumOfSquares = 0;
+			long probes = 0;
+			Estimate estimate = new Estimate(0, 0, 0);
+			while (probes < maximumProbes) {
+
+				for (final Future<double[]> future : executorService.invokeAll(tasks)) {
+					final double[] roundSums = future.get();
+					sum += roundSums[0];
+					sumOfSquares += roundSums[1];
+				}
+				probes += (long) ROUND_PROBES * threadNumber;
+
+				// Mean and standard error of the mean of the probes
+				final double mean = sum / probes;
+				final double variance = Math.max(0, sumOfSquares / probes - mean * mean);
+				estimate = new Estimate(mean, Math.sqrt(variance / (probes - 1)), probes);
+
+				if (null != progressStream) {
+					progressStream.println(estimate);
+				}
+				if (probes >= MINIMUM_PROBES && estimate.getRelativeError() <= targetRelativeError) {
+					break;
+				}
+			}
+
+			return estimate;
+		}
+		catch (final ExecutionException e) {
+			throw new IllegalStateException("Probes failed", e.getCause()); //$NON-NLS-1$
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted estimate", e); //$NON-NLS-1$
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Task running a round of probes from the empty chessboard: sum and sum of squares of the probes.
+	 */
+	private static final class ProbesTask implements Callable<double[]> {
+
+		private static final BitFlagsPrefix EMPTY_CHESSBOARD = new BitFlagsPrefix(0, 0L, 0L, 0L);
+
+		private final SubtreeSizeEstimator estimator;
+
+		ProbesTask(final SubtreeSizeEstimator estimatorArg) {
+			estimator = estimatorArg;
+		}
+
+		@Override
+		public double[] call() {
+
+			double sum = 0;
+			double sumOfSquares = 0;
+			for (int probe = 0; probe < ROUND_PROBES; probe++) {
+
+				final double solutions = estimator.probeSolutions(EMPTY_CHESSBOARD);
+				sum += solutions;
+				sumOfSquares += solutions * solutions;
+			}
+			return new double[] { sum, sumOfSquares };
+		}
+	}
+}
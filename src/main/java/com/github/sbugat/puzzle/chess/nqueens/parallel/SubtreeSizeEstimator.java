@@ -0,0 +1,201 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Knuth Monte-Carlo estimation of the N chess queens sub-trees sizes with long bit-flags (chessboard size up to 63).
+ *
+ * A probe goes down the sub-tree of a prefix placing a queen on a random free position of each line, the product of the free positions numbers of the lines already crossed estimates the number of nodes of each line: the mean of the probes is an unbiased estimate of the
+ * sub-tree size. An estimator is not thread safe.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SubtreeSizeEstimator {
+
+	/** Default number of probes of a sub-tree estimation. */
+	public static final int DEFAULT_PROBES = 64;
+
+	/** Maximum number of work units of an automatic split line, multiplied by the target number of work units. */
+	private static final int MAXIMUM_WORK_UNITS_FACTOR = 16;
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final long bitFlagsMask;
+	/** Random generator of the probes. */
+	private final SplittableRandom random;
+
+	public SubtreeSizeEstimator(final int chessboardSizeArg, final long seed) {
+
+		chessboardSize = chessboardSizeArg;
+		bitFlagsMask = -1L >>> Long.SIZE - chessboardSizeArg;
+		random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Estimate the number of nodes (queens placed) of the sub-tree of a prefix.
+	 *
+	 * @param prefix prefix of the sub-tree
+	 * @param probes number of random probes
+	 * @return estimated number of nodes
+	 */
+	public double estimateNodes(final BitFlagsPrefix prefix, final int probes) {
+
+		double nodes = 0;
+		for (int probe = 0; probe < probes; probe++) {
+			nodes += probeNodes(prefix);
+		}
+		return nodes / probes;
+	}
+
+	/**
+	 * Estimate the number of solutions of the sub-tree of a prefix.
+	 *
+	 * @param prefix prefix of the sub-tree
+	 * @param probes number of random probes
+	 * @return estimated number of solutions
+	 */
+	public double estimateSolutions(final BitFlagsPrefix prefix, final int probes) {
+
+		double solutions = 0;
+		for (int probe = 0; probe < probes; probe++) {
+			solutions += probeSolutions(prefix);
+		}
+		return solutions / probes;
+	}
+
+	/**
+	 * Estimate the number of nodes of each prefix of a list.
+	 *
+	 * @param prefixes prefixes of the sub-trees
+	 * @param probes number of random probes of each prefix
+	 * @return estimated number of nodes of each prefix in the list order
+	 */
+	public double[] estimateNodes(final List<BitFlagsPrefix> prefixes, final int probes) {
+
+		final double[] estimates = new double[prefixes.size()];
+		for (int i = 0; i < estimates.length; i++) {
+			estimates[i] = estimateNodes(prefixes.get(i), probes);
+		}
+		return estimates;
+	}
+
+	/**
+	 * Single probe from a prefix down to a dead end or a solution.
+	 *
+	 * @param prefix prefix of the sub-tree
+	 * @return estimated number of nodes
+	 */
+	public double probeNodes(final BitFlagsPrefix prefix) {
+
+		long unusedColumns = prefix.getUnusedColumns();
+		long unusedAscendingDiagonals = prefix.getUnusedAscendingDiagonals();
+		long unusedDescendingDiagonals = prefix.getUnusedDescendingDiagonals();
+
+		double lineNodes = 1;
+		double nodes = 0;
+		for (int line = prefix.getLine(); line < chessboardSize; line++) {
+
+			final long bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+			if (0 == bitFlags) {
+				break;
+			}
+
+			final int freePositions = Long.bitCount(bitFlags);
+			lineNodes *= freePositions;
+			nodes += lineNodes;
+
+			final long targetQueen = selectRandomBit(bitFlags, freePositions);
+			unusedColumns |= targetQueen;
+			unusedAscendingDiagonals = (unusedAscendingDiagonals | targetQueen) << 1;
+			unusedDescendingDiagonals = (unusedDescendingDiagonals | targetQueen) >>> 1;
+		}
+		return nodes;
+	}
+
+	/**
+	 * Single probe from a prefix down to a dead end or a solution.
+	 *
+	 * @param prefix prefix of the sub-tree
+	 * @return estimated number of solutions, 0 if the probe ends on a dead end
+	 */
+	public double probeSolutions(final BitFlagsPrefix prefix) {
+
+		long unusedColumns = prefix.getUnusedColumns();
+		long unusedAscendingDiagonals = prefix.getUnusedAscendingDiagonals();
+		long unusedDescendingDiagonals = prefix.getUnusedDescendingDiagonals();
+
+		double lineNodes = 1;
+		for (int line = prefix.getLine(); line < chessboardSize; line++) {
+
+			final long bitFlags = bitFlagsMask & ~(unusedColumns | unusedAscendingDiagonals | unusedDescendingDiagonals);
+			if (0 == bitFlags) {
+				return 0;
+			}
+
+			final int freePositions = Long.bitCount(bitFlags);
+			lineNodes *= freePositions;
+
+			final long targetQueen = selectRandomBit(bitFlags, freePositions);
+			unusedColumns |= targetQueen;
+			unusedAscendingDiagonals = (unusedAscendingDiagonals | targetQueen) << 1;
+			unusedDescendingDiagonals = (unusedDescendingDiagonals | targetQueen) >>> 1;
+		}
+		return lineNodes;
+	}
+
+	/**
+	 * Select a random bit of bit-flags.
+	 *
+	 * @param bitFlags free positions bit-flags
+	 * @param freePositions number of bits set
+	 * @return single bit
+	 */
+	private long selectRandomBit(final long bitFlags, final int freePositions) {
+
+		long remainingBitFlags = bitFlags;
+		for (int i = random.nextInt(freePositions); i > 0; i--) {
+			remainingBitFlags &= remainingBitFlags - 1;
+		}
+		return -remainingBitFlags & remainingBitFlags;
+	}
+
+	/**
+	 * Find the first line where the largest estimated work unit is small compared to the work of a thread: at most the mean work of a thread divided by the work units per thread, the last work units scheduled largest first end close together.
+	 *
+	 * @param chessboardSize size of the chessboard (at least 2)
+	 * @param threadNumber number of threads
+	 * @param workUnitsPerThread target number of work units per thread
+	 * @param probes number of random probes of each work unit
+	 * @param seed random generator seed
+	 * @return split line, at most the chessboard size minus 2
+	 */
+	public static int findSplitLine(final int chessboardSize, final int threadNumber, final int workUnitsPerThread, final int probes, final long seed) {
+
+		final SubtreeSizeEstimator estimator = new SubtreeSizeEstimator(chessboardSize, seed);
+		List<BitFlagsPrefix> prefixes = BitFlagsPrefix.mirrorRoots(chessboardSize);
+		int splitLine = 1;
+		while (splitLine < chessboardSize - 2) {
+
+			final double[] estimates = estimator.estimateNodes(prefixes, probes);
+			double totalNodes = 0;
+			double largestNodes = 0;
+			for (final double estimate : estimates) {
+				totalNodes += estimate;
+				largestNodes = Math.max(largestNodes, estimate);
+			}
+
+			// Stop at enough small work units, or before too many work units to estimate
+			final long targetWorkUnits = (long) threadNumber * workUnitsPerThread;
+			if (largestNodes * targetWorkUnits <= totalNodes || prefixes.size() >= targetWorkUnits * MAXIMUM_WORK_UNITS_FACTOR) {
+				break;
+			}
+
+			splitLine++;
+			prefixes = BitFlagsPrefix.expand(prefixes, estimator.bitFlagsMask, splitLine);
+		}
+		return splitLine;
+	}
+}
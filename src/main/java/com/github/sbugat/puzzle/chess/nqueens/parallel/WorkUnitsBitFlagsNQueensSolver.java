@@ -0,0 +1,291 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsSolutions;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.progress.ProgressCounter;
+import com.github.sbugat.puzzle.chess.nqueens.progress.ProgressMonitor;
+
+/**
+ * Classic N chess queens on a size N chessboard with long bit-flags work units on a fixed thread pool (chessboard size up to 63).
+ *
+ * Work units are the mirror roots prefixes expanded up to a line, numbered in depth-first order. Already completed work units can be skipped and each completed work unit is notified to a listener. Work units are submitted in depth-first order or largest first with their estimated
+ * sizes.
+ *
+ * Each pool thread publishes its nodes and solutions counts in its own counter of an optional progress monitor. An interrupted solve stops the work units searches cooperatively.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class WorkUnitsBitFlagsNQueensSolver extends GenericNQueensSolver {
+
+	/**
+	 * Listener of the completed work units, called by the pool threads.
+	 */
+	public interface WorkUnitListener {
+
+		/**
+		 * A work unit is completed.
+		 *
+		 * @param workUnit work unit number
+		 * @param halfSolutionCount solutions count of the work unit prefix (not multiplied by 2 for the mirrored half)
+		 * @throws Exception if the work unit cannot be processed, the solve fails
+		 */
+		void workUnitCompleted(int workUnit, long halfSolutionCount) throws Exception;
+	}
+
+	/** Number of threads of the pool. */
+	private final int threadNumber;
+	/** Line of the work units prefixes. */
+	private final int workUnitsLine;
+	/** Prefixes of all work units. */
+	private final List<BitFlagsPrefix> workUnits;
+
+	/** Work units to skip. */
+	private final BitSet completedWorkUnits = new BitSet();
+	/** Solutions count of the work units to skip. */
+	private long completedHalfSolutionCount;
+	/** Submission order of the work units, null for the depth-first order. */
+	private Integer[] workUnitsOrder;
+	/** Listener of the completed work units, may be null. */
+	private WorkUnitListener workUnitListener;
+	/** Progress of the solve, may be null. */
+	private ProgressMonitor progressMonitor;
+
+	/** Queen column of each line of the first solution, searched on the first chessboard position read. */
+	private int[] firstSolution;
+
+	/** Progress of each pool thread. */
+	private final ThreadLocal<WorkerProgress> workersProgress = new ThreadLocal<WorkerProgress>() {
+
+		@Override
+		protected WorkerProgress initialValue() {
+			return new WorkerProgress(null == progressMonitor ? null : progressMonitor.newCounter());
+		}
+	};
+
+	public WorkUnitsBitFlagsNQueensSolver(final int chessboardSizeArg, final int threadNumberArg, final int workUnitsLineArg) {
+
+		super(chessboardSizeArg, false);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		threadNumber = threadNumberArg;
+		workUnitsLine = workUnitsLineArg;
+
+		if (1 == chessboardSizeArg) {
+			workUnits = new ArrayList<>();
+		}
+		else {
+			workUnits = BitFlagsPrefix.mirrorWorkUnits(chessboardSizeArg, new LongBitFlagsSubtreeCounter(chessboardSizeArg).getBitFlagsMask(), workUnitsLineArg);
+		}
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+		try {
+			final List<Future<Long>> futures = new ArrayList<>();
+			for (int i = 0; i < workUnits.size(); i++) {
+
+				final int workUnit = null == workUnitsOrder ? i : workUnitsOrder[i].intValue();
+				if (!completedWorkUnits.get(workUnit)) {
+					futures.add(executorService.submit(new WorkUnitTask(workUnit)));
+				}
+			}
+
+			long halfSolutionCount = completedHalfSolutionCount;
+			for (final Future<Long> future : futures) {
+				halfSolutionCount += future.get().longValue();
+			}
+
+			// Multiply by 2 the solution count for the other half not calculated
+			solutionCount = halfSolutionCount * 2;
+			return solutionCount;
+		}
+		catch (final ExecutionException e) {
+			throw new IllegalStateException("Work unit failed", e.getCause()); //$NON-NLS-1$
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted solve", e); //$NON-NLS-1$
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Task counting a work unit.
+	 */
+	private final class WorkUnitTask implements Callable<Long> {
+
+		private final int workUnit;
+
+		WorkUnitTask(final int workUnitArg) {
+			workUnit = workUnitArg;
+		}
+
+		@Override
+		public Long call() throws Exception {
+
+			final BitFlagsPrefix prefix = workUnits.get(workUnit);
+			final WorkerProgress workerProgress = workersProgress.get();
+			final LongBitFlagsSubtreeCounter counter = new LongBitFlagsSubtreeCounter(chessboardSize);
+			final long halfSolutionCount = counter.count(prefix.getLine(), prefix.getUnusedColumns(), prefix.getUnusedAscendingDiagonals(), prefix.getUnusedDescendingDiagonals(), workerProgress);
+
+			// A stopped work unit count is partial
+			if (!counter.isCompleted()) {
+				throw new InterruptedException();
+			}
+
+			workerProgress.workUnitCompleted(counter.getNodeCount(), halfSolutionCount);
+			if (null != progressMonitor) {
+				progressMonitor.workUnitCompleted();
+			}
+
+			if (null != workUnitListener) {
+				workUnitListener.workUnitCompleted(workUnit, halfSolutionCount);
+			}
+
+			return Long.valueOf(halfSolutionCount);
+		}
+	}
+
+	/**
+	 * Nodes and solutions counts of a pool thread, published in its progress counter and stopping the search of an interrupted thread.
+	 */
+	private static final class WorkerProgress implements LongBitFlagsSubtreeCounter.SearchControl {
+
+		/** Progress counter of the thread, may be null. */
+		private final ProgressCounter progressCounter;
+		/** Number of queens placed by the completed work units of the thread. */
+		private long nodeCount;
+		/** Solutions count of the completed work units of the thread (not multiplied by 2 for the mirrored half). */
+		private long halfSolutionCount;
+
+		WorkerProgress(final ProgressCounter progressCounterArg) {
+			progressCounter = progressCounterArg;
+		}
+
+		@Override
+		public boolean check(final long nodes, final long solutionCount) {
+
+			if (null != progressCounter && 0 == (nodes & ProgressCounter.PUBLISH_MASK)) {
+				progressCounter.publish(nodeCount + nodes, (halfSolutionCount + solutionCount) * 2);
+			}
+			return Thread.currentThread().isInterrupted();
+		}
+
+		/**
+		 * Add the counts of a completed work unit.
+		 *
+		 * @param nodes number of queens placed by the work unit
+		 * @param solutionCount solutions count of the work unit (not multiplied by 2 for the mirrored half)
+		 */
+		void workUnitCompleted(final long nodes, final long solutionCount) {
+
+			nodeCount += nodes;
+			halfSolutionCount += solutionCount;
+			if (null != progressCounter) {
+				progressCounter.publish(nodeCount, halfSolutionCount * 2);
+			}
+		}
+	}
+
+	/**
+	 * Skip already completed work units.
+	 *
+	 * @param completedWorkUnitsArg completed work units numbers
+	 * @param completedHalfSolutionCountArg sum of the completed work units solutions count (not multiplied by 2 for the mirrored half)
+	 */
+	public void setCompletedWorkUnits(final BitSet completedWorkUnitsArg, final long completedHalfSolutionCountArg) {
+
+		completedWorkUnits.clear();
+		completedWorkUnits.or(completedWorkUnitsArg);
+		completedHalfSolutionCount = completedHalfSolutionCountArg;
+	}
+
+	/**
+	 * Submit the work units largest first (longest processing time first scheduling) with Monte-Carlo estimates of their sizes, the work units numbers are not changed.
+	 *
+	 * @param estimator sizes estimator of this chessboard size
+	 * @param probes number of random probes of each work unit
+	 */
+	public void orderLargestFirst(final SubtreeSizeEstimator estimator, final int probes) {
+
+		final double[] estimatedNodes = estimator.estimateNodes(workUnits, probes);
+
+		final Integer[] order = new Integer[workUnits.size()];
+		for (int workUnit = 0; workUnit < order.length; workUnit++) {
+			order[workUnit] = Integer.valueOf(workUnit);
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(final Integer workUnit1, final Integer workUnit2) {
+				return Double.compare(estimatedNodes[workUnit2.intValue()], estimatedNodes[workUnit1.intValue()]);
+			}
+		});
+		workUnitsOrder = order;
+	}
+
+	public void setWorkUnitListener(final WorkUnitListener workUnitListenerArg) {
+		workUnitListener = workUnitListenerArg;
+	}
+
+	/**
+	 * Follow the solve with a progress monitor, each pool thread creates its counter.
+	 *
+	 * @param progressMonitorArg progress monitor of the work units, may be null
+	 */
+	public void setProgressMonitor(final ProgressMonitor progressMonitorArg) {
+		progressMonitor = progressMonitorArg;
+	}
+
+	public int getWorkUnitsCount() {
+		return workUnits.size();
+	}
+
+	public int getWorkUnitsLine() {
+		return workUnitsLine;
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		// Solutions are counted by many work units without a single chessboard, the chessboard is the first solution in lexicographic order
+		if (null == firstSolution) {
+			firstSolution = BitFlagsSolutions.first(chessboardSize);
+		}
+		return y < firstSolution.length && x == firstSolution[y];
+	}
+}
@@ -0,0 +1,205 @@
+package com.github.sbugat.puzzle.chess.nqueens.parallel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only checkpoint file of the completed work units of a {@link WorkUnitsBitFlagsNQueensSolver}.
+ *
+ * The first line describes the chessboard size, the work units line and the number of work units. Each completed work unit is appended as a line with its number, its solutions count and a CRC32 of both, the file is synchronized after each line. On resume, a last line partially written by a crash is dropped.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class WorkUnitsCheckpoint implements WorkUnitsBitFlagsNQueensSolver.WorkUnitListener, Closeable {
+
+	/** First word of the header line. */
+	private static final String HEADER = "nqueens-checkpoint"; //$NON-NLS-1$
+	/** Fields separator. */
+	private static final String SEPARATOR = " "; //$NON-NLS-1$
+	/** Lines separator. */
+	private static final char LINE_SEPARATOR = '\n';
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Line of the work units prefixes. */
+	private final int workUnitsLine;
+	/** Number of work units. */
+	private final int workUnitsCount;
+
+	/** Completed work units loaded from the file. */
+	private final BitSet completedWorkUnits = new BitSet();
+	/** Solutions count of the completed work units loaded from the file. */
+	private long completedHalfSolutionCount;
+
+	/** Checkpoint file channel positioned at the end of the last valid line. */
+	private final FileChannel fileChannel;
+
+	private WorkUnitsCheckpoint(final Path checkpointFile, final int chessboardSizeArg, final int workUnitsLineArg, final int workUnitsCountArg, final boolean resume) throws IOException {
+
+		if (resume && Files.exists(checkpointFile)) {
+
+			fileChannel = FileChannel.open(checkpointFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			// Only lines ended by a line separator are complete
+			final String content = new String(Files.readAllBytes(checkpointFile), StandardCharsets.US_ASCII);
+			final String[] lines = content.substring(0, content.lastIndexOf(LINE_SEPARATOR) + 1).split(String.valueOf(LINE_SEPARATOR));
+
+			// Header line must match the current solve, otherwise the checkpoint file belongs to another run
+			final String[] headerFields = lines[0].split(SEPARATOR);
+			if (4 != headerFields.length || !HEADER.equals(headerFields[0])) {
+				throw new IOException("Invalid checkpoint file header: " + lines[0]); //$NON-NLS-1$
+			}
+			chessboardSize = Integer.parseInt(headerFields[1]);
+			workUnitsLine = Integer.parseInt(headerFields[2]);
+			workUnitsCount = Integer.parseInt(headerFields[3]);
+			if (chessboardSize != chessboardSizeArg) {
+				throw new IOException("Checkpoint file of chessboard size " + chessboardSize + " instead of " + chessboardSizeArg); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+
+			// Load valid lines, stop at the first invalid line
+			long validLength = lines[0].length() + 1;
+			for (int i = 1; i < lines.length && loadWorkUnit(lines[i]); i++) {
+				validLength += lines[i].length() + 1;
+			}
+
+			// Drop a line partially written by a crash
+			fileChannel.truncate(validLength);
+			fileChannel.position(validLength);
+		}
+		else {
+
+			fileChannel = FileChannel.open(checkpointFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+
+			chessboardSize = chessboardSizeArg;
+			workUnitsLine = workUnitsLineArg;
+			workUnitsCount = workUnitsCountArg;
+			write(HEADER + SEPARATOR + chessboardSizeArg + SEPARATOR + workUnitsLineArg + SEPARATOR + workUnitsCountArg + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Create a new checkpoint file, the file must not exist.
+	 *
+	 * @param checkpointFile checkpoint file
+	 * @param chessboardSize size of the chessboard
+	 * @param workUnitsLine line of the work units prefixes
+	 * @param workUnitsCount number of work units
+	 * @return new empty checkpoint
+	 * @throws IOException if the file exists or cannot be written
+	 */
+	public static WorkUnitsCheckpoint create(final Path checkpointFile, final int chessboardSize, final int workUnitsLine, final int workUnitsCount) throws IOException {
+
+		return new WorkUnitsCheckpoint(checkpointFile, chessboardSize, workUnitsLine, workUnitsCount, false);
+	}
+
+	/**
+	 * Load an existing checkpoint file to resume a solve, or create it if it does not exist.
+	 *
+	 * @param checkpointFile checkpoint file
+	 * @param chessboardSize size of the chessboard
+	 * @param workUnitsLine line of the work units prefixes used if the file does not exist
+	 * @param workUnitsCount number of work units used if the file does not exist
+	 * @return checkpoint with its completed work units
+	 * @throws IOException if the file is invalid or cannot be read
+	 */
+	public static WorkUnitsCheckpoint resume(final Path checkpointFile, final int chessboardSize, final int workUnitsLine, final int workUnitsCount) throws IOException {
+
+		return new WorkUnitsCheckpoint(checkpointFile, chessboardSize, workUnitsLine, workUnitsCount, true);
+	}
+
+	/**
+	 * Load a completed work unit line.
+	 *
+	 * @param line work unit line
+	 * @return false if the line is invalid
+	 */
+	private boolean loadWorkUnit(final String line) {
+
+		final String[] fields = line.split(SEPARATOR);
+		if (3 != fields.length) {
+			return false;
+		}
+
+		try {
+			final int workUnit = Integer.parseInt(fields[0]);
+			final long halfSolutionCount = Long.parseLong(fields[1]);
+			if (Long.parseLong(fields[2], 16) != checksum(workUnit, halfSolutionCount) || workUnit < 0 || workUnit >= workUnitsCount) {
+				return false;
+			}
+
+			if (!completedWorkUnits.get(workUnit)) {
+				completedWorkUnits.set(workUnit);
+				completedHalfSolutionCount += halfSolutionCount;
+			}
+			return true;
+		}
+		catch (final NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * CRC32 of a work unit line fields.
+	 *
+	 * @param workUnit work unit number
+	 * @param halfSolutionCount solutions count of the work unit
+	 * @return CRC32 value
+	 */
+	private static long checksum(final int workUnit, final long halfSolutionCount) {
+
+		final CRC32 crc32 = new CRC32();
+		crc32.update((workUnit + SEPARATOR + halfSolutionCount).getBytes(StandardCharsets.US_ASCII));
+		return crc32.getValue();
+	}
+
+	@Override
+	public void workUnitCompleted(final int workUnit, final long halfSolutionCount) throws IOException {
+
+		write(workUnit + SEPARATOR + halfSolutionCount + SEPARATOR + Long.toHexString(checksum(workUnit, halfSolutionCount)) + LINE_SEPARATOR);
+	}
+
+	/**
+	 * Append a line and synchronize the file content.
+	 *
+	 * @param line line to write
+	 * @throws IOException if the line cannot be written
+	 */
+	private synchronized void write(final String line) throws IOException {
+
+		final ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+		while (buffer.hasRemaining()) {
+			fileChannel.write(buffer);
+		}
+		fileChannel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		fileChannel.close();
+	}
+
+	public int getWorkUnitsLine() {
+		return workUnitsLine;
+	}
+
+	public int getWorkUnitsCount() {
+		return workUnitsCount;
+	}
+
+	public BitSet getCompletedWorkUnits() {
+		return (BitSet) completedWorkUnits.clone();
+	}
+
+	public long getCompletedHalfSolutionCount() {
+		return completedHalfSolutionCount;
+	}
+}
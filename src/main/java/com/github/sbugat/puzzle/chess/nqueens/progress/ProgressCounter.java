@@ -0,0 +1,50 @@
+package com.github.sbugat.puzzle.chess.nqueens.progress;
+
+/**
+ * Nodes and solutions counters of a single solving thread, read by a {@link ProgressMonitor}.
+ *
+ * Each thread owns its counter: the hot loop counts in local variables and publishes them from time to time, there is no shared atomic counter. Counters are padded so 2 threads counters are not on the same cache line.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class ProgressCounter {
+
+	/** Mask of the nodes count publishing counters every 65536 nodes: if (0 == (++nodeCount &amp; PUBLISH_MASK)). */
+	public static final long PUBLISH_MASK = (1L << 16) - 1;
+
+	/** Padding before the counters. */
+	long padding1, padding2, padding3, padding4, padding5, padding6, padding7;
+
+	/** Number of queens placed. */
+	private volatile long nodeCount;
+	/** Number of solutions found. */
+	private volatile long solutionCount;
+
+	/** Padding after the counters. */
+	long padding8, padding9, padding10, padding11, padding12, padding13, padding14;
+
+	ProgressCounter() {
+		// Created by a progress monitor
+	}
+
+	/**
+	 * Publish the counters of the owner thread.
+	 *
+	 * @param nodeCountArg total number of queens placed
+	 * @param solutionCountArg total number of solutions found
+	 */
+	public void publish(final long nodeCountArg, final long solutionCountArg) {
+
+		nodeCount = nodeCountArg;
+		solutionCount = solutionCountArg;
+	}
+
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	public long getSolutionCount() {
+		return solutionCount;
+	}
+}
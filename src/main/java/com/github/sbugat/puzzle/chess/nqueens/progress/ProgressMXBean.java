@@ -0,0 +1,31 @@
+package com.github.sbugat.puzzle.chess.nqueens.progress;
+
+/**
+ * JMX view of the progress of a N chess queens solve.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public interface ProgressMXBean {
+
+	long getNodeCount();
+
+	long getSolutionCount();
+
+	int getWorkUnitsCount();
+
+	int getCompletedWorkUnits();
+
+	int getRemainingWorkUnits();
+
+	long getElapsedSeconds();
+
+	long getNodesPerSecond();
+
+	/**
+	 * Estimated remaining time from the mean time of the completed work units.
+	 *
+	 * @return remaining seconds, -1 if no work unit is completed
+	 */
+	long getEstimatedRemainingSeconds();
+}
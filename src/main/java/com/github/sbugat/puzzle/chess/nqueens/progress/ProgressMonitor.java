@@ -0,0 +1,213 @@
+package com.github.sbugat.puzzle.chess.nqueens.progress;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Progress of a N chess queens solve split into work units: sums the threads counters, registers itself as a JMX MXBean and prints a periodic progress line.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class ProgressMonitor implements ProgressMXBean, Closeable {
+
+	/** JMX name of the monitor. */
+	public static final String OBJECT_NAME = "com.github.sbugat.puzzle.chess.nqueens:type=Progress"; //$NON-NLS-1$
+
+	/** Counters of all threads. */
+	private final List<ProgressCounter> counters = new CopyOnWriteArrayList<>();
+	/** Number of work units. */
+	private final int workUnitsCount;
+	/** Number of completed work units. */
+	private final AtomicInteger completedWorkUnits = new AtomicInteger();
+	/** Start time of the solve. */
+	private final long startNanoTime = System.nanoTime();
+
+	/** Registered JMX name, null if not registered. */
+	private ObjectName objectName;
+	/** Progress line printer, null if not started. */
+	private ScheduledExecutorService reportExecutorService;
+
+	public ProgressMonitor(final int workUnitsCountArg) {
+		workUnitsCount = workUnitsCountArg;
+	}
+
+	/**
+	 * Create the counter of a solving thread.
+	 *
+	 * @return new counter summed by this monitor
+	 */
+	public ProgressCounter newCounter() {
+
+		final ProgressCounter counter = new ProgressCounter();
+		counters.add(counter);
+		return counter;
+	}
+
+	/**
+	 * A work unit is completed.
+	 */
+	public void workUnitCompleted() {
+		completedWorkUnits.incrementAndGet();
+	}
+
+	/**
+	 * Register this monitor in the platform MBean server.
+	 *
+	 * @throws JMException if the monitor cannot be registered
+	 */
+	public void register() throws JMException {
+
+		final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(OBJECT_NAME);
+		// Replace the monitor of a previous solve
+		if (mBeanServer.isRegistered(name)) {
+			mBeanServer.unregisterMBean(name);
+		}
+		mBeanServer.registerMBean(this, name);
+		objectName = name;
+	}
+
+	/**
+	 * Print periodically a progress line.
+	 *
+	 * @param printStream stream of the progress lines
+	 * @param periodSeconds period between 2 lines
+	 */
+	public void startReport(final PrintStream printStream, final long periodSeconds) {
+
+		reportExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+
+				final Thread thread = new Thread(runnable, "progress-report"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		reportExecutorService.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				printStream.println(ProgressMonitor.this);
+			}
+		}, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stop the progress line and unregister the monitor.
+	 */
+	@Override
+	public void close() {
+
+		if (null != reportExecutorService) {
+			reportExecutorService.shutdownNow();
+			reportExecutorService = null;
+		}
+
+		if (null != objectName) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			}
+			catch (final JMException e) {
+				// Already unregistered
+			}
+			objectName = null;
+		}
+	}
+
+	@Override
+	public long getNodeCount() {
+
+		long nodeCount = 0;
+		for (final ProgressCounter counter : counters) {
+			nodeCount += counter.getNodeCount();
+		}
+		return nodeCount;
+	}
+
+	@Override
+	public long getSolutionCount() {
+
+		long solutionCount = 0;
+		for (final ProgressCounter counter : counters) {
+			solutionCount += counter.getSolutionCount();
+		}
+		return solutionCount;
+	}
+
+	@Override
+	public int getWorkUnitsCount() {
+		return workUnitsCount;
+	}
+
+	@Override
+	public int getCompletedWorkUnits() {
+		return completedWorkUnits.get();
+	}
+
+	@Override
+	public int getRemainingWorkUnits() {
+		return workUnitsCount - completedWorkUnits.get();
+	}
+
+	@Override
+	public long getElapsedSeconds() {
+		return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanoTime);
+	}
+
+	@Override
+	public long getNodesPerSecond() {
+
+		final long elapsedNanoTime = System.nanoTime() - startNanoTime;
+		if (elapsedNanoTime <= 0) {
+			return 0;
+		}
+		return (long) (getNodeCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanoTime);
+	}
+
+	@Override
+	public long getEstimatedRemainingSeconds() {
+
+		final int completed = completedWorkUnits.get();
+		if (0 == completed) {
+			return -1;
+		}
+		return TimeUnit.NANOSECONDS.toSeconds((System.nanoTime() - startNanoTime) * (workUnitsCount - completed) / completed);
+	}
+
+	/**
+	 * Format a duration as hours:minutes:seconds.
+	 *
+	 * @param seconds duration, negative if unknown
+	 * @return formatted duration
+	 */
+	private static String formatDuration(final long seconds) {
+
+		if (seconds < 0) {
+			return "?"; //$NON-NLS-1$
+		}
+		return String.format("%d:%02d:%02d", Long.valueOf(seconds / 3600), Long.valueOf(seconds / 60 % 60), Long.valueOf(seconds % 60)); //$NON-NLS-1$
+	}
+
+	@Override
+	public String toString() {
+
+		return "Progress: work units " + getCompletedWorkUnits() + "/" + workUnitsCount + ", nodes " + getNodeCount() + " (" + getNodesPerSecond() + "/s), solutions " + getSolutionCount() + ", elapsed " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+				+ formatDuration(getElapsedSeconds()) + ", ETA " + formatDuration(getEstimatedRemainingSeconds()); //$NON-NLS-1$
+	}
+}
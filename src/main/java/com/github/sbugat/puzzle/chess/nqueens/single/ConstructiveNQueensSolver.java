@@ -0,0 +1,69 @@
+package com.github.sbugat.puzzle.chess.nqueens.single;
+
+/**
+ * Single placement of N chess queens with the explicit construction, in O(N) for any chessboard size except 2 and 3 which have no solution.
+ *
+ * Even columns are placed on the first lines then odd columns, with a few columns moved when the chessboard size modulo 6 is 2 or 3.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class ConstructiveNQueensSolver extends PlacementNQueensSolver {
+
+	public ConstructiveNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg) {
+
+		super(chessboardSizeArg, printSolutionArg);
+	}
+
+	@Override
+	public long solve() {
+
+		// No solution on 2x2 and 3x3 chessboards
+		if (2 == chessboardSize || 3 == chessboardSize) {
+			solutionCount = 0;
+			return solutionCount;
+		}
+
+		// Columns numbered from 1 like in the construction: even columns then odd columns
+		final int remainder = chessboardSize % 6;
+		int y = 0;
+
+		if (3 == remainder) {
+			// Evens from 4 then 2 at the end
+			for (int column = 4; column <= chessboardSize; column += 2) {
+				queens[y++] = column - 1;
+			}
+			queens[y++] = 1;
+			// Odds from 5 then 1 and 3 at the end
+			for (int column = 5; column <= chessboardSize; column += 2) {
+				queens[y++] = column - 1;
+			}
+			queens[y++] = 0;
+			queens[y++] = 2;
+		}
+		else {
+			for (int column = 2; column <= chessboardSize; column += 2) {
+				queens[y++] = column - 1;
+			}
+
+			if (2 == remainder) {
+				// Odds with 1 and 3 swapped and 5 at the end
+				queens[y++] = 2;
+				queens[y++] = 0;
+				for (int column = 7; column <= chessboardSize; column += 2) {
+					queens[y++] = column - 1;
+				}
+				queens[y++] = 4;
+			}
+			else {
+				for (int column = 1; column <= chessboardSize; column += 2) {
+					queens[y++] = column - 1;
+				}
+			}
+		}
+
+		solutionCount = 1;
+		print();
+		return solutionCount;
+	}
+}
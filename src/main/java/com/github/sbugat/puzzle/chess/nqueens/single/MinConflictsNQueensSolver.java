@@ -0,0 +1,211 @@
+package com.github.sbugat.puzzle.chess.nqueens.single;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Single placement of N chess queens with a min-conflicts local search, for chessboard sizes up to millions.
+ *
+ * Queens are a permutation of the columns so only diagonals can be in conflict, each diagonal has a queens counter. A random greedy placement leaves only a few conflicts, then queens in conflict are swapped with random lines when the swap reduces the number of conflicts. The search
+ * restarts from a new placement if it does not converge.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class MinConflictsNQueensSolver extends PlacementNQueensSolver {
+
+	/** Default number of swaps tried for each line before a restart, multiplied by the chessboard size. */
+	public static final int DEFAULT_SWAPS_PER_LINE = 32;
+
+	/** Number of random columns tried for a line of the greedy placement. */
+	private static final int GREEDY_TRIES = 8;
+	/** Number of random lines tried to swap with a line in conflict. */
+	private static final int SWAP_TRIES = 16;
+
+	/** Random generator of the placements and swaps. */
+	private final SplittableRandom random;
+	/** Maximum number of swaps tried before a restart. */
+	private final long maximumSwaps;
+
+	/** Number of queens on each ascending diagonal: x + y. */
+	private final int[] ascendingDiagonalsQueens;
+	/** Number of queens on each descending diagonal: x + chess board size - 1 - y. */
+	private final int[] descendingDiagonalsQueens;
+	/** Number of conflicts: queens on each diagonal minus one, summed. */
+	private long conflicts;
+	/** Number of restarts of the last search. */
+	private int restarts;
+
+	public MinConflictsNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg) {
+
+		this(chessboardSizeArg, printSolutionArg, System.nanoTime());
+	}
+
+	/**
+	 * Create a reproducible solver.
+	 *
+	 * @param chessboardSizeArg size of the chessboard
+	 * @param printSolutionArg print solution flag
+	 * @param seed random generator seed
+	 */
+	public MinConflictsNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg, final long seed) {
+
+		super(chessboardSizeArg, printSolutionArg);
+
+		random = new SplittableRandom(seed);
+		maximumSwaps = (long) DEFAULT_SWAPS_PER_LINE * chessboardSizeArg;
+		ascendingDiagonalsQueens = new int[chessboardSizeArg * 2 - 1];
+		descendingDiagonalsQueens = new int[chessboardSizeArg * 2 - 1];
+	}
+
+	@Override
+	public long solve() {
+
+		// No solution on 2x2 and 3x3 chessboards
+		if (2 == chessboardSize || 3 == chessboardSize) {
+			solutionCount = 0;
+			return solutionCount;
+		}
+
+		restarts = 0;
+		placeGreedy();
+		while (!repair()) {
+			restarts++;
+			placeGreedy();
+		}
+
+		solutionCount = 1;
+		print();
+		return solutionCount;
+	}
+
+	/**
+	 * Place queens line by line on a random free column among the columns not used yet, or on a random column if none is found quickly.
+	 */
+	private void placeGreedy() {
+
+		for (int y = 0; y < chessboardSize; y++) {
+			queens[y] = y;
+		}
+		Arrays.fill(ascendingDiagonalsQueens, 0);
+		Arrays.fill(descendingDiagonalsQueens, 0);
+		conflicts = 0;
+
+		for (int y = 0; y < chessboardSize; y++) {
+
+			// Swap a random unused column on this line
+			int line = y + random.nextInt(chessboardSize - y);
+			for (int i = 1; i < GREEDY_TRIES && !isFree(queens[line], y); i++) {
+				line = y + random.nextInt(chessboardSize - y);
+			}
+
+			final int column = queens[line];
+			queens[line] = queens[y];
+			queens[y] = column;
+			add(column, y);
+		}
+	}
+
+	/**
+	 * Swap queens in conflict with random lines until there is no conflict left or the maximum number of swaps is reached.
+	 *
+	 * @return true if a solution is found
+	 */
+	private boolean repair() {
+
+		long swaps = 0;
+		while (0 != conflicts) {
+
+			for (int y = 0; y < chessboardSize && 0 != conflicts; y++) {
+
+				if (!isAttacked(y)) {
+					continue;
+				}
+
+				for (int i = 0; i < SWAP_TRIES; i++) {
+
+					if (++swaps > maximumSwaps) {
+						return false;
+					}
+
+					final int otherLine = random.nextInt(chessboardSize);
+					if (otherLine != y && swapReducesConflicts(y, otherLine)) {
+						break;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Swap the columns of 2 lines, the swap is undone if it does not reduce the number of conflicts.
+	 *
+	 * @param y first line
+	 * @param otherLine second line
+	 * @return true if the swap is kept
+	 */
+	private boolean swapReducesConflicts(final int y, final int otherLine) {
+
+		final long previousConflicts = conflicts;
+		final int column = queens[y];
+		final int otherColumn = queens[otherLine];
+
+		remove(column, y);
+		remove(otherColumn, otherLine);
+		add(otherColumn, y);
+		add(column, otherLine);
+
+		if (conflicts < previousConflicts) {
+			queens[y] = otherColumn;
+			queens[otherLine] = column;
+			return true;
+		}
+
+		remove(otherColumn, y);
+		remove(column, otherLine);
+		add(column, y);
+		add(otherColumn, otherLine);
+		return false;
+	}
+
+	private boolean isFree(final int x, final int y) {
+		return 0 == ascendingDiagonalsQueens[x + y] && 0 == descendingDiagonalsQueens[x + chessboardSize - 1 - y];
+	}
+
+	private boolean isAttacked(final int y) {
+
+		final int x = queens[y];
+		return ascendingDiagonalsQueens[x + y] > 1 || descendingDiagonalsQueens[x + chessboardSize - 1 - y] > 1;
+	}
+
+	private void add(final int x, final int y) {
+
+		if (0 != ascendingDiagonalsQueens[x + y]++) {
+			conflicts++;
+		}
+		if (0 != descendingDiagonalsQueens[x + chessboardSize - 1 - y]++) {
+			conflicts++;
+		}
+	}
+
+	private void remove(final int x, final int y) {
+
+		if (1 != ascendingDiagonalsQueens[x + y]--) {
+			conflicts--;
+		}
+		if (1 != descendingDiagonalsQueens[x + chessboardSize - 1 - y]--) {
+			conflicts--;
+		}
+	}
+
+	/**
+	 * Get the number of restarts of the last search.
+	 *
+	 * @return number of restarts
+	 */
+	public int getRestarts() {
+		return restarts;
+	}
+}
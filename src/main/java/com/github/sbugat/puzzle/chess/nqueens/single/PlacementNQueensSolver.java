@@ -0,0 +1,87 @@
+package com.github.sbugat.puzzle.chess.nqueens.single;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+
+/**
+ * N chess queens solver finding a single placement of the queens instead of counting all solutions, the solution count is 1 if a placement is found or 0 if there is none.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public abstract class PlacementNQueensSolver extends GenericNQueensSolver {
+
+	/** Column of the queen of each line. */
+	protected final int[] queens;
+
+	protected PlacementNQueensSolver(final int chessboardSizeArg, final boolean printSolutionArg) {
+
+		super(chessboardSizeArg, printSolutionArg);
+
+		if (chessboardSizeArg < 1) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		queens = new int[chessboardSizeArg];
+	}
+
+	/**
+	 * Get the column of the queen of a line of the found placement.
+	 *
+	 * @param y line
+	 * @return column of the queen
+	 */
+	public int getQueenColumn(final int y) {
+		return queens[y];
+	}
+
+	/**
+	 * Get a copy of the found placement.
+	 *
+	 * @return column of the queen of each line
+	 */
+	public int[] getQueens() {
+		return queens.clone();
+	}
+
+	/**
+	 * Check that the found placement is a solution: each column and diagonal has at most one queen.
+	 *
+	 * @return true if no queen is attacked
+	 */
+	public boolean checkPlacement() {
+
+		if (0 == solutionCount) {
+			return false;
+		}
+
+		final boolean[] usedColumns = new boolean[chessboardSize];
+		final boolean[] usedAscendingDiagonals = new boolean[chessboardSize * 2 - 1];
+		final boolean[] usedDescendingDiagonals = new boolean[chessboardSize * 2 - 1];
+
+		for (int y = 0; y < chessboardSize; y++) {
+
+			final int x = queens[y];
+			if (x < 0 || x >= chessboardSize || usedColumns[x] || usedAscendingDiagonals[x + y] || usedDescendingDiagonals[x + chessboardSize - 1 - y]) {
+				return false;
+			}
+
+			usedColumns[x] = true;
+			usedAscendingDiagonals[x + y] = true;
+			usedDescendingDiagonals[x + chessboardSize - 1 - y] = true;
+		}
+
+		return true;
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+		return queens[y] == x;
+	}
+}
@@ -0,0 +1,105 @@
+package com.github.sbugat.puzzle.chess.nqueens.single;
+
+import gnu.getopt.Getopt;
+
+/**
+ * Find a single placement of N chess queens on large chessboards with the explicit construction or the min-conflicts search.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SingleSolutionNQueensSolvers {
+
+	private SingleSolutionNQueensSolvers() {
+		// Tools class
+	}
+
+	/**
+	 * Main program, find and check a single placement.
+	 *
+	 * @param args options
+	 */
+	public static void main(final String args[]) {
+
+		final String usage = "Usage: " + SingleSolutionNQueensSolvers.class.getSimpleName() + " [-n <size of the chessboard>] [-m(min-conflicts search)] [-s <random seed>] [-p(print the solution)]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(SingleSolutionNQueensSolvers.class.getSimpleName(), args, ":n:ms:p"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		// Default chessboard size
+		int chessboardSize = 1000;
+		boolean minConflicts = false;
+		Long seed = null;
+		boolean printSolution = false;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'm':
+					minConflicts = true;
+					break;
+
+				case 's':
+					seed = Long.valueOf(getOpt.getOptarg());
+					break;
+
+				case 'p':
+					printSolution = true;
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final NumberFormatException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 1) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		final PlacementNQueensSolver solver;
+		if (!minConflicts) {
+			solver = new ConstructiveNQueensSolver(chessboardSize, printSolution);
+		}
+		else if (null == seed) {
+			solver = new MinConflictsNQueensSolver(chessboardSize, printSolution);
+		}
+		else {
+			solver = new MinConflictsNQueensSolver(chessboardSize, printSolution, seed.longValue());
+		}
+
+		final long startTime = System.nanoTime();
+		final long solutionCount = solver.solve();
+		final long elapsedTime = System.nanoTime() - startTime;
+
+		if (0 == solutionCount) {
+			System.out.println("No solution on a chessboard of size " + chessboardSize); //$NON-NLS-1$
+			return;
+		}
+
+		System.out.println("Solution found in " + elapsedTime / 1_000_000 + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (solver instanceof MinConflictsNQueensSolver) {
+			System.out.println("Restarts: " + ((MinConflictsNQueensSolver) solver).getRestarts()); //$NON-NLS-1$
+		}
+
+		if (!solver.checkPlacement()) {
+			System.err.println("Invalid placement found, check the algorithm."); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.github.sbugat.puzzle.chess.nqueens.store;
+
+import gnu.getopt.Getopt;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsSolutions;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongStackedBitFlagsNQueensSolver;
+
+/**
+ * Compact binary file of N chess queens solutions with random access.
+ *
+ * File format: a header of {@value #HEADER_SIZE} bytes (magic, version, chessboard size, bits per queen, solutions count) followed by the solutions as a stream of 64 bits words. Each solution is packed in N fields of ceil(log2 N) bits, most significant bits first: the k-th solution starts at
+ * bit k * N * ceil(log2 N), all records have the same size so the solutions index is a multiplication.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SolutionStore {
+
+	/** File magic number: "NQSS". */
+	static final int MAGIC = 0x4E515353;
+	/** File format version. */
+	static final int VERSION = 1;
+	/** Header size in bytes, a multiple of 8. */
+	static final int HEADER_SIZE = 32;
+	/** Offset of the solutions count in the header. */
+	static final int SOLUTION_COUNT_OFFSET = 16;
+	/** Size of the memory-mapped regions of the file, a multiple of 8. */
+	static final int REGION_SIZE = 1 << 26;
+
+	private SolutionStore() {
+		// Tools class
+	}
+
+	/**
+	 * Number of bits to store a queen column.
+	 *
+	 * @param chessboardSize size of the chessboard
+	 * @return ceil(log2(chessboardSize)), at least 1
+	 */
+	public static int getBitsPerQueen(final int chessboardSize) {
+		return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(chessboardSize - 1));
+	}
+
+	/**
+	 * Main program, write all solutions of a chessboard in a file or read solutions of a file.
+	 *
+	 * @param args options
+	 * @throws IOException if the file cannot be used
+	 */
+	public static void main(final String args[]) throws IOException {
+
+		final String usage = "Usage: " + SolutionStore.class.getSimpleName() + " [-n <size of the chessboard> -o <file to write>] [-i <file to read> [-k <solution index>]]"; //$NON-NLS-1$ //$NON-NLS-2$
+
+		final Getopt getOpt = new Getopt(SolutionStore.class.getSimpleName(), args, ":n:o:i:k:"); //$NON-NLS-1$
+		getOpt.setOpterr(false);
+
+		int chessboardSize = 8;
+		Path outputFile = null;
+		Path inputFile = null;
+		long solutionIndex = -1;
+
+		int c = getOpt.getopt();
+		while (-1 != c) {
+
+			try {
+				switch (c) {
+
+				case 'n':
+					chessboardSize = Integer.parseInt(getOpt.getOptarg());
+					break;
+
+				case 'o':
+					outputFile = Paths.get(getOpt.getOptarg());
+					break;
+
+				case 'i':
+					inputFile = Paths.get(getOpt.getOptarg());
+					break;
+
+				case 'k':
+					solutionIndex = Long.parseLong(getOpt.getOptarg());
+					break;
+
+				case '?':
+				default:
+					System.err.println(usage);
+					System.exit(1);
+				}
+			}
+			catch (final NumberFormatException e) {
+				System.err.println(usage);
+				System.exit(1);
+			}
+
+			c = getOpt.getopt();
+		}
+
+		if (chessboardSize < 1 || chessboardSize > LongStackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE || (null == outputFile) == (null == inputFile)) {
+			System.err.println(usage);
+			System.exit(1);
+		}
+
+		if (null != outputFile) {
+			try (final SolutionStoreWriter solutionStoreWriter = new SolutionStoreWriter(outputFile, chessboardSize)) {
+				System.out.println("Total number of solution(s) written:" + BitFlagsSolutions.enumerate(chessboardSize, solutionStoreWriter)); //$NON-NLS-1$
+			}
+			return;
+		}
+
+		try (final SolutionStoreReader solutionStoreReader = new SolutionStoreReader(inputFile)) {
+
+			System.out.println("Chessboard size:" + solutionStoreReader.getChessboardSize() + " number of solution(s):" + solutionStoreReader.getSolutionCount()); //$NON-NLS-1$ //$NON-NLS-2$
+			if (solutionIndex >= 0) {
+				System.out.println("Solution " + solutionIndex + ": " + Arrays.toString(solutionStoreReader.getSolution(solutionIndex, new int[solutionStoreReader.getChessboardSize()]))); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+}
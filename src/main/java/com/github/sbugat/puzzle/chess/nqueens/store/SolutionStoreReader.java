@@ -0,0 +1,147 @@
+package com.github.sbugat.puzzle.chess.nqueens.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.github.sbugat.puzzle.chess.nqueens.SolutionVisitor;
+
+/**
+ * Random access reader of a {@link SolutionStore} file through memory-mapped regions.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SolutionStoreReader implements Closeable {
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Number of bits of a queen column. */
+	private final int bitsPerQueen;
+	/** Number of bits of a solution. */
+	private final long bitsPerSolution;
+	/** Number of solutions of the file. */
+	private final long solutionCount;
+
+	private final FileChannel fileChannel;
+
+	/** Mapped regions of the whole file. */
+	private final MappedByteBuffer[] regions;
+
+	public SolutionStoreReader(final Path storeFile) throws IOException {
+
+		fileChannel = FileChannel.open(storeFile, StandardOpenOption.READ);
+
+		final long fileSize = fileChannel.size();
+		if (fileSize < SolutionStore.HEADER_SIZE) {
+			fileChannel.close();
+			throw new IOException("Truncated solutions file: " + storeFile); //$NON-NLS-1$
+		}
+
+		regions = new MappedByteBuffer[(int) ((fileSize + SolutionStore.REGION_SIZE - 1) / SolutionStore.REGION_SIZE)];
+		for (int i = 0; i < regions.length; i++) {
+			final long regionPosition = (long) i * SolutionStore.REGION_SIZE;
+			regions[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, regionPosition, Math.min(SolutionStore.REGION_SIZE, fileSize - regionPosition));
+		}
+
+		final MappedByteBuffer header = regions[0];
+		if (SolutionStore.MAGIC != header.getInt(0) || SolutionStore.VERSION != header.getInt(4)) {
+			fileChannel.close();
+			throw new IOException("Invalid solutions file: " + storeFile); //$NON-NLS-1$
+		}
+		chessboardSize = header.getInt(8);
+		bitsPerQueen = header.getInt(12);
+		solutionCount = header.getLong(SolutionStore.SOLUTION_COUNT_OFFSET);
+		bitsPerSolution = (long) chessboardSize * bitsPerQueen;
+
+		if (SolutionStore.HEADER_SIZE + (solutionCount * bitsPerSolution + Long.SIZE - 1) / Long.SIZE * Long.BYTES > fileSize) {
+			fileChannel.close();
+			throw new IOException("Truncated solutions file: " + storeFile); //$NON-NLS-1$
+		}
+	}
+
+	public int getChessboardSize() {
+		return chessboardSize;
+	}
+
+	public long getSolutionCount() {
+		return solutionCount;
+	}
+
+	/**
+	 * Read a solution without reading the previous ones.
+	 *
+	 * @param solutionIndex index of the solution, from 0
+	 * @param queenColumns array of at least the chessboard size filled with the column of the queen of each line
+	 * @return the queen columns array
+	 */
+	public int[] getSolution(final long solutionIndex, final int[] queenColumns) {
+
+		if (solutionIndex < 0 || solutionIndex >= solutionCount) {
+			throw new IndexOutOfBoundsException("Solution " + solutionIndex + " of " + solutionCount); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		long bitOffset = solutionIndex * bitsPerSolution;
+		for (int line = 0; line < chessboardSize; line++, bitOffset += bitsPerQueen) {
+			queenColumns[line] = (int) readBits(bitOffset, bitsPerQueen);
+		}
+		return queenColumns;
+	}
+
+	/**
+	 * Visit the solutions in file order from an index.
+	 *
+	 * @param firstSolutionIndex index of the first visited solution
+	 * @param solutionVisitor visitor of the solutions
+	 * @return number of visited solutions
+	 */
+	public long enumerate(final long firstSolutionIndex, final SolutionVisitor solutionVisitor) {
+
+		final int[] queenColumns = new int[chessboardSize];
+		for (long solutionIndex = firstSolutionIndex; solutionIndex < solutionCount; solutionIndex++) {
+			if (!solutionVisitor.visit(getSolution(solutionIndex, queenColumns))) {
+				return solutionIndex - firstSolutionIndex + 1;
+			}
+		}
+		return Math.max(0, solutionCount - firstSolutionIndex);
+	}
+
+	/**
+	 * Read bits of the solutions stream, the bits are in 1 or 2 consecutive words.
+	 *
+	 * @param bitOffset offset of the first bit in the solutions stream
+	 * @param bitNumber number of bits to read, less than 64
+	 * @return bits value
+	 */
+	private long readBits(final long bitOffset, final int bitNumber) {
+
+		final long wordIndex = bitOffset >>> 6;
+		final int bitInWord = (int) (bitOffset & Long.SIZE - 1);
+
+		final long word = readWord(wordIndex) << bitInWord;
+		if (bitInWord + bitNumber <= Long.SIZE) {
+			return word >>> Long.SIZE - bitNumber;
+		}
+		return (word | readWord(wordIndex + 1) >>> Long.SIZE - bitInWord) >>> Long.SIZE - bitNumber;
+	}
+
+	/**
+	 * Read a word of the solutions stream, words never cross 2 regions.
+	 *
+	 * @param wordIndex index of the word
+	 * @return word value
+	 */
+	private long readWord(final long wordIndex) {
+
+		final long filePosition = SolutionStore.HEADER_SIZE + wordIndex * Long.BYTES;
+		return regions[(int) (filePosition / SolutionStore.REGION_SIZE)].getLong((int) (filePosition % SolutionStore.REGION_SIZE));
+	}
+
+	@Override
+	public void close() throws IOException {
+		fileChannel.close();
+	}
+}
@@ -0,0 +1,137 @@
+package com.github.sbugat.puzzle.chess.nqueens.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.github.sbugat.puzzle.chess.nqueens.SolutionVisitor;
+
+/**
+ * Solutions visitor writing a {@link SolutionStore} file through memory-mapped regions.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class SolutionStoreWriter implements SolutionVisitor, Closeable {
+
+	/** Size of the chess board. */
+	private final int chessboardSize;
+	/** Number of bits of a queen column. */
+	private final int bitsPerQueen;
+
+	private final FileChannel fileChannel;
+
+	/** Current mapped region of the file. */
+	private MappedByteBuffer region;
+	/** File position of the current region. */
+	private long regionPosition;
+
+	/** Bits not written yet, aligned on the most significant bits. */
+	private long bitBuffer;
+	/** Number of bits in the bit buffer. */
+	private int bitBufferLength;
+
+	/** Number of written solutions. */
+	private long solutionCount;
+
+	public SolutionStoreWriter(final Path storeFile, final int chessboardSizeArg) throws IOException {
+
+		chessboardSize = chessboardSizeArg;
+		bitsPerQueen = SolutionStore.getBitsPerQueen(chessboardSizeArg);
+
+		fileChannel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		regionPosition = 0;
+		region = fileChannel.map(FileChannel.MapMode.READ_WRITE, regionPosition, SolutionStore.REGION_SIZE);
+		region.putInt(SolutionStore.MAGIC);
+		region.putInt(SolutionStore.VERSION);
+		region.putInt(chessboardSizeArg);
+		region.putInt(bitsPerQueen);
+		region.putLong(0);
+		region.putLong(0);
+	}
+
+	@Override
+	public boolean visit(final int[] queenColumns) {
+
+		try {
+			for (int line = 0; line < chessboardSize; line++) {
+				writeBits(queenColumns[line], bitsPerQueen);
+			}
+		}
+		catch (final IOException e) {
+			throw new IllegalStateException("Solution not written", e); //$NON-NLS-1$
+		}
+		solutionCount++;
+		return true;
+	}
+
+	/**
+	 * Append the lowest bits of a value.
+	 *
+	 * @param value value to write
+	 * @param bitNumber number of bits to write, less than 64
+	 * @throws IOException if the next region cannot be mapped
+	 */
+	private void writeBits(final long value, final int bitNumber) throws IOException {
+
+		final int freeBits = Long.SIZE - bitBufferLength;
+		if (bitNumber < freeBits) {
+			bitBuffer |= value << freeBits - bitNumber;
+			bitBufferLength += bitNumber;
+			return;
+		}
+
+		// Fill and write the buffer word, keep the remaining bits
+		final int remainingBits = bitNumber - freeBits;
+		writeWord(bitBuffer | value >>> remainingBits);
+		bitBuffer = 0 == remainingBits ? 0 : value << Long.SIZE - remainingBits;
+		bitBufferLength = remainingBits;
+	}
+
+	/**
+	 * Write a 64 bits word in the current region, or in the next region if the current one is full.
+	 *
+	 * @param word word to write
+	 * @throws IOException if the next region cannot be mapped
+	 */
+	private void writeWord(final long word) throws IOException {
+
+		if (!region.hasRemaining()) {
+			regionPosition += SolutionStore.REGION_SIZE;
+			region = fileChannel.map(FileChannel.MapMode.READ_WRITE, regionPosition, SolutionStore.REGION_SIZE);
+		}
+		region.putLong(word);
+	}
+
+	public long getSolutionCount() {
+		return solutionCount;
+	}
+
+	/**
+	 * Write the last bits and the solutions count, the file is truncated after the last word.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		try {
+			if (bitBufferLength > 0) {
+				writeWord(bitBuffer);
+			}
+			final long fileSize = regionPosition + region.position();
+			region.force();
+
+			final MappedByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, SolutionStore.HEADER_SIZE);
+			header.putLong(SolutionStore.SOLUTION_COUNT_OFFSET, solutionCount);
+			header.force();
+
+			fileChannel.truncate(fileSize);
+		}
+		finally {
+			fileChannel.close();
+		}
+	}
+}
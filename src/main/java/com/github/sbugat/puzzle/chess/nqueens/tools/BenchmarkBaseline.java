@@ -0,0 +1,92 @@
+package com.github.sbugat.puzzle.chess.nqueens.tools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Saved median run times of benchmarks, a new benchmark fails if it is slower than its baseline by more than a threshold.
+ *
+ * The file is a properties file with a "name.size" key and the median time in nanoseconds as value.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class BenchmarkBaseline {
+
+	/** Median times by benchmark key. */
+	private final Properties medianTimes = new Properties();
+
+	/**
+	 * Load a baseline file, a missing file is an empty baseline.
+	 *
+	 * @param baselineFile baseline file
+	 * @return loaded baseline
+	 * @throws IOException if the file cannot be read
+	 */
+	public static BenchmarkBaseline load(final Path baselineFile) throws IOException {
+
+		final BenchmarkBaseline baseline = new BenchmarkBaseline();
+		if (Files.exists(baselineFile)) {
+			try (final InputStream inputStream = Files.newInputStream(baselineFile)) {
+				baseline.medianTimes.load(inputStream);
+			}
+		}
+		return baseline;
+	}
+
+	/**
+	 * Save the baseline file.
+	 *
+	 * @param baselineFile baseline file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(final Path baselineFile) throws IOException {
+
+		try (final OutputStream outputStream = Files.newOutputStream(baselineFile)) {
+			medianTimes.store(outputStream, "Benchmarks median times in nanoseconds"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Key of a benchmark result.
+	 *
+	 * @param benchmarkResult benchmark result
+	 * @return name and size key
+	 */
+	private static String key(final BenchmarkResult benchmarkResult) {
+		return benchmarkResult.getName() + '.' + benchmarkResult.getPuzzleSize();
+	}
+
+	/**
+	 * Replace the baseline of a benchmark with its new median time.
+	 *
+	 * @param benchmarkResult benchmark result
+	 */
+	public void put(final BenchmarkResult benchmarkResult) {
+		medianTimes.setProperty(key(benchmarkResult), String.valueOf(benchmarkResult.getP50()));
+	}
+
+	/**
+	 * Compare the median time of a benchmark with its baseline, a benchmark without baseline is accepted.
+	 *
+	 * @param benchmarkResult benchmark result
+	 * @param thresholdPercent allowed slowdown in percent
+	 * @throws PerformanceRegressionException if the benchmark is slower than allowed
+	 */
+	public void check(final BenchmarkResult benchmarkResult, final double thresholdPercent) throws PerformanceRegressionException {
+
+		final String value = medianTimes.getProperty(key(benchmarkResult));
+		if (null == value) {
+			return;
+		}
+
+		final long baselineTime = Long.parseLong(value.trim());
+		if (benchmarkResult.getP50() > baselineTime * (1 + thresholdPercent / 100)) {
+			throw new PerformanceRegressionException(key(benchmarkResult), baselineTime, benchmarkResult.getP50(), thresholdPercent);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package com.github.sbugat.puzzle.chess.nqueens.tools;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Run times of a solver benchmark with their statistics: percentiles, standard deviation and 95% confidence interval of the mean.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class BenchmarkResult {
+
+	/** CSV header of the {@link #toCsv()} lines. */
+	public static final String CSV_HEADER = "name,size,warmups,runs,min,mean,trimmedMean,stddev,ci95,p50,p90,p99,max"; //$NON-NLS-1$
+
+	/** Student t-distribution 97.5% quantiles for 1 to 30 degrees of freedom, the normal quantile 1.96 is used above. */
+	private static final double[] STUDENT_T_975 = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+	/** Normal distribution 97.5% quantile. */
+	private static final double NORMAL_975 = 1.96;
+
+	/** Benchmark name. */
+	private final String name;
+	/** Size of the puzzle. */
+	private final int puzzleSize;
+	/** Number of warmup runs not measured. */
+	private final int warmupNumber;
+	/** Sorted run times in nanoseconds. */
+	private final long[] runTimes;
+
+	public BenchmarkResult(final String nameArg, final int puzzleSizeArg, final int warmupNumberArg, final long[] runTimesArg) {
+
+		if (0 == runTimesArg.length) {
+			throw new IllegalArgumentException("No benchmark run"); //$NON-NLS-1$
+		}
+
+		name = nameArg;
+		puzzleSize = puzzleSizeArg;
+		warmupNumber = warmupNumberArg;
+		runTimes = runTimesArg.clone();
+		Arrays.sort(runTimes);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPuzzleSize() {
+		return puzzleSize;
+	}
+
+	public int getWarmupNumber() {
+		return warmupNumber;
+	}
+
+	public int getRunNumber() {
+		return runTimes.length;
+	}
+
+	public long getMin() {
+		return runTimes[0];
+	}
+
+	public long getMax() {
+		return runTimes[runTimes.length - 1];
+	}
+
+	public double getMean() {
+
+		double sum = 0;
+		for (final long runTime : runTimes) {
+			sum += runTime;
+		}
+		return sum / runTimes.length;
+	}
+
+	/**
+	 * Mean of the 60% mid-range run times: the 20% slowest and 20% fastest runs are excluded.
+	 *
+	 * @return trimmed mean in nanoseconds
+	 */
+	public long getTrimmedMean() {
+
+		// Exclude 20% slowest and 20% fastest benchmarks (example: for 5 benchmarks, exlude the fastest and slowest benchmark)
+		final int numberExcludedRun = runTimes.length / 5;
+
+		long sum = 0;
+		for (int runNumber = numberExcludedRun; runNumber < runTimes.length - numberExcludedRun; runNumber++) {
+			sum += runTimes[runNumber];
+		}
+		return sum / (runTimes.length - 2 * numberExcludedRun);
+	}
+
+	/**
+	 * Sample standard deviation of the run times.
+	 *
+	 * @return standard deviation in nanoseconds, 0 for a single run
+	 */
+	public double getStandardDeviation() {
+
+		if (runTimes.length < 2) {
+			return 0;
+		}
+
+		final double mean = getMean();
+		double squaresSum = 0;
+		for (final long runTime : runTimes) {
+			squaresSum += (runTime - mean) * (runTime - mean);
+		}
+		return Math.sqrt(squaresSum / (runTimes.length - 1));
+	}
+
+	/**
+	 * Half width of the 95% confidence interval of the mean with the Student t-distribution.
+	 *
+	 * @return confidence interval half width in nanoseconds, 0 for a single run
+	 */
+	public double getConfidenceInterval95() {
+
+		if (runTimes.length < 2) {
+			return 0;
+		}
+
+		final int degreesOfFreedom = runTimes.length - 1;
+		final double quantile = degreesOfFreedom <= STUDENT_T_975.length ? STUDENT_T_975[degreesOfFreedom - 1] : NORMAL_975;
+		return quantile * getStandardDeviation() / Math.sqrt(runTimes.length);
+	}
+
+	/**
+	 * Nearest-rank percentile of the run times.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return run time in nanoseconds
+	 */
+	public long getPercentile(final double percentile) {
+
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Invalid percentile " + percentile); //$NON-NLS-1$
+		}
+
+		final int rank = (int) Math.ceil(percentile / 100 * runTimes.length);
+		return runTimes[Math.max(rank, 1) - 1];
+	}
+
+	public long getP50() {
+		return getPercentile(50);
+	}
+
+	public long getP90() {
+		return getPercentile(90);
+	}
+
+	public long getP99() {
+		return getPercentile(99);
+	}
+
+	/**
+	 * CSV line of the statistics, times in nanoseconds.
+	 *
+	 * @return CSV line matching {@link #CSV_HEADER}
+	 */
+	public String toCsv() {
+
+		return String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.1f,%d,%.1f,%.1f,%d,%d,%d,%d", name, Integer.valueOf(puzzleSize), Integer.valueOf(warmupNumber), Integer.valueOf(runTimes.length), Long.valueOf(getMin()), Double.valueOf(getMean()), Long.valueOf(getTrimmedMean()), //$NON-NLS-1$
+				Double.valueOf(getStandardDeviation()), Double.valueOf(getConfidenceInterval95()), Long.valueOf(getP50()), Long.valueOf(getP90()), Long.valueOf(getP99()), Long.valueOf(getMax()));
+	}
+
+	/**
+	 * JSON object of the statistics, times in nanoseconds.
+	 *
+	 * @return JSON object
+	 */
+	public String toJson() {
+
+		return String.format(Locale.ROOT, "{\"name\":\"%s\",\"size\":%d,\"warmups\":%d,\"runs\":%d,\"min\":%d,\"mean\":%.1f,\"trimmedMean\":%d,\"stddev\":%.1f,\"ci95\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"max\":%d}", //$NON-NLS-1$
+				name.replace("\\", "\\\\").replace("\"", "\\\""), Integer.valueOf(puzzleSize), Integer.valueOf(warmupNumber), Integer.valueOf(runTimes.length), Long.valueOf(getMin()), Double.valueOf(getMean()), Long.valueOf(getTrimmedMean()), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				Double.valueOf(getStandardDeviation()), Double.valueOf(getConfidenceInterval95()), Long.valueOf(getP50()), Long.valueOf(getP90()), Long.valueOf(getP99()), Long.valueOf(getMax()));
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(Locale.ROOT, "%s size %d: mean %.0f ns +/- %.0f (95%%), stddev %.0f, p50 %d, p90 %d, p99 %d, max %d (%d runs after %d warmups)", name, Integer.valueOf(puzzleSize), Double.valueOf(getMean()), Double.valueOf(getConfidenceInterval95()), Double.valueOf(getStandardDeviation()), //$NON-NLS-1$
+				Long.valueOf(getP50()), Long.valueOf(getP90()), Long.valueOf(getP99()), Long.valueOf(getMax()), Integer.valueOf(runTimes.length), Integer.valueOf(warmupNumber));
+	}
+}
@@ -1,44 +1,110 @@
 package com.github.sbugat.puzzle.chess.nqueens.tools;
 
-import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
 
 public class BenchmarkTools {
 
+	/**
+	 * Benchmark a solver without warmup.
+	 *
+	 * @param genericNQueensSolver solver to benchmark
+	 * @param benchmarkNumber number of measured runs
+	 * @return mean time in nanoseconds of the 60% mid-range runs
+	 * @throws InvalidSolutionsException if a run finds an invalid number of solutions
+	 */
 	public static long benchmark(final GenericNQueensSolver genericNQueensSolver, final int benchmarkNumber) throws InvalidSolutionsException {
 
-		final List<Long> benckmark = new ArrayList<>();
+		return benchmark(genericNQueensSolver.getClass().getSimpleName(), genericNQueensSolver, 0, benchmarkNumber).getTrimmedMean();
+	}
 
-		for (int runNumber = 0; runNumber < benchmarkNumber; runNumber++) {
-			genericNQueensSolver.reset();
-			final long startNanoTime = System.nanoTime();
-			final long solutionCount = genericNQueensSolver.solve();
-			final long endNanoTime = System.nanoTime();
+	/**
+	 * Benchmark a solver: warmup runs are checked but not measured.
+	 *
+	 * @param name benchmark name
+	 * @param genericNQueensSolver solver to benchmark
+	 * @param warmupNumber number of warmup runs
+	 * @param benchmarkNumber number of measured runs
+	 * @return run times statistics
+	 * @throws InvalidSolutionsException if a run finds an invalid number of solutions
+	 */
+	public static BenchmarkResult benchmark(final String name, final GenericNQueensSolver genericNQueensSolver, final int warmupNumber, final int benchmarkNumber) throws InvalidSolutionsException {
 
-			if (!SequenceTools.checkSolutionsFound(genericNQueensSolver.getPuzzleSize(), solutionCount)) {
-				throw new InvalidSolutionsException(solutionCount, SequenceTools.getExpectedSolutions(genericNQueensSolver.getPuzzleSize()), genericNQueensSolver.getPuzzleSize());
-			}
+		return benchmark(name, genericNQueensSolver, warmupNumber, benchmarkNumber, SequenceTools.getExpectedSolutions(genericNQueensSolver.getPuzzleSize()));
+	}
+
+	/**
+	 * Benchmark a solver with an expected number of solutions, used by the solvers of other rules than the classic queens: warmup runs are checked but not measured.
+	 *
+	 * @param name benchmark name
+	 * @param genericNQueensSolver solver to benchmark
+	 * @param warmupNumber number of warmup runs
+	 * @param benchmarkNumber number of measured runs
+	 * @param expectedSolutionCount expected number of solutions of each run
+	 * @return run times statistics
+	 * @throws InvalidSolutionsException if a run finds another number of solutions
+	 */
+	public static BenchmarkResult benchmark(final String name, final GenericNQueensSolver genericNQueensSolver, final int warmupNumber, final int benchmarkNumber, final long expectedSolutionCount) throws InvalidSolutionsException {
 
-			benckmark.add(Long.valueOf(endNanoTime - startNanoTime));
+		for (int runNumber = 0; runNumber < warmupNumber; runNumber++) {
+			run(genericNQueensSolver, expectedSolutionCount);
 		}
 
-		// Exclude 20% slowest and 20% fastest benchmarks (example: for 5 benchmarks, exlude the fastest and slowest benchmark)
-		final int numberExcludedRun = benchmarkNumber / 5;
+		final long[] runTimes = new long[benchmarkNumber];
+		for (int runNumber = 0; runNumber < benchmarkNumber; runNumber++) {
+			runTimes[runNumber] = run(genericNQueensSolver, expectedSolutionCount);
+		}
+
+		return new BenchmarkResult(name, genericNQueensSolver.getPuzzleSize(), warmupNumber, runTimes);
+	}
 
-		// Calculate and return the average time of the 60% mid-range
-		BigInteger timeSum = BigInteger.valueOf(0L);
-		Collections.sort(benckmark);
-		int includedRunCount = 0;
-		for (int runNumber = numberExcludedRun; runNumber < benchmarkNumber - numberExcludedRun; runNumber++) {
-			timeSum = timeSum.add(BigInteger.valueOf(benckmark.get(runNumber).longValue()));
+	/**
+	 * Run and check a solver.
+	 *
+	 * @param genericNQueensSolver solver to run
+	 * @param expectedSolutionCount expected number of solutions
+	 * @return run time in nanoseconds
+	 * @throws InvalidSolutionsException if the run finds another number of solutions
+	 */
+	private static long run(final GenericNQueensSolver genericNQueensSolver, final long expectedSolutionCount) throws InvalidSolutionsException {
 
-			includedRunCount++;
+		genericNQueensSolver.reset();
+		final long startNanoTime = System.nanoTime();
+		final long solutionCount = genericNQueensSolver.solve();
+		final long endNanoTime = System.nanoTime();
+
+		if (expectedSolutionCount != solutionCount) {
+			throw new InvalidSolutionsException(solutionCount, expectedSolutionCount, genericNQueensSolver.getPuzzleSize());
 		}
 
-		return timeSum.divide(BigInteger.valueOf(includedRunCount)).longValue();
+		return endNanoTime - startNanoTime;
+	}
+
+	/**
+	 * Write benchmark results in a CSV file with a header line, or in a JSON array file if the file name ends with .json.
+	 *
+	 * @param benchmarkResults benchmark results
+	 * @param resultFile result file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(final List<BenchmarkResult> benchmarkResults, final Path resultFile) throws IOException {
+
+		final boolean json = resultFile.getFileName().toString().endsWith(".json"); //$NON-NLS-1$
+
+		try (final Writer writer = Files.newBufferedWriter(resultFile, StandardCharsets.UTF_8)) {
+
+			writer.write(json ? "[" : BenchmarkResult.CSV_HEADER); //$NON-NLS-1$
+			for (int i = 0; i < benchmarkResults.size(); i++) {
+				writer.write(json && i > 0 ? ",\n" : "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+				writer.write(json ? benchmarkResults.get(i).toJson() : benchmarkResults.get(i).toCsv());
+			}
+			writer.write(json ? "\n]\n" : "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
 	}
 }
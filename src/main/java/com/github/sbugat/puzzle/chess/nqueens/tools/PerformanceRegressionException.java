@@ -0,0 +1,39 @@
+package com.github.sbugat.puzzle.chess.nqueens.tools;
+
+/**
+ * A benchmark median is slower than its baseline by more than the allowed threshold.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public class PerformanceRegressionException extends Exception {
+
+	private static final long serialVersionUID = 4305628736209517356L;
+
+	private final String benchmarkKey;
+
+	private final long baselineTime;
+
+	private final long measuredTime;
+
+	public PerformanceRegressionException(final String benchmarkKeyArg, final long baselineTimeArg, final long measuredTimeArg, final double thresholdPercent) {
+
+		super(benchmarkKeyArg + " median " + measuredTimeArg + " ns is slower than the baseline " + baselineTimeArg + " ns by more than " + thresholdPercent + "%"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+		benchmarkKey = benchmarkKeyArg;
+		baselineTime = baselineTimeArg;
+		measuredTime = measuredTimeArg;
+	}
+
+	public String getBenchmarkKey() {
+		return benchmarkKey;
+	}
+
+	public long getBaselineTime() {
+		return baselineTime;
+	}
+
+	public long getMeasuredTime() {
+		return measuredTime;
+	}
+}
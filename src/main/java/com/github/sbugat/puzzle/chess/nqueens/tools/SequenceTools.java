@@ -1,7 +1,7 @@
 package com.github.sbugat.puzzle.chess.nqueens.tools;
 
 /**
- * Tools to check final solutions counts based on a fixed solution sequence. The sequence is based on <a href="http://oeis.org/A000170">OEIS A000170</a>.
+ * Tools to check final solutions counts based on a fixed solution sequence. The sequence is based on <a href="http://oeis.org/A000170">OEIS A000170</a>, unique solutions sequence is based on <a href="http://oeis.org/A002562">OEIS A002562</a>.
  * 
  * @author Sylvain Bugat
  * 
@@ -10,9 +10,11 @@ public final class SequenceTools {
 
 	private static final long[] SOLUTION_SEQUENCE = { 0, 1, 0, 0, 2, 10, 4, 40, 92, 352, 724, 2680, 14200, 73712, 365596, 2279184, 14772512, 95815104, 666090624, 4968057848L, 39029188884L, 314666222712L, 2691008701644L, 24233937684440L, 227514171973736L, 2207893435808352L, 22317699616364044L };
 
+	private static final long[] UNIQUE_SOLUTION_SEQUENCE = { 0, 1, 0, 0, 1, 2, 1, 6, 12, 46, 92, 341, 1787, 9233, 45752, 285053, 1846955, 11977939, 83263591, 621012754, 4878666808L, 39333324973L, 336376244042L, 3029242658210L, 28439272956934L, 275986683743434L, 2789712466510289L };
+
 	public static boolean checkSolutionsFound(final int chessboardSize, final long solutionsFound) {
 
-		if (chessboardSize < 0 || chessboardSize > SOLUTION_SEQUENCE.length) {
+		if (chessboardSize < 0 || chessboardSize >= SOLUTION_SEQUENCE.length) {
 			throw new IllegalArgumentException("Invalid chess size " + chessboardSize); //$NON-NLS-1$
 		}
 
@@ -21,10 +23,39 @@ public final class SequenceTools {
 
 	public static long getExpectedSolutions(final int chessboardSize) {
 
-		if (chessboardSize < 0 || chessboardSize > SOLUTION_SEQUENCE.length) {
+		if (chessboardSize < 0 || chessboardSize >= SOLUTION_SEQUENCE.length) {
 			throw new IllegalArgumentException("Invalid chess size " + chessboardSize); //$NON-NLS-1$
 		}
 
 		return SOLUTION_SEQUENCE[chessboardSize];
 	}
+
+	public static boolean checkUniqueSolutionsFound(final int chessboardSize, final long uniqueSolutionsFound) {
+
+		if (chessboardSize < 0 || chessboardSize >= UNIQUE_SOLUTION_SEQUENCE.length) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSize); //$NON-NLS-1$
+		}
+
+		return UNIQUE_SOLUTION_SEQUENCE[chessboardSize] == uniqueSolutionsFound;
+	}
+
+	public static long getExpectedUniqueSolutions(final int chessboardSize) {
+
+		if (chessboardSize < 0 || chessboardSize >= UNIQUE_SOLUTION_SEQUENCE.length) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSize); //$NON-NLS-1$
+		}
+
+		return UNIQUE_SOLUTION_SEQUENCE[chessboardSize];
+	}
+
+	/**
+	 * Check if the solutions count of a chessboard size is known by the sequence.
+	 * 
+	 * @param chessboardSize size of the chessboard
+	 * @return true if the expected solutions count is known, false otherwise
+	 */
+	public static boolean isKnownChessboardSize(final int chessboardSize) {
+
+		return chessboardSize >= 0 && chessboardSize < SOLUTION_SEQUENCE.length;
+	}
 }
@@ -0,0 +1,89 @@
+package com.github.sbugat.puzzle.chess.nqueens.vector;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.LongBitFlagsSubtreeCounter;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.BitFlagsPrefix;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.WorkUnitsBitFlagsNQueensSolver;
+
+/**
+ * Vector lanes solver selection: the vector lanes solver is compiled with the vector maven profile and needs the jdk.incubator.vector module at runtime (java --add-modules jdk.incubator.vector).
+ *
+ * The vector lanes solver is slower than the scalar bit-flags work units solver (N=14 on one thread: about 1.8 s against 0.16 s), the lanes stacks gathers and scatters cost more than the bit operations saved. It is only created on explicit request for benchmarks, the default solver is always
+ * the scalar one.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class VectorLanesNQueensSolvers {
+
+	/** Vector lanes solver class, not compiled without the vector profile. */
+	private static final String VECTOR_LANES_SOLVER_CLASS_NAME = "com.github.sbugat.puzzle.chess.nqueens.vector.VectorLanesNQueensSolver"; //$NON-NLS-1$
+
+	/** Number of scalar work units per thread. */
+	private static final int WORK_UNITS_PER_THREAD = 64;
+
+	private VectorLanesNQueensSolvers() {
+		// Tools class
+	}
+
+	/**
+	 * Check if the vector lanes solver can be used.
+	 *
+	 * @return true if the solver class and the vector module are available
+	 */
+	public static boolean isVectorAvailable() {
+
+		try {
+			Class.forName(VECTOR_LANES_SOLVER_CLASS_NAME, true, VectorLanesNQueensSolvers.class.getClassLoader());
+			return true;
+		}
+		catch (final ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Create the scalar bit-flags work units solver, faster than the vector lanes solver even if the vector module is available.
+	 *
+	 * @param chessboardSize size of the chessboard, up to 31
+	 * @param threadNumber number of threads
+	 * @return new solver
+	 */
+	public static GenericNQueensSolver newSolver(final int chessboardSize, final int threadNumber) {
+
+		checkChessboardSize(chessboardSize);
+
+		// Scalar path on the same prefixes as the vector lanes
+		final int workUnitsLine = (chessboardSize < 2) ? 1 : BitFlagsPrefix.findSplitLine(chessboardSize, new LongBitFlagsSubtreeCounter(chessboardSize).getBitFlagsMask(), threadNumber * WORK_UNITS_PER_THREAD);
+		return new WorkUnitsBitFlagsNQueensSolver(chessboardSize, threadNumber, workUnitsLine);
+	}
+
+	/**
+	 * Create the vector lanes solver, to benchmark it against the scalar solver.
+	 *
+	 * @param chessboardSize size of the chessboard, up to 31
+	 * @param threadNumber number of threads
+	 * @return new vector lanes solver
+	 * @throws IllegalStateException if the vector lanes solver is not compiled or the vector module is not available
+	 */
+	public static GenericNQueensSolver newVectorLanesSolver(final int chessboardSize, final int threadNumber) {
+
+		checkChessboardSize(chessboardSize);
+
+		try {
+			final Class<?> solverClass = Class.forName(VECTOR_LANES_SOLVER_CLASS_NAME, true, VectorLanesNQueensSolvers.class.getClassLoader());
+			return (GenericNQueensSolver) solverClass.getConstructor(int.class, int.class).newInstance(Integer.valueOf(chessboardSize), Integer.valueOf(threadNumber));
+		}
+		catch (final ReflectiveOperationException | LinkageError e) {
+			throw new IllegalStateException("Vector lanes solver not available", e); //$NON-NLS-1$
+		}
+	}
+
+	private static void checkChessboardSize(final int chessboardSize) {
+
+		if (chessboardSize < 1 || chessboardSize > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSize); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package com.github.sbugat.puzzle.chess.nqueens.vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import com.github.sbugat.puzzle.chess.nqueens.GenericNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.BitFlagsSolutions;
+import com.github.sbugat.puzzle.chess.nqueens.bitflags.StackedBitFlagsNQueensSolver;
+import com.github.sbugat.puzzle.chess.nqueens.parallel.BitFlagsPrefix;
+
+/**
+ * Classic N chess queens on a size N chessboard with a depth-first search in each lane of int vectors of the incubator Vector API (chessboard size up to 31).
+ *
+ * Each thread runs a vector of independent sub-trees searches: at each step every lane places a queen, goes back on its stack or counts a solution. Lanes stacks are interleaved and read or written with gathers and scatters. A lane ending its sub-tree is retired and refilled with the
+ * next prefix of a queue shared by all threads. This class needs the jdk.incubator.vector module and is slower than the scalar solver, see {@link VectorLanesNQueensSolvers}.
+ *
+ * @author Sylvain Bugat
+ *
+ */
+public final class VectorLanesNQueensSolver extends GenericNQueensSolver {
+
+	/** Int vectors of the preferred size of the CPU. */
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	/** Minimum number of prefixes for each lane of each thread. */
+	private static final int PREFIXES_PER_LANE = 16;
+
+	/** Number of threads. */
+	private final int threadNumber;
+	/** Constant bit-flags mask depending of the chessboard size. */
+	private final int bitFlagsMask;
+
+	/** Queen column of each line of the first solution, searched on the first chessboard position read. */
+	private int[] firstSolution;
+
+	public VectorLanesNQueensSolver(final int chessboardSizeArg, final int threadNumberArg) {
+
+		super(chessboardSizeArg, false);
+
+		if (chessboardSizeArg < 1 || chessboardSizeArg > StackedBitFlagsNQueensSolver.MAXIMUM_CHESSBOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid chess size " + chessboardSizeArg); //$NON-NLS-1$
+		}
+
+		threadNumber = threadNumberArg;
+		bitFlagsMask = (int) ((1L << chessboardSizeArg) - 1);
+	}
+
+	/**
+	 * Number of lanes of the vectors.
+	 *
+	 * @return lanes of an int vector
+	 */
+	public static int getLaneNumber() {
+		return SPECIES.length();
+	}
+
+	@Override
+	public long solve() {
+
+		// A single queen is the only solution of the 1x1 chessboard
+		if (1 == chessboardSize) {
+			solutionCount = 1;
+			return solutionCount;
+		}
+
+		final int splitLine = BitFlagsPrefix.findSplitLine(chessboardSize, bitFlagsMask, SPECIES.length() * threadNumber * PREFIXES_PER_LANE);
+		final List<BitFlagsPrefix> prefixes = BitFlagsPrefix.mirrorWorkUnits(chessboardSize, bitFlagsMask, splitLine);
+		final AtomicInteger nextPrefix = new AtomicInteger();
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+		try {
+			final List<Future<Long>> futures = new ArrayList<>();
+			for (int i = 0; i < threadNumber; i++) {
+				futures.add(executorService.submit(new LanesSearch(prefixes, nextPrefix)));
+			}
+
+			long halfSolutionCount = 0;
+			for (final Future<Long> future : futures) {
+				halfSolutionCount += future.get().longValue();
+			}
+
+			// Multiply by 2 the solution count for the other half not calculated
+			solutionCount = halfSolutionCount * 2;
+			return solutionCount;
+		}
+		catch (final ExecutionException e) {
+			throw new IllegalStateException("Lanes search failed", e.getCause()); //$NON-NLS-1$
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted solve", e); //$NON-NLS-1$
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Search of a thread: a sub-tree in each lane, lanes are refilled from the shared prefixes queue.
+	 */
+	private final class LanesSearch implements Callable<Long> {
+
+		private final List<BitFlagsPrefix> prefixes;
+		private final AtomicInteger nextPrefix;
+
+		/** Number of lanes. */
+		private final int lanes = SPECIES.length();
+
+		/** Lanes state of the refills: line, remaining free positions, used columns and diagonals, first line of the sub-tree and active lanes. */
+		private final int[] laneLines = new int[lanes];
+		private final int[] laneBitFlags = new int[lanes];
+		private final int[] laneUnusedColumns = new int[lanes];
+		private final int[] laneUnusedAscendingDiagonals = new int[lanes];
+		private final int[] laneUnusedDescendingDiagonals = new int[lanes];
+		private final int[] laneFirstLines = new int[lanes];
+		private final boolean[] activeLanes = new boolean[lanes];
+
+		LanesSearch(final List<BitFlagsPrefix> prefixesArg, final AtomicInteger nextPrefixArg) {
+
+			prefixes = prefixesArg;
+			nextPrefix = nextPrefixArg;
+		}
+
+		/**
+		 * Load the next prefix in a lane, a lane is deactivated if the queue is empty.
+		 *
+		 * @param lane lane to refill
+		 */
+		private void refill(final int lane) {
+
+			final int prefixNumber = nextPrefix.getAndIncrement();
+			if (prefixNumber >= prefixes.size()) {
+				activeLanes[lane] = false;
+				laneBitFlags[lane] = 0;
+				return;
+			}
+
+			final BitFlagsPrefix prefix = prefixes.get(prefixNumber);
+			activeLanes[lane] = true;
+			laneLines[lane] = prefix.getLine();
+			laneFirstLines[lane] = prefix.getLine();
+			laneUnusedColumns[lane] = (int) prefix.getUnusedColumns();
+			laneUnusedAscendingDiagonals[lane] = (int) prefix.getUnusedAscendingDiagonals();
+			laneUnusedDescendingDiagonals[lane] = (int) prefix.getUnusedDescendingDiagonals();
+			laneBitFlags[lane] = (int) prefix.getFreeBitFlags(bitFlagsMask);
+		}
+
+		@Override
+		public Long call() {
+
+			// Interleaved stacks: index line * lanes + lane
+			final int[] bitFlagsStack = new int[chessboardSize * lanes];
+			final int[] unusedColumnsStack = new int[chessboardSize * lanes];
+			final int[] unusedAscendingDiagonalsStack = new int[chessboardSize * lanes];
+			final int[] unusedDescendingDiagonalsStack = new int[chessboardSize * lanes];
+			final int[] stackIndexes = new int[lanes];
+
+			final int[] laneNumbers = new int[lanes];
+			for (int lane = 0; lane < lanes; lane++) {
+				laneNumbers[lane] = lane;
+				refill(lane);
+			}
+			final IntVector iota = IntVector.fromArray(SPECIES, laneNumbers, 0);
+
+			IntVector lines = IntVector.fromArray(SPECIES, laneLines, 0);
+			IntVector bitFlags = IntVector.fromArray(SPECIES, laneBitFlags, 0);
+			IntVector unusedColumns = IntVector.fromArray(SPECIES, laneUnusedColumns, 0);
+			IntVector unusedAscendingDiagonals = IntVector.fromArray(SPECIES, laneUnusedAscendingDiagonals, 0);
+			IntVector unusedDescendingDiagonals = IntVector.fromArray(SPECIES, laneUnusedDescendingDiagonals, 0);
+			IntVector firstLines = IntVector.fromArray(SPECIES, laneFirstLines, 0);
+			VectorMask<Integer> active = VectorMask.fromArray(SPECIES, activeLanes, 0);
+
+			long halfSolutionCount = 0;
+			while (active.anyTrue()) {
+
+				final VectorMask<Integer> free = bitFlags.compare(VectorOperators.NE, 0);
+				final IntVector targetQueens = bitFlags.and(bitFlags.neg());
+
+				// A queen on the last line is a solution
+				final VectorMask<Integer> lastLine = free.and(lines.compare(VectorOperators.EQ, chessboardSize - 1));
+				halfSolutionCount += lastLine.trueCount();
+
+				// Go on to the next line: push the remaining positions and the used columns and diagonals of the line
+				final VectorMask<Integer> nextLine = free.andNot(lastLine);
+				if (nextLine.anyTrue()) {
+
+					lines.mul(lanes).add(iota).intoArray(stackIndexes, 0);
+					bitFlags.lanewise(VectorOperators.XOR, targetQueens).intoArray(bitFlagsStack, 0, stackIndexes, 0, nextLine);
+					unusedColumns.intoArray(unusedColumnsStack, 0, stackIndexes, 0, nextLine);
+					unusedAscendingDiagonals.intoArray(unusedAscendingDiagonalsStack, 0, stackIndexes, 0, nextLine);
+					unusedDescendingDiagonals.intoArray(unusedDescendingDiagonalsStack, 0, stackIndexes, 0, nextLine);
+
+					unusedColumns = unusedColumns.blend(unusedColumns.or(targetQueens), nextLine);
+					unusedAscendingDiagonals = unusedAscendingDiagonals.blend(unusedAscendingDiagonals.or(targetQueens).lanewise(VectorOperators.LSHL, 1), nextLine);
+					unusedDescendingDiagonals = unusedDescendingDiagonals.blend(unusedDescendingDiagonals.or(targetQueens).lanewise(VectorOperators.LSHR, 1), nextLine);
+					lines = lines.lanewise(VectorOperators.ADD, 1, nextLine);
+				}
+
+				final IntVector nextBitFlags = unusedColumns.or(unusedAscendingDiagonals).or(unusedDescendingDiagonals).not().and(bitFlagsMask);
+				bitFlags = bitFlags.lanewise(VectorOperators.XOR, targetQueens, lastLine).blend(nextBitFlags, nextLine);
+
+				// Backtrace process of the lanes without free position left
+				final VectorMask<Integer> empty = bitFlags.compare(VectorOperators.EQ, 0);
+				final VectorMask<Integer> previousLine = empty.and(lines.compare(VectorOperators.GT, firstLines));
+				if (previousLine.anyTrue()) {
+
+					lines = lines.lanewise(VectorOperators.SUB, 1, previousLine);
+					lines.mul(lanes).add(iota).intoArray(stackIndexes, 0);
+					bitFlags = bitFlags.blend(IntVector.fromArray(SPECIES, bitFlagsStack, 0, stackIndexes, 0, previousLine), previousLine);
+					unusedColumns = unusedColumns.blend(IntVector.fromArray(SPECIES, unusedColumnsStack, 0, stackIndexes, 0, previousLine), previousLine);
+					unusedAscendingDiagonals = unusedAscendingDiagonals.blend(IntVector.fromArray(SPECIES, unusedAscendingDiagonalsStack, 0, stackIndexes, 0, previousLine), previousLine);
+					unusedDescendingDiagonals = unusedDescendingDiagonals.blend(IntVector.fromArray(SPECIES, unusedDescendingDiagonalsStack, 0, stackIndexes, 0, previousLine), previousLine);
+				}
+
+				// Retire the lanes at the end of their sub-tree and refill them with the next prefixes
+				final VectorMask<Integer> retired = empty.andNot(previousLine).and(active);
+				if (retired.anyTrue()) {
+
+					lines.intoArray(laneLines, 0);
+					bitFlags.intoArray(laneBitFlags, 0);
+					unusedColumns.intoArray(laneUnusedColumns, 0);
+					unusedAscendingDiagonals.intoArray(laneUnusedAscendingDiagonals, 0);
+					unusedDescendingDiagonals.intoArray(laneUnusedDescendingDiagonals, 0);
+					firstLines.intoArray(laneFirstLines, 0);
+
+					for (int lane = 0; lane < lanes; lane++) {
+						if (retired.laneIsSet(lane)) {
+							refill(lane);
+						}
+					}
+
+					lines = IntVector.fromArray(SPECIES, laneLines, 0);
+					bitFlags = IntVector.fromArray(SPECIES, laneBitFlags, 0);
+					unusedColumns = IntVector.fromArray(SPECIES, laneUnusedColumns, 0);
+					unusedAscendingDiagonals = IntVector.fromArray(SPECIES, laneUnusedAscendingDiagonals, 0);
+					unusedDescendingDiagonals = IntVector.fromArray(SPECIES, laneUnusedDescendingDiagonals, 0);
+					firstLines = IntVector.fromArray(SPECIES, laneFirstLines, 0);
+					active = VectorMask.fromArray(SPECIES, activeLanes, 0);
+				}
+			}
+
+			return Long.valueOf(halfSolutionCount);
+		}
+	}
+
+	@Override
+	public void reset() {
+
+		// Reinitialize the number of solutions found
+		solutionCount = 0;
+	}
+
+	@Override
+	public boolean getChessboardPosition(final int x, final int y) {
+
+		// Solutions are counted in many lanes without a single chessboard, the chessboard is the first solution in lexicographic order
+		if (null == firstSolution) {
+			firstSolution = BitFlagsSolutions.first(chessboardSize);
+		}
+		return y < firstSolution.length && x == firstSolution[y];
+	}
+}